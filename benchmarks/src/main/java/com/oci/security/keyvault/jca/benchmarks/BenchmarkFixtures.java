@@ -0,0 +1,83 @@
+package com.oci.security.keyvault.jca.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
+
+/**
+ * Certificates and keystore snapshots shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+	static final char[] PASSWORD = "benchmark".toCharArray();
+
+	/**
+	 * The provider logs every call at INFO; keep a reference so the level is not lost to GC.
+	 */
+	private static final Logger PROVIDER_LOGGER = Logger.getLogger("com.oci.security.keyvault.jca");
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Turn off the provider's INFO logging, which would otherwise dominate the measurements.
+	 */
+	static void quietLogging() {
+		PROVIDER_LOGGER.setLevel(Level.WARNING);
+	}
+
+	/**
+	 * Read a PEM certificate from the benchmark resources.
+	 */
+	static String readPem(String name) throws IOException {
+		try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/benchmarks/" + name)) {
+			if (in == null) {
+				throw new IOException("Missing benchmark resource " + name);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	static Certificate readCertificate(String name) throws IOException, CertificateException {
+		return CertificateFactory.getInstance("X.509")
+				.generateCertificate(new ByteArrayInputStream(readPem(name).getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	/**
+	 * Build a keystore snapshot with the given number of aliases, alternating RSA and EC certificates.
+	 * Aliases are named {@code alias-<n>}.
+	 */
+	static byte[] snapshot(int aliases) throws IOException, CertificateException {
+		Certificate rsa = readCertificate("rsa.pem");
+		Certificate ec = readCertificate("ec.pem");
+		List<OCIKeyStoreSnapshot.Entry> entries = new ArrayList<>(aliases);
+		for (int i = 0; i < aliases; i++) {
+			boolean isRsa = i % 2 == 0;
+			entries.add(new OCIKeyStoreSnapshot.Entry(OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT, "alias-" + i,
+					"ocid1.certificateauthority.oc1..bench" + i, "ocid1.key.oc1..bench" + i, "key-" + i,
+					isRsa ? "RSA" : "ECDSA", isRsa ? 256 : 32, "ocid1.keyversion.oc1..bench" + i,
+					Collections.singletonList(isRsa ? rsa : ec)));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		OCIKeyStoreSnapshot.write(out, PASSWORD, entries);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,58 @@
+package com.oci.security.keyvault.jca.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oci.security.keyvault.jca.OCIJcaProvider;
+import com.oci.security.keyvault.jca.OCIKeyManager;
+import com.oci.security.keyvault.jca.OCIKeyStore;
+
+/**
+ * Alias selection of {@link OCIKeyManager} on the handshake path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeyManagerBenchmark {
+
+	@Param({ "10", "1000" })
+	public int aliases;
+
+	private OCIKeyManager keyManager;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkFixtures.quietLogging();
+		KeyStore keyStore = KeyStore.getInstance(OCIKeyStore.KEY_STORE_TYPE, new OCIJcaProvider());
+		keyStore.load(new ByteArrayInputStream(BenchmarkFixtures.snapshot(aliases)), BenchmarkFixtures.PASSWORD);
+		keyManager = new OCIKeyManager(keyStore, BenchmarkFixtures.PASSWORD);
+		keyManager.chooseServerAlias("RSA", null, null);
+	}
+
+	@Benchmark
+	public String chooseServerAliasRsa() {
+		return keyManager.chooseServerAlias("RSA", null, null);
+	}
+
+	@Benchmark
+	public String chooseServerAliasEc() {
+		return keyManager.chooseServerAlias("EC", null, null);
+	}
+
+	@Benchmark
+	public X509Certificate[] getCertificateChain() {
+		return keyManager.getCertificateChain("alias-1");
+	}
+}
@@ -0,0 +1,79 @@
+package com.oci.security.keyvault.jca.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.cert.Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oci.security.keyvault.jca.OCIJcaProvider;
+import com.oci.security.keyvault.jca.OCIKeyStore;
+
+/**
+ * Loading an {@link OCIKeyStore} from a snapshot, and looking entries up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeyStoreBenchmark {
+
+	@Param({ "10", "1000" })
+	public int aliases;
+
+	private Provider provider;
+	private byte[] snapshot;
+	private KeyStore keyStore;
+	private String alias;
+	private Certificate certificate;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkFixtures.quietLogging();
+		provider = new OCIJcaProvider();
+		snapshot = BenchmarkFixtures.snapshot(aliases);
+		keyStore = load();
+		alias = "alias-" + (aliases - 1);
+		certificate = keyStore.getCertificate(alias);
+	}
+
+	private KeyStore load() throws Exception {
+		KeyStore store = KeyStore.getInstance(OCIKeyStore.KEY_STORE_TYPE, provider);
+		store.load(new ByteArrayInputStream(snapshot), BenchmarkFixtures.PASSWORD);
+		return store;
+	}
+
+	@Benchmark
+	public KeyStore loadFromSnapshot() throws Exception {
+		return load();
+	}
+
+	@Benchmark
+	public boolean containsAlias() throws Exception {
+		return keyStore.containsAlias(alias);
+	}
+
+	@Benchmark
+	public Certificate getCertificate() throws Exception {
+		return keyStore.getCertificate(alias);
+	}
+
+	@Benchmark
+	public String getCertificateAlias() throws Exception {
+		return keyStore.getCertificateAlias(certificate);
+	}
+
+	@Benchmark
+	public int size() throws Exception {
+		return keyStore.size();
+	}
+}
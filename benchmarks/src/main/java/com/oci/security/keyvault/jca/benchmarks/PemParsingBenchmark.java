@@ -0,0 +1,49 @@
+package com.oci.security.keyvault.jca.benchmarks;
+
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+
+/**
+ * Parsing the PEM certificates returned by the certificates service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PemParsingBenchmark {
+
+	@Param({ "rsa.pem", "ec.pem" })
+	public String certificate;
+
+	private String pem;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkFixtures.quietLogging();
+		pem = BenchmarkFixtures.readPem(certificate);
+	}
+
+	@Benchmark
+	public X509Certificate parseCertificatePem() {
+		return OCIKeyVaultClient.parseCertificatePem(pem);
+	}
+
+	/**
+	 * A bundle whose chain repeats the certificate, as returned for a root certificate authority.
+	 */
+	@Benchmark
+	public X509Certificate[] parseCertificateChainPem() {
+		return OCIKeyVaultClient.parseCertificateChainPem(pem, pem);
+	}
+}
@@ -0,0 +1,78 @@
+package com.oci.security.keyvault.jca.benchmarks;
+
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Signature;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oci.security.keyvault.jca.OCIJcaProvider;
+import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+import com.oci.security.keyvault.jca.local.LocalOciConfig;
+import com.oci.security.keyvault.jca.local.LocalOciServer;
+
+/**
+ * Signing through {@link Signature} with every keyless signature of the provider, against
+ * {@link LocalOciServer}, optionally with injected KMS latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SignatureBenchmark {
+
+	@Param({ "SHA256withRSA", "SHA512withRSA", "SHA256withECDSA", "SHA384withECDSA", "SHA512withECDSA" })
+	public String algorithm;
+
+	@Param({ "1024" })
+	public int messageSize;
+
+	@Param({ "0" })
+	public double signLatencyMillis;
+
+	private LocalOciServer server;
+	private OCIKeyVaultClient client;
+	private Provider provider;
+	private PrivateKey privateKey;
+	private byte[] message;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkFixtures.quietLogging();
+		server = LocalOciServer.start(new LocalOciConfig().seed(42).latency(LocalOciConfig.SIGN,
+				signLatencyMillis, signLatencyMillis * 4));
+		client = server.newClient(null);
+		provider = new OCIJcaProvider();
+		String keyId = server.addKey(algorithm.endsWith("RSA") ? "RSA" : "EC");
+		privateKey = (PrivateKey) client.getPrivateKey(keyId);
+		message = new byte[messageSize];
+		new Random(42).nextBytes(message);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		client.close();
+		server.close();
+	}
+
+	/**
+	 * The full JCA sequence as a TLS stack runs it for each handshake.
+	 */
+	@Benchmark
+	public byte[] getInstanceInitSignUpdateSign() throws Exception {
+		Signature signature = Signature.getInstance(algorithm, provider);
+		signature.initSign(privateKey);
+		signature.update(message);
+		return signature.sign();
+	}
+}
@@ -0,0 +1,189 @@
+package com.oci.security.keyvault.jca.jdkhttp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.oci.security.keyvault.jca.implementation.OCIKmsTransport;
+import com.oracle.bmc.auth.BasicAuthenticationDetailsProvider;
+import com.oracle.bmc.http.client.Serializer;
+import com.oracle.bmc.http.signing.DefaultRequestSigner;
+import com.oracle.bmc.http.signing.RequestSigner;
+import com.oracle.bmc.keymanagement.model.Key;
+import com.oracle.bmc.keymanagement.model.KeyVersion;
+import com.oracle.bmc.keymanagement.model.SignedData;
+import com.oracle.bmc.keymanagement.requests.GetKeyRequest;
+import com.oracle.bmc.keymanagement.requests.GetKeyVersionRequest;
+import com.oracle.bmc.keymanagement.requests.SignRequest;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+import com.oracle.bmc.model.BmcException;
+
+/**
+ * KMS transport to one vault on the asynchronous {@link HttpClient} of the JDK.
+ *
+ * Only the Sign, GetKey and GetKeyVersion operations of the KMS API are implemented. Requests are
+ * signed with the OCI request signature of the authentication provider, the bodies are the JSON of
+ * the SDK models, and errors complete the future with a {@link BmcException} carrying the HTTP
+ * status and the service error code.
+ */
+public final class JdkHttpKmsTransport implements OCIKmsTransport {
+
+	private static final String KMS_API = "/20180608";
+	private static final String JSON = "application/json";
+	// Set by the HTTP client itself, from the URI and the body.
+	private static final Set<String> CLIENT_HEADERS = Set.of("host", "content-length");
+	// The public JSON mapping of the SDK, configured for its models.
+	private static final Serializer SERIALIZER = Serializer.getDefault();
+
+	private final String cryptoEndpoint;
+	private final String managementEndpoint;
+	private final RequestSigner signer;
+	private final HttpClient client;
+	private final Duration timeout;
+
+	JdkHttpKmsTransport(String cryptoEndpoint, String managementEndpoint, BasicAuthenticationDetailsProvider provider,
+			HttpClient client, Duration timeout) {
+		this.cryptoEndpoint = cryptoEndpoint;
+		this.managementEndpoint = managementEndpoint;
+		this.signer = DefaultRequestSigner.createRequestSigner(provider);
+		this.client = client;
+		this.timeout = timeout;
+	}
+
+	@Override
+	public CompletableFuture<SignResponse> sign(SignRequest request) {
+		String body = toJson(request.getSignDataDetails());
+		return send("POST", cryptoEndpoint + KMS_API + "/sign", body, request.getOpcRequestId())
+				.thenApply(response -> SignResponse.builder().__httpStatusCode__(response.statusCode())
+						.headers(response.headers().map()).opcRequestId(opcRequestId(response))
+						.signedData(fromJson(response.body(), SignedData.class)).build());
+	}
+
+	@Override
+	public CompletableFuture<GetKeyResponse> getKey(GetKeyRequest request) {
+		return send("GET", managementEndpoint + KMS_API + "/keys/" + encode(request.getKeyId()), null,
+				request.getOpcRequestId())
+				.thenApply(response -> GetKeyResponse.builder().__httpStatusCode__(response.statusCode())
+						.headers(response.headers().map()).opcRequestId(opcRequestId(response))
+						.etag(response.headers().firstValue("etag").orElse(null))
+						.key(fromJson(response.body(), Key.class)).build());
+	}
+
+	@Override
+	public CompletableFuture<GetKeyVersionResponse> getKeyVersion(GetKeyVersionRequest request) {
+		return send("GET", managementEndpoint + KMS_API + "/keys/" + encode(request.getKeyId()) + "/keyVersions/"
+				+ encode(request.getKeyVersionId()), null, request.getOpcRequestId())
+				.thenApply(response -> GetKeyVersionResponse.builder().__httpStatusCode__(response.statusCode())
+						.headers(response.headers().map()).opcRequestId(opcRequestId(response))
+						.etag(response.headers().firstValue("etag").orElse(null))
+						.keyVersion(fromJson(response.body(), KeyVersion.class)).build());
+	}
+
+	@Override
+	public void close() {
+		// The HTTP client is shared by every transport and closes its idle connections itself.
+	}
+
+	/**
+	 * Sign and send a request, completing with the response if it succeeded.
+	 */
+	private CompletableFuture<HttpResponse<String>> send(String method, String uri, String body,
+			String opcRequestId) {
+		URI target = URI.create(uri);
+		Map<String, List<String>> headers = new HashMap<>();
+		headers.put("accept", Collections.singletonList(JSON));
+		if (body != null) {
+			headers.put("content-type", Collections.singletonList(JSON));
+		}
+		if (opcRequestId != null) {
+			headers.put("opc-request-id", Collections.singletonList(opcRequestId));
+		}
+		HttpRequest.Builder builder = HttpRequest.newBuilder(target).timeout(timeout).method(method,
+				body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+		try {
+			// The signed headers include the date, so a request is signed right before it is sent.
+			Map<String, String> signed = signer.signRequest(target, method, headers, body);
+			headers.forEach((name, values) -> builder.setHeader(name, values.get(0)));
+			signed.forEach((name, value) -> {
+				if (!CLIENT_HEADERS.contains(name.toLowerCase())) {
+					builder.setHeader(name, value);
+				}
+			});
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString())
+				.handle((response, error) -> {
+					if (error != null) {
+						throw transportError(error, opcRequestId);
+					}
+					if (response.statusCode() >= 300) {
+						throw serviceError(response);
+					}
+					return response;
+				});
+	}
+
+	private static BmcException transportError(Throwable error, String opcRequestId) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+				: error;
+		return new BmcException(cause instanceof HttpTimeoutException, "KMS request failed: " + cause.getMessage(),
+				cause, opcRequestId);
+	}
+
+	/**
+	 * An error response has a JSON body with the service error code and message.
+	 */
+	private static BmcException serviceError(HttpResponse<String> response) {
+		String code = null;
+		String message = response.body();
+		try {
+			Map<?, ?> error = fromJson(response.body(), Map.class);
+			code = (String) error.get("code");
+			message = (String) error.get("message");
+		} catch (RuntimeException e) {
+			// Not a service error body, keep it as the message.
+		}
+		return new BmcException(response.statusCode(), code, message, opcRequestId(response));
+	}
+
+	private static String toJson(Object value) {
+		try {
+			return SERIALIZER.writeValueAsString(value);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	private static <T> T fromJson(String json, Class<T> type) {
+		try {
+			return SERIALIZER.readValue(json, type);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	private static String opcRequestId(HttpResponse<String> response) {
+		return response.headers().firstValue("opc-request-id").orElse(null);
+	}
+
+	private static String encode(String pathSegment) {
+		return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+}
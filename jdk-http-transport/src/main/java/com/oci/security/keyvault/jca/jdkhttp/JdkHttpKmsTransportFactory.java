@@ -0,0 +1,52 @@
+package com.oci.security.keyvault.jca.jdkhttp;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import static java.util.logging.Level.INFO;
+import java.util.logging.Logger;
+
+import com.oci.security.keyvault.jca.implementation.OCIKmsTransport;
+import com.oci.security.keyvault.jca.implementation.OCIProperties;
+import com.oracle.bmc.auth.AbstractAuthenticationDetailsProvider;
+import com.oracle.bmc.auth.BasicAuthenticationDetailsProvider;
+
+/**
+ * Creates the {@code jdk} transport, selected with {@code -Doci.transport=jdk}.
+ *
+ * Every transport shares one {@link HttpClient}, which keeps a single HTTP/2 connection per vault and
+ * multiplexes the concurrent calls on it. The connect timeout is {@code oci.client.connectTimeoutMillis}
+ * (10000) and the timeout of a call {@code oci.client.readTimeoutMillis} (30000).
+ */
+public final class JdkHttpKmsTransportFactory implements OCIKmsTransport.Factory {
+
+	/**
+	 * Name of the transport.
+	 */
+	public static final String NAME = "jdk";
+
+	private static final Logger LOGGER = Logger.getLogger(JdkHttpKmsTransportFactory.class.getName());
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public OCIKmsTransport create(String cryptoEndpoint, String managementEndpoint,
+			AbstractAuthenticationDetailsProvider provider) {
+		if (!(provider instanceof BasicAuthenticationDetailsProvider)) {
+			throw new IllegalArgumentException("The jdk transport signs requests with a key, "
+					+ "it does not support " + (provider == null ? null : provider.getClass().getName()));
+		}
+		LOGGER.log(INFO, "JdkHttpKmsTransportFactory: creating the transport for {0}", cryptoEndpoint);
+		return new JdkHttpKmsTransport(cryptoEndpoint, managementEndpoint,
+				(BasicAuthenticationDetailsProvider) provider, ClientHolder.CLIENT,
+				Duration.ofMillis(OCIProperties.getInt("oci.client.readTimeoutMillis", 30000)));
+	}
+
+	private static final class ClientHolder {
+		private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+				.connectTimeout(Duration.ofMillis(OCIProperties.getInt("oci.client.connectTimeoutMillis", 10000)))
+				.build();
+	}
+}
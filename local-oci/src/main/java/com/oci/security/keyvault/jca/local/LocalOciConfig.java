@@ -0,0 +1,241 @@
+package com.oci.security.keyvault.jca.local;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Behaviour of a {@link LocalOciServer}: injected latency, throttling, server errors and key rotation.
+ *
+ * Latency follows a log-normal distribution described by its median and its 99th percentile, which
+ * matches the long tail of remote calls. It can be set for all operations or per operation
+ * ({@link #SIGN}, {@link #GET_KEY}, {@link #GET_KEY_VERSION}, {@link #GET_CERTIFICATE_AUTHORITY},
+ * {@link #GET_CERTIFICATE_AUTHORITY_BUNDLE}).
+ *
+ * {@link #fromSystemProperties()} reads {@code local.port}, {@code local.latencyMedianMillis},
+ * {@code local.latencyP99Millis}, {@code local.<operation>.latencyMedianMillis},
+ * {@code local.<operation>.latencyP99Millis}, {@code local.throttleRate}, {@code local.errorRate},
+ * {@code local.rotateSeconds}, {@code local.rejectRetiredVersions} and {@code local.seed}.
+ */
+public final class LocalOciConfig {
+
+	public static final String SIGN = "sign";
+	public static final String GET_KEY = "getKey";
+	public static final String GET_KEY_VERSION = "getKeyVersion";
+	public static final String GET_CERTIFICATE_AUTHORITY = "getCertificateAuthority";
+	public static final String GET_CERTIFICATE_AUTHORITY_BUNDLE = "getCertificateAuthorityBundle";
+
+	private static final String[] OPERATIONS = { SIGN, GET_KEY, GET_KEY_VERSION, GET_CERTIFICATE_AUTHORITY,
+			GET_CERTIFICATE_AUTHORITY_BUNDLE };
+
+	/**
+	 * z-score of the 99th percentile of the standard normal distribution.
+	 */
+	private static final double Z_99 = 2.326;
+
+	private int port;
+	private Latency latency = Latency.NONE;
+	private final Map<String, Latency> operationLatencies = new ConcurrentHashMap<>();
+	private double throttleRate;
+	private double errorRate;
+	private long rotateSeconds;
+	private boolean rejectRetiredVersions;
+	private Long seed;
+
+	/**
+	 * Read the configuration from system properties.
+	 *
+	 * @return the configuration
+	 */
+	public static LocalOciConfig fromSystemProperties() {
+		LocalOciConfig config = new LocalOciConfig()
+				.port(Integer.getInteger("local.port", 0))
+				.latency(doubleProperty("local.latencyMedianMillis", 0), doubleProperty("local.latencyP99Millis", 0))
+				.throttleRate(doubleProperty("local.throttleRate", 0))
+				.errorRate(doubleProperty("local.errorRate", 0))
+				.rotateSeconds(Long.getLong("local.rotateSeconds", 0))
+				.rejectRetiredVersions(Boolean.getBoolean("local.rejectRetiredVersions"));
+		for (String operation : OPERATIONS) {
+			String median = System.getProperty("local." + operation + ".latencyMedianMillis");
+			if (median != null) {
+				config.latency(operation, Double.parseDouble(median),
+						doubleProperty("local." + operation + ".latencyP99Millis", Double.parseDouble(median)));
+			}
+		}
+		String seed = System.getProperty("local.seed");
+		if (seed != null) {
+			config.seed(Long.parseLong(seed));
+		}
+		return config;
+	}
+
+	/**
+	 * Set the port, 0 for a free port.
+	 *
+	 * @param port the port
+	 * @return this configuration
+	 */
+	public LocalOciConfig port(int port) {
+		this.port = port;
+		return this;
+	}
+
+	/**
+	 * Set the latency of every operation without its own latency.
+	 *
+	 * @param medianMillis the median latency in milliseconds
+	 * @param p99Millis    the 99th percentile latency in milliseconds
+	 * @return this configuration
+	 */
+	public LocalOciConfig latency(double medianMillis, double p99Millis) {
+		this.latency = Latency.of(medianMillis, p99Millis);
+		return this;
+	}
+
+	/**
+	 * Set the latency of one operation.
+	 *
+	 * @param operation    the operation
+	 * @param medianMillis the median latency in milliseconds
+	 * @param p99Millis    the 99th percentile latency in milliseconds
+	 * @return this configuration
+	 */
+	public LocalOciConfig latency(String operation, double medianMillis, double p99Millis) {
+		operationLatencies.put(operation, Latency.of(medianMillis, p99Millis));
+		return this;
+	}
+
+	/**
+	 * Set the fraction of requests answered with 429 Too Many Requests.
+	 *
+	 * @param throttleRate the fraction, between 0 and 1
+	 * @return this configuration
+	 */
+	public LocalOciConfig throttleRate(double throttleRate) {
+		this.throttleRate = throttleRate;
+		return this;
+	}
+
+	/**
+	 * Set the fraction of requests answered with a 500 or 503 error.
+	 *
+	 * @param errorRate the fraction, between 0 and 1
+	 * @return this configuration
+	 */
+	public LocalOciConfig errorRate(double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	/**
+	 * Create a new version of every key, and reissue the certificate authorities, at this interval.
+	 *
+	 * @param rotateSeconds the interval in seconds, 0 to never rotate
+	 * @return this configuration
+	 */
+	public LocalOciConfig rotateSeconds(long rotateSeconds) {
+		this.rotateSeconds = rotateSeconds;
+		return this;
+	}
+
+	/**
+	 * Reject signing with a key version which is no longer current, with 409 Conflict.
+	 *
+	 * @param rejectRetiredVersions whether retired versions are rejected
+	 * @return this configuration
+	 */
+	public LocalOciConfig rejectRetiredVersions(boolean rejectRetiredVersions) {
+		this.rejectRetiredVersions = rejectRetiredVersions;
+		return this;
+	}
+
+	/**
+	 * Seed the random injection of latency and faults, for repeatable runs.
+	 *
+	 * @param seed the seed
+	 * @return this configuration
+	 */
+	public LocalOciConfig seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	int getPort() {
+		return port;
+	}
+
+	double getThrottleRate() {
+		return throttleRate;
+	}
+
+	double getErrorRate() {
+		return errorRate;
+	}
+
+	long getRotateSeconds() {
+		return rotateSeconds;
+	}
+
+	boolean isRejectRetiredVersions() {
+		return rejectRetiredVersions;
+	}
+
+	Random newRandom() {
+		return seed == null ? null : new Random(seed);
+	}
+
+	Latency getLatency(String operation) {
+		return operationLatencies.getOrDefault(operation, latency);
+	}
+
+	private static double doubleProperty(String name, double defaultValue) {
+		String value = System.getProperty(name);
+		return value == null ? defaultValue : Double.parseDouble(value);
+	}
+
+	/**
+	 * Log-normal latency distribution.
+	 */
+	static final class Latency {
+
+		static final Latency NONE = new Latency(0, 0);
+
+		private final double mu;
+		private final double sigma;
+
+		private Latency(double mu, double sigma) {
+			this.mu = mu;
+			this.sigma = sigma;
+		}
+
+		static Latency of(double medianMillis, double p99Millis) {
+			if (medianMillis <= 0) {
+				return NONE;
+			}
+			double p99 = Math.max(medianMillis, p99Millis);
+			return new Latency(Math.log(medianMillis), Math.log(p99 / medianMillis) / Z_99);
+		}
+
+		/**
+		 * Draw a latency.
+		 *
+		 * @param random the random source, or null for a thread local one
+		 * @return the latency in milliseconds
+		 */
+		double sampleMillis(Random random) {
+			if (this == NONE) {
+				return 0;
+			}
+			double gaussian;
+			if (random == null) {
+				gaussian = ThreadLocalRandom.current().nextGaussian();
+			} else {
+				synchronized (random) {
+					gaussian = random.nextGaussian();
+				}
+			}
+			return Math.exp(mu + sigma * gaussian);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.oci.security.keyvault.jca.local;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues self-signed certificate authority certificates with the JDK alone.
+ *
+ * The JDK can parse certificates but has no public API to create them, so the DER structure of a
+ * minimal X.509 v3 certificate is written here: subject and issuer common name, basic constraints
+ * marking a certificate authority, and optional DNS subject alternative names.
+ */
+final class SelfSignedCertificates {
+
+	private static final byte SEQUENCE = 0x30;
+	private static final byte SET = 0x31;
+	private static final byte INTEGER = 0x02;
+	private static final byte BIT_STRING = 0x03;
+	private static final byte OCTET_STRING = 0x04;
+	private static final byte OBJECT_IDENTIFIER = 0x06;
+	private static final byte UTF8_STRING = 0x0c;
+	private static final byte UTC_TIME = 0x17;
+	private static final byte BOOLEAN = 0x01;
+	private static final byte NULL = 0x05;
+
+	private SelfSignedCertificates() {
+	}
+
+	/**
+	 * Create a self-signed certificate authority certificate.
+	 *
+	 * @param keyPair    the RSA or EC key pair
+	 * @param commonName the subject common name
+	 * @param dnsNames   the DNS subject alternative names, may be empty
+	 * @param validDays  the validity in days
+	 * @return the certificate
+	 * @throws GeneralSecurityException if the certificate cannot be signed or parsed
+	 */
+	static X509Certificate create(KeyPair keyPair, String commonName, String[] dnsNames, int validDays)
+			throws GeneralSecurityException {
+		boolean ec = "EC".equals(keyPair.getPublic().getAlgorithm());
+		byte[] signatureAlgorithm = ec ? sequence(oid("1.2.840.10045.4.3.2"))
+				: sequence(oid("1.2.840.113549.1.1.11"), tlv(NULL));
+		byte[] name = sequence(tlv(SET, sequence(oid("2.5.4.3"), tlv(UTF8_STRING, utf8(commonName)))));
+		long now = System.currentTimeMillis();
+		byte[] validity = sequence(utcTime(new Date(now - TimeUnit.HOURS.toMillis(1))),
+				utcTime(new Date(now + TimeUnit.DAYS.toMillis(validDays))));
+		byte[] basicConstraints = sequence(oid("2.5.29.19"), tlv(BOOLEAN, new byte[] { (byte) 0xff }),
+				tlv(OCTET_STRING, sequence(tlv(BOOLEAN, new byte[] { (byte) 0xff }))));
+		byte[] extensions;
+		if (dnsNames.length > 0) {
+			byte[][] names = new byte[dnsNames.length][];
+			for (int i = 0; i < dnsNames.length; i++) {
+				// [2] IMPLICIT IA5String dNSName
+				names[i] = tlv((byte) 0x82, dnsNames[i].getBytes(StandardCharsets.US_ASCII));
+			}
+			byte[] subjectAlternativeNames = sequence(oid("2.5.29.17"), tlv(OCTET_STRING, sequence(names)));
+			extensions = sequence(basicConstraints, subjectAlternativeNames);
+		} else {
+			extensions = sequence(basicConstraints);
+		}
+		byte[] tbsCertificate = sequence(
+				tlv((byte) 0xa0, tlv(INTEGER, new byte[] { 2 })),
+				tlv(INTEGER, new BigInteger(63, ThreadLocalRandom.current()).add(BigInteger.ONE).toByteArray()),
+				signatureAlgorithm, name, validity, name, keyPair.getPublic().getEncoded(),
+				tlv((byte) 0xa3, extensions));
+		Signature signer = Signature.getInstance(ec ? "SHA256withECDSA" : "SHA256withRSA");
+		signer.initSign(keyPair.getPrivate());
+		signer.update(tbsCertificate);
+		byte[] signature = signer.sign();
+		byte[] bits = new byte[signature.length + 1];
+		System.arraycopy(signature, 0, bits, 1, signature.length);
+		byte[] certificate = sequence(tbsCertificate, signatureAlgorithm, tlv(BIT_STRING, bits));
+		return (X509Certificate) CertificateFactory.getInstance("X.509")
+				.generateCertificate(new ByteArrayInputStream(certificate));
+	}
+
+	private static byte[] sequence(byte[]... elements) {
+		return tlv(SEQUENCE, elements);
+	}
+
+	private static byte[] tlv(byte tag, byte[]... contents) {
+		ByteArrayOutputStream value = new ByteArrayOutputStream();
+		for (byte[] content : contents) {
+			value.write(content, 0, content.length);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(tag);
+		int length = value.size();
+		if (length < 0x80) {
+			out.write(length);
+		} else {
+			int bytes = (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+			out.write(0x80 | bytes);
+			for (int i = bytes - 1; i >= 0; i--) {
+				out.write(length >>> (8 * i));
+			}
+		}
+		byte[] encoded = value.toByteArray();
+		out.write(encoded, 0, encoded.length);
+		return out.toByteArray();
+	}
+
+	private static byte[] oid(String dotted) {
+		String[] arcs = dotted.split("\\.");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(Integer.parseInt(arcs[0]) * 40 + Integer.parseInt(arcs[1]));
+		for (int i = 2; i < arcs.length; i++) {
+			long arc = Long.parseLong(arcs[i]);
+			int groups = Math.max(1, (64 - Long.numberOfLeadingZeros(arc) + 6) / 7);
+			for (int g = groups - 1; g >= 0; g--) {
+				int bits = (int) ((arc >>> (7 * g)) & 0x7f);
+				out.write(g == 0 ? bits : bits | 0x80);
+			}
+		}
+		return tlv(OBJECT_IDENTIFIER, out.toByteArray());
+	}
+
+	private static byte[] utcTime(Date date) {
+		SimpleDateFormat format = new SimpleDateFormat("yyMMddHHmmss'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return tlv(UTC_TIME, format.format(date).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static byte[] utf8(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,16 +1,38 @@
 package com.oci.security.keyvault.jca;
 
 import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 
 public final class KeyVaultLoadStoreParameter implements KeyStore.LoadStoreParameter {
 
-    private final String certAuthorityId;
+    private final List<String> certAuthorityIds;
     private final String cryptoEndpoint;
     
     
+    /**
+     * Load one certificate authority.
+     *
+     * @param certAuthorityId the certificate authority id, or null for none
+     * @param cryptoEndpoint the vault crypto endpoint
+     */
     public KeyVaultLoadStoreParameter(String certAuthorityId, String cryptoEndpoint) {
-        this.certAuthorityId = certAuthorityId;
+        this.certAuthorityIds = certAuthorityId == null ? Collections.emptyList()
+                : Collections.singletonList(certAuthorityId);
+        this.cryptoEndpoint = cryptoEndpoint;
+    }
+
+    /**
+     * Load several certificate authorities into one keystore.
+     *
+     * @param certAuthorityIds the certificate authority ids, or null for none
+     * @param cryptoEndpoint the vault crypto endpoint
+     */
+    public KeyVaultLoadStoreParameter(List<String> certAuthorityIds, String cryptoEndpoint) {
+        this.certAuthorityIds = certAuthorityIds == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(certAuthorityIds));
         this.cryptoEndpoint = cryptoEndpoint;
     }
 
@@ -20,10 +42,29 @@ public final class KeyVaultLoadStoreParameter implements KeyStore.LoadStoreParam
     }
 
 
+    /**
+     * Get the first certificate authority id.
+     *
+     * @return the first certificate authority id, or null if there is none
+     */
     public String getCertAuthorityId() {
-        return certAuthorityId;
+        return certAuthorityIds.isEmpty() ? null : certAuthorityIds.get(0);
+    }
+
+    /**
+     * Get the certificate authority ids.
+     *
+     * @return the certificate authority ids, empty if there is none
+     */
+    public List<String> getCertAuthorityIds() {
+        return certAuthorityIds;
     }
     
+    /**
+     * Get the vault crypto endpoint.
+     *
+     * @return the crypto endpoint
+     */
     public String getCryptoEndpoint() { 
     	return cryptoEndpoint;
     }
@@ -9,6 +9,7 @@ import java.util.stream.Stream;
 import java.util.logging.Logger;
 import static java.util.logging.Level.INFO;
 
+import com.oci.security.keyvault.jca.implementation.OCIMetrics;
 import com.oci.security.keyvault.jca.implementation.signature.AbstractKeyVaultKeylessSignature;
 import com.oci.security.keyvault.jca.implementation.signature.KeyVaultKeylessEcSha256Signature;
 import com.oci.security.keyvault.jca.implementation.signature.KeyVaultKeylessEcSha384Signature;
@@ -19,6 +20,10 @@ import com.oci.security.keyvault.jca.implementation.signature.KeyVaultKeylessRsa
 /**
  * The OCI Key Vault security provider.
  *
+ * Creating the provider registers the {@link OCIMetrics} MXBean as {@value OCIMetrics#OBJECT_NAME},
+ * and with {@code oci.keystore.prefetch=true} starts loading the keystore configured by the system
+ * properties in the background.
+ *
  * @see Provider
  */
 public final class OCIJcaProvider extends Provider {
@@ -52,6 +57,8 @@ public final class OCIJcaProvider extends Provider {
     	super(PROVIDER_NAME, VERSION, INFORMATION); 
     	LOGGER.log(INFO, "OCIJCAProvider constructor is invoked");
         initialize();
+        OCIMetrics.registerMBean();
+        OCIKeyStoreLoader.prefetch();
         LOGGER.log(INFO, "OCIJCAProvider constructor is completed");
     }
 
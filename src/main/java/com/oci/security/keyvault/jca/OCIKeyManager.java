@@ -1,6 +1,7 @@
 package com.oci.security.keyvault.jca;
 
 import java.net.Socket;
+import java.security.Key;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -8,19 +9,44 @@ import java.security.Principal;
 import java.security.PrivateKey;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import static java.util.logging.Level.INFO;
 import static java.util.logging.Level.SEVERE;
 import java.util.logging.Logger;
 
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.StandardConstants;
 import javax.net.ssl.X509ExtendedKeyManager;
 
+import com.oci.security.keyvault.jca.implementation.certificates.OCIModificationCounter;
+
 /**
  * The OCI Key Vault variant of the X509ExtendedKeyManager.
  *
+ * Aliases are selected from a snapshot of the keystore indexed by key type and issuer, holding the
+ * certificate chains and private keys. The snapshot is rebuilt only when the keystore changes, so the
+ * handshake path does no keystore work.
+ *
+ * Server aliases are selected by the SNI host name of the handshake, for both sockets and engines,
+ * through an index of the DNS names (exact and wildcard) of the certificates. The lookup does not
+ * depend on the number of certificates; when no certificate matches, the first alias of the key type
+ * is used.
+ *
  * @see X509ExtendedKeyManager
  */
 public final class OCIKeyManager extends X509ExtendedKeyManager {
@@ -34,6 +60,18 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
      * Stores the password.
      */
     private final char[] password;
+
+    /**
+     * Whether the keystore is an OCI keystore, whose changes are tracked by {@link OCIModificationCounter}.
+     */
+    private final boolean ociKeyStore;
+
+    /**
+     * Stores the alias snapshot, replaced as a whole when the keystore changes.
+     */
+    private volatile AliasSnapshot snapshot;
+
+    private static final X509Certificate[] NO_CHAIN = new X509Certificate[0];
     
     private static final Logger LOGGER = Logger.getLogger(OCIKeyManager.class.getName());
 
@@ -52,6 +90,8 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
         } else {
             this.password = null;
         }
+        this.ociKeyStore = keystore.getProvider() != null
+                && OCIJcaProvider.PROVIDER_NAME.equals(keystore.getProvider().getName());
         LOGGER.log(INFO, "OCIKeyManager constructor is done");
     }
 
@@ -66,14 +106,12 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
     @Override
     public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
     	LOGGER.log(INFO, "OCIKeyManager chooseClientAlias is invoked");
+        AliasSnapshot current = getSnapshot();
         String alias = null;
-        try {
-            if (!keystore.getProvider().getName().equals(OCIJcaProvider.PROVIDER_NAME)
-                && keystore.size() == 1) {
-                	alias = keystore.aliases().nextElement();
+        if (keyType != null) {
+            for (int i = 0; i < keyType.length && alias == null; i++) {
+                alias = current.choose(keyType[i], issuers);
             }
-        } catch (KeyStoreException kse) {
-        	LOGGER.log(SEVERE, "OCIKeyManager chooseClientAlias The exception is: {0}", kse.getMessage());
         }
         LOGGER.log(INFO, "OCIKeyManager chooseClientAlias is complete");
         return alias;
@@ -90,19 +128,61 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
     @Override
     public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
     	LOGGER.log(INFO, "OCIKeyManager chooseServerAlias is invoked");
-        String alias = null;
-        try {
-            if (!keystore.getProvider().getName().equals(OCIJcaProvider.PROVIDER_NAME)
-                && keystore.size() == 1) {
-                	alias = keystore.aliases().nextElement();
-            }
-        } catch (KeyStoreException kse) {
-        	LOGGER.log(SEVERE, "OCIKeyManager chooseServerAlias The exception is: {0}", kse.getMessage());
-        }
+        SSLSession session = socket instanceof SSLSocket ? ((SSLSocket) socket).getHandshakeSession() : null;
+        String alias = getSnapshot().choose(keyType, issuers, getServerName(session));
         LOGGER.log(INFO, "OCIKeyManager chooseServerAlias is complete");
         return alias;
     }
 
+    /**
+     * Choose engine client alias.
+     *
+     * @param keyType the keyType
+     * @param issuers the issuers
+     * @param engine the engine
+     * @return alias the client alias
+     */
+    @Override
+    public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+    	LOGGER.log(INFO, "OCIKeyManager chooseEngineClientAlias is invoked");
+        return chooseClientAlias(keyType, issuers, null);
+    }
+
+    /**
+     * Choose engine server alias.
+     *
+     * @param keyType the keyType
+     * @param issuers the issuers
+     * @param engine the engine
+     * @return alias the server alias
+     */
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+    	LOGGER.log(INFO, "OCIKeyManager chooseEngineServerAlias is invoked");
+        SSLSession session = engine == null ? null : engine.getHandshakeSession();
+        String alias = getSnapshot().choose(keyType, issuers, getServerName(session));
+        LOGGER.log(INFO, "OCIKeyManager chooseEngineServerAlias is complete");
+        return alias;
+    }
+
+    /**
+     * Get the SNI host name requested by the client.
+     *
+     * @param session the handshake session
+     * @return the host name, or null if none was requested
+     */
+    private static String getServerName(SSLSession session) {
+        if (!(session instanceof ExtendedSSLSession)) {
+            return null;
+        }
+        for (SNIServerName serverName : ((ExtendedSSLSession) session).getRequestedServerNames()) {
+            if (serverName.getType() == StandardConstants.SNI_HOST_NAME) {
+                return ((SNIHostName) serverName).getAsciiName();
+            }
+        }
+        return null;
+    }
+
     /**
      * Get client alias.
      *
@@ -113,12 +193,7 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
     @Override
     public String[] getClientAliases(String keyType, Principal[] issuers) {
     	LOGGER.log(INFO, "OCIKeyManager getClientAliases is invoked");
-        String[] aliases = null;
-        try {
-            aliases = Collections.list(keystore.aliases()).toArray(new String[0]);
-        } catch (KeyStoreException kse) {
-        	LOGGER.log(SEVERE, "OCIKeyManager getClientAliases The exception is: {0}", kse.getMessage());
-        }
+        String[] aliases = getSnapshot().getAliases(keyType, issuers);
         LOGGER.log(INFO, "OCIKeyManager getClientAliases is completed");
         return aliases;
     }
@@ -126,29 +201,24 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
     /**
      * Get certificate chain.
      *
+     * The chains are cached per alias; every caller gets its own copy of the array, so a caller
+     * changing it cannot alter the chain served to later handshakes.
+     *
      * @param alias the alias
      * @return chain the certificate chain
      */
     @Override
     public X509Certificate[] getCertificateChain(String alias) {
     	LOGGER.log(INFO, "OCIKeyManager getCertificateChain is invoked for alias: {0}",alias);
-        List<X509Certificate> chain = new ArrayList<>();
-        try {
-            Certificate[] keystoreChain = keystore.getCertificateChain(alias);
-            if (keystoreChain.length > 0) {
-                for (Certificate certificate : keystoreChain) {
-                    if (certificate instanceof X509Certificate) {
-                        chain.add((X509Certificate) certificate);
-                    }
-                }
-            } else {
-            	LOGGER.log(INFO,"No certificate chain found for alias: {0}",alias);
-            }
-        } catch (KeyStoreException kse) {
-        	LOGGER.log(SEVERE, "OCIKeyManager getCertificateChain The Exception is: {0}", kse.getMessage());
+        X509Certificate[] chain = alias == null ? null : getSnapshot().chains.get(alias);
+        if (chain == null) {
+        	LOGGER.log(INFO,"No certificate chain found for alias: {0}",alias);
+        	chain = NO_CHAIN;
+        } else {
+        	chain = chain.clone();
         }
         LOGGER.log(INFO, "OCIKeyManager getCertificateChain is completed for alias: {0}",alias);
-        return chain.toArray(new X509Certificate[0]);
+        return chain;
     }
 
     /**
@@ -160,12 +230,7 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
     @Override
     public PrivateKey getPrivateKey(String alias) {
     	LOGGER.log(INFO, "OCIKeyManager getPrivateKey is invoked for alias: {0}",alias);
-        PrivateKey privateKey = null;
-        try {
-            privateKey = (PrivateKey) keystore.getKey(alias, password);
-        } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableKeyException ex) {
-        	LOGGER.log(SEVERE, "OCIKeyManager getPrivateKey The exception is: {0}",ex.getMessage());
-        }
+        PrivateKey privateKey = alias == null ? null : getSnapshot().keys.get(alias);
         LOGGER.log(INFO, "OCIKeyManager getPrivateKey is completed for alias: {0}",alias);
         return privateKey;
     }
@@ -180,13 +245,237 @@ public final class OCIKeyManager extends X509ExtendedKeyManager {
     @Override
     public String[] getServerAliases(String keyType, Principal[] issuers) {
     	LOGGER.log(INFO, "OCIKeyManager getServerAliases is invoked");
-        String[] serverAliases = new String[0];
+        String[] serverAliases = getSnapshot().getAliases(keyType, issuers);
+        LOGGER.log(INFO, "OCIKeyManager getServerAliases is completed");
+        return serverAliases;
+    }
+
+    /**
+     * Get the alias snapshot, rebuilding it first if the keystore changed.
+     *
+     * OCI keystores are rebuilt when {@link OCIModificationCounter} moves; other keystores do not report
+     * changes, so they are rebuilt when their size changes.
+     *
+     * @return the alias snapshot
+     */
+    private AliasSnapshot getSnapshot() {
+        AliasSnapshot current = snapshot;
+        long version = getKeyStoreVersion();
+        if (current == null || current.version != version) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.version != version) {
+                    current = buildSnapshot(version);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private long getKeyStoreVersion() {
+        if (ociKeyStore) {
+            return OCIModificationCounter.current();
+        }
         try {
-            serverAliases = Collections.list(keystore.aliases()).toArray(new String[0]);
+            return keystore.size();
         } catch (KeyStoreException kse) {
-        	LOGGER.log(SEVERE, "OCIKeyManager getServerAliases The Exception is: {0}", kse.getMessage());
+        	LOGGER.log(SEVERE, "OCIKeyManager getKeyStoreVersion The exception is: {0}", kse.getMessage());
+            return -1;
+        }
+    }
+
+    private AliasSnapshot buildSnapshot(long version) {
+    	LOGGER.log(INFO, "OCIKeyManager buildSnapshot is invoked");
+        AliasSnapshot built = new AliasSnapshot(version);
+        try {
+            for (String alias : Collections.list(keystore.aliases())) {
+                try {
+                    built.add(alias, keystore.getCertificateChain(alias), keystore.getKey(alias, password));
+                } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableKeyException ex) {
+                	LOGGER.log(SEVERE, "OCIKeyManager buildSnapshot skips alias {0}: {1}",
+                			new Object[] { alias, ex.getMessage() });
+                }
+            }
+        } catch (KeyStoreException kse) {
+        	LOGGER.log(SEVERE, "OCIKeyManager buildSnapshot The exception is: {0}", kse.getMessage());
+        }
+        built.freeze();
+        LOGGER.log(INFO, "OCIKeyManager buildSnapshot is completed with aliases {0}", built.chains.keySet());
+        return built;
+    }
+
+    /**
+     * The key entries of the keystore, indexed for alias selection.
+     */
+    private static final class AliasSnapshot {
+
+        private final long version;
+        private final Map<String, X509Certificate[]> chains = new LinkedHashMap<>();
+        private final Map<String, PrivateKey> keys = new HashMap<>();
+
+        /**
+         * Aliases by JSSE key type, either the key algorithm ({@code RSA}, {@code EC}) or the key
+         * algorithm and the algorithm of the issuer's key ({@code EC_RSA}).
+         */
+        private final Map<String, List<String>> byKeyTypeBuilder = new HashMap<>();
+        private final Map<Principal, Set<String>> byIssuer = new HashMap<>();
+        private final Map<String, String[]> byKeyType = new HashMap<>();
+        private final Map<String, Set<String>> keyTypes = new HashMap<>();
+
+        /**
+         * Aliases by lower case DNS name, and by the parent domain of lower case wildcard DNS names
+         * ({@code *.example.com} is indexed as {@code example.com}).
+         */
+        private final Map<String, List<String>> byHostName = new HashMap<>();
+        private final Map<String, List<String>> byWildcardDomain = new HashMap<>();
+
+        AliasSnapshot(long version) {
+            this.version = version;
+        }
+
+        void add(String alias, Certificate[] chain, Key key) {
+            if (!(key instanceof PrivateKey) || chain == null || chain.length == 0
+                    || !(chain[0] instanceof X509Certificate)) {
+                return;
+            }
+            List<X509Certificate> x509Chain = new ArrayList<>(chain.length);
+            for (Certificate certificate : chain) {
+                if (certificate instanceof X509Certificate) {
+                    x509Chain.add((X509Certificate) certificate);
+                }
+            }
+            X509Certificate leaf = x509Chain.get(0);
+            chains.put(alias, x509Chain.toArray(new X509Certificate[0]));
+            keys.put(alias, (PrivateKey) key);
+            String keyAlgorithm = leaf.getPublicKey().getAlgorithm();
+            String signatureAlgorithm = leaf.getSigAlgName().toUpperCase();
+            String issuerKeyAlgorithm = signatureAlgorithm.contains("ECDSA") ? "EC"
+                    : signatureAlgorithm.contains("RSA") ? "RSA" : null;
+            Set<String> aliasKeyTypes = new HashSet<>();
+            aliasKeyTypes.add(keyAlgorithm);
+            if (issuerKeyAlgorithm != null) {
+                aliasKeyTypes.add(keyAlgorithm + "_" + issuerKeyAlgorithm);
+            }
+            keyTypes.put(alias, aliasKeyTypes);
+            for (String keyType : aliasKeyTypes) {
+                byKeyTypeBuilder.computeIfAbsent(keyType, k -> new ArrayList<>()).add(alias);
+            }
+            for (String hostName : getHostNames(leaf)) {
+                String name = hostName.toLowerCase(Locale.ROOT);
+                if (name.startsWith("*.")) {
+                    byWildcardDomain.computeIfAbsent(name.substring(2), k -> new ArrayList<>()).add(alias);
+                } else {
+                    byHostName.computeIfAbsent(name, k -> new ArrayList<>()).add(alias);
+                }
+            }
+            for (X509Certificate certificate : x509Chain) {
+                byIssuer.computeIfAbsent(certificate.getIssuerX500Principal(), k -> new HashSet<>()).add(alias);
+            }
+        }
+
+        void freeze() {
+            byKeyTypeBuilder.forEach((keyType, aliases) -> byKeyType.put(keyType, aliases.toArray(new String[0])));
+        }
+
+        String choose(String keyType, Principal[] issuers) {
+            String[] candidates = keyType == null ? null : byKeyType.get(keyType);
+            if (candidates == null) {
+                return null;
+            }
+            if (issuers == null || issuers.length == 0) {
+                return candidates[0];
+            }
+            for (Principal issuer : issuers) {
+                Set<String> issued = byIssuer.get(issuer);
+                if (issued != null) {
+                    for (String candidate : candidates) {
+                        if (issued.contains(candidate)) {
+                            return candidate;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Choose an alias for a server name: a certificate naming the host exactly, then a wildcard
+         * certificate of its parent domain, then any certificate of the key type.
+         */
+        String choose(String keyType, Principal[] issuers, String serverName) {
+            if (serverName != null && keyType != null) {
+                String name = serverName.toLowerCase(Locale.ROOT);
+                String alias = choose(byHostName.get(name), keyType, issuers);
+                int dot = name.indexOf('.');
+                if (alias == null && dot > 0) {
+                    alias = choose(byWildcardDomain.get(name.substring(dot + 1)), keyType, issuers);
+                }
+                if (alias != null) {
+                    return alias;
+                }
+            }
+            return choose(keyType, issuers);
+        }
+
+        private String choose(List<String> candidates, String keyType, Principal[] issuers) {
+            if (candidates == null) {
+                return null;
+            }
+            for (String candidate : candidates) {
+                if (keyTypes.get(candidate).contains(keyType) && isIssuedBy(candidate, issuers)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private boolean isIssuedBy(String alias, Principal[] issuers) {
+            if (issuers == null || issuers.length == 0) {
+                return true;
+            }
+            for (Principal issuer : issuers) {
+                Set<String> issued = byIssuer.get(issuer);
+                if (issued != null && issued.contains(alias)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<String> getHostNames(X509Certificate certificate) {
+            List<String> hostNames = new ArrayList<>();
+            try {
+                if (certificate.getSubjectAlternativeNames() != null) {
+                    for (List<?> name : certificate.getSubjectAlternativeNames()) {
+                        // 2 is the dNSName type of GeneralName
+                        if (name.size() > 1 && Integer.valueOf(2).equals(name.get(0))) {
+                            hostNames.add((String) name.get(1));
+                        }
+                    }
+                }
+            } catch (CertificateParsingException cpe) {
+            	LOGGER.log(SEVERE, "OCIKeyManager cannot read subject alternative names: {0}", cpe.getMessage());
+            }
+            return hostNames;
+        }
+
+        String[] getAliases(String keyType, Principal[] issuers) {
+            String[] candidates = keyType == null ? null : byKeyType.get(keyType);
+            if (candidates == null || issuers == null || issuers.length == 0) {
+                return candidates == null ? null : candidates.clone();
+            }
+            List<String> matching = new ArrayList<>();
+            for (String candidate : candidates) {
+                for (Principal issuer : issuers) {
+                    Set<String> issued = byIssuer.get(issuer);
+                    if (issued != null && issued.contains(candidate)) {
+                        matching.add(candidate);
+                        break;
+                    }
+                }
+            }
+            return matching.isEmpty() ? null : matching.toArray(new String[0]);
         }
-        LOGGER.log(INFO, "OCIKeyManager getServerAliases is completed");
-        return serverAliases;
     }
-}
\ No newline at end of file
+}
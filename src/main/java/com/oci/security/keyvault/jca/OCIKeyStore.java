@@ -12,18 +12,20 @@ import java.security.UnrecoverableEntryException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import static java.util.logging.Level.INFO;
 import static java.util.logging.Level.SEVERE;
 import java.util.logging.Logger;
 
+import com.oci.security.keyvault.jca.implementation.OCICleaner;
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
+import com.oci.security.keyvault.jca.implementation.certificates.OCIAliasIndex;
 import com.oci.security.keyvault.jca.implementation.certificates.OCICertificates;
-import com.oci.security.keyvault.jca.implementation.certificates.OCIKeyVaultCertificates;
-import com.oci.security.keyvault.jca.implementation.certificates.OCISignedCSRCertificates;
 
 
 /**
@@ -43,48 +45,65 @@ public final class OCIKeyStore extends KeyStoreSpi {
      */
     public static final String ALGORITHM_NAME = KEY_STORE_TYPE;
 
-    /**
-     * Store certificates loaded from KeyVault.
-     */
-    private final OCIKeyVaultCertificates keyVaultCertificates;
-    private OCISignedCSRCertificates ociCSRCertificates;
-    
     /**
      * Stores the creation date.
      */
     private final Date creationDate;
 
     /**
-     * Stores all the certificates.
+     * Stores all the certificates, empty until the keystore is loaded.
+     */
+    private volatile List<OCICertificates> allCertificates = Collections.emptyList();
+
+    /**
+     * The certificate authorities and crypto endpoint the keystore was loaded with, written in snapshots.
+     */
+    private volatile List<String> certAuthorityIds;
+    private volatile String cryptoEndpoint;
+
+    /**
+     * Closes the stores once they are replaced by a reload or the keystore is no longer used.
+     */
+    private OCICleaner.Cleanable storesCleaner;
+
+    /**
+     * Index of all the entries, rebuilt when one of the stores changes.
      */
-    private final List<OCICertificates> allCertificates;
+    private volatile OCIAliasIndex index;
     
     private static final Logger LOGGER = Logger.getLogger(OCIKeyStore.class.getName());
 
+    /**
+     * Constructor. Nothing is read from OCI until the keystore is loaded.
+     */
     public OCIKeyStore() {
     	LOGGER.log(INFO, "OCIKeyStore Constructor is invoked");
     	creationDate = new Date();
+    }
 
-        String certAuthorityId = System.getProperty("oci.certAuthorityId");
-        String cryptoEndpoint = System.getProperty("oci.cryptoEndpoint");
-        String certFile = System.getProperty("oci.certFile");
-        String keyId = System.getProperty("oci.keyId");
-        
-        LOGGER.log(INFO, "OCIKeyStore: CertAuthID: {0}", certAuthorityId);
+    /**
+     * Use the stores of a configuration, the Key Vault and CSR stores loading concurrently unless
+     * they were prefetched.
+     */
+    private void load(List<String> certAuthorityIds, String cryptoEndpoint) {
+        LOGGER.log(INFO, "OCIKeyStore: CertAuthIDs: {0}", certAuthorityIds);
         LOGGER.log(INFO, "OCIKeyStore: cryptoEndpoint: {0}", cryptoEndpoint);
+        OCIKeyStoreLoader loader = OCIKeyStoreLoader.forConfiguration(certAuthorityIds, cryptoEndpoint);
+        loader.load();
+        use(loader, certAuthorityIds, cryptoEndpoint);
+        LOGGER.log(INFO, "Loaded certificates: {0}.", getAllAliases());
+    }
 
-        keyVaultCertificates = new OCIKeyVaultCertificates(certAuthorityId,cryptoEndpoint);
-        LOGGER.log(INFO,"Loaded Key Vault certificates: {0}.",keyVaultCertificates.getAliases());
-        
-        if(certFile!=null) {
-        	ociCSRCertificates = new OCISignedCSRCertificates(certFile,keyId,certAuthorityId,cryptoEndpoint); 
-        	LOGGER.log(INFO,"Loaded OCI CSR certificates: {0}.",ociCSRCertificates.getAliases());
-        	allCertificates = Arrays.asList(keyVaultCertificates, ociCSRCertificates);
-        }
-        else {
-        	allCertificates = Arrays.asList(keyVaultCertificates);
+    private synchronized void use(OCIKeyStoreLoader loader, List<String> certAuthorityIds, String cryptoEndpoint) {
+        this.certAuthorityIds = new ArrayList<>(certAuthorityIds);
+        this.cryptoEndpoint = cryptoEndpoint;
+        allCertificates = loader.getAllCertificates();
+        index = null;
+        OCICleaner.Cleanable previous = storesCleaner;
+        storesCleaner = OCICleaner.register(this, loader);
+        if (previous != null) {
+            previous.clean();
         }
-        LOGGER.log(INFO, "OCIKeyStore Constructor is completed");
     }
     
 
@@ -102,13 +121,36 @@ public final class OCIKeyStore extends KeyStoreSpi {
     	LOGGER.log(INFO, "OCIKeyStore getKeyVaultKeyStoreBySystemProperty is invoked.");
     	KeyStore keyStore = KeyStore.getInstance(OCIKeyStore.KEY_STORE_TYPE);
         KeyVaultLoadStoreParameter parameter = new KeyVaultLoadStoreParameter(
-        	System.getProperty("oci.certAuthorityId"),
+        	getCertAuthorityIdsBySystemProperty(),
         	System.getProperty("oci.cryptoEndpoint")
         );
         keyStore.load(parameter);
         return keyStore;
     }
 
+    /**
+     * Get the certificate authorities to load: {@code oci.certAuthorityId} followed by the comma
+     * separated {@code oci.certAuthorityIds}.
+     *
+     * @return the certificate authority ids, without duplicates
+     */
+    static List<String> getCertAuthorityIdsBySystemProperty() {
+        Set<String> ids = new LinkedHashSet<>();
+        String certAuthorityId = System.getProperty("oci.certAuthorityId");
+        if (certAuthorityId != null && !certAuthorityId.trim().isEmpty()) {
+            ids.add(certAuthorityId.trim());
+        }
+        String certAuthorityIds = System.getProperty("oci.certAuthorityIds");
+        if (certAuthorityIds != null) {
+            for (String id : certAuthorityIds.split(",")) {
+                if (!id.trim().isEmpty()) {
+                    ids.add(id.trim());
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
     /**
      * Lists all the alias names of this keystore.
      *
@@ -129,7 +171,7 @@ public final class OCIKeyStore extends KeyStoreSpi {
     @Override
     public boolean engineContainsAlias(String alias) {
     	LOGGER.log(INFO, "OCIKeyStore engineContainsAlias is invoked for the alias {0}", alias);
-        return engineIsCertificateEntry(alias);
+        return getIndex().contains(alias);
     }
 
     /**
@@ -170,16 +212,10 @@ public final class OCIKeyStore extends KeyStoreSpi {
     @Override
     public Certificate engineGetCertificate(String alias) {
     	LOGGER.log(INFO,"OCIKeyStore: engineGetCertificate: is invoked for the alias: {0}", alias);
-    	Certificate certificate = null;
-    	if(keyVaultCertificates!=null && (keyVaultCertificates.getAliases().contains(alias))) {
-    		LOGGER.log(INFO,"OCIKeyStore: engineGetCertificate: cert found in Key Vault {0}", alias);
-    		return keyVaultCertificates.getCertificate(alias);	
-    	}
-    	if(ociCSRCertificates!=null && (ociCSRCertificates.getAliases().contains(alias))) {
-    		LOGGER.log(INFO,"OCIKeyStore: engineGetCertificate: cert found in CSR {0}", alias);
-    		return ociCSRCertificates.getCertificate(alias);	
+    	Certificate certificate = getIndex().getCertificate(alias);
+    	if (certificate == null) {
+    		LOGGER.log(SEVERE, "OCIKeyStore engineGetCertificate is not found. {0}", alias);
     	}
-        LOGGER.log(SEVERE, "OCIKeyStore engineGetCertificate is not found. {0}", alias);
         return certificate;
     }
 
@@ -193,17 +229,10 @@ public final class OCIKeyStore extends KeyStoreSpi {
     @Override
     public String engineGetCertificateAlias(Certificate cert) {
     	LOGGER.log(INFO, "OCIKeyStore engineGetCertificateAlias is invoked.");
-        String alias = null;
-        if (cert != null) {
-            List<String> aliasList = getAllAliases();
-            for (String candidateAlias : aliasList) {
-                Certificate certificate = engineGetCertificate(candidateAlias);
-                if (certificate!=null && certificate.equals(cert)) {
-                    return candidateAlias;
-                }
-            }
+        String alias = cert == null ? null : getIndex().getAlias(cert);
+        if (alias == null) {
+        	LOGGER.log(SEVERE, "OCIKeyStore engineGetCertificateAlias Alias is not found for the certificate");
         }
-        LOGGER.log(SEVERE, "OCIKeyStore engineGetCertificateAlias Alias is not found for the certificate");
         return alias;
     }
 
@@ -218,13 +247,13 @@ public final class OCIKeyStore extends KeyStoreSpi {
     @Override
     public Certificate[] engineGetCertificateChain(String alias) {
     	LOGGER.log(INFO, "OCIKeyStore engineGetCertificateChain is invoked.");
-        Certificate[] chain = null;
-        Certificate certificate = engineGetCertificate(alias);
-        if (certificate != null) {
-            chain = new Certificate[1];
-            chain[0] = certificate;
+        Certificate[] chain = getIndex().getCertificateChain(alias);
+        if (chain == null) {
+        	LOGGER.log(SEVERE, "OCIKeyStore engineGetCertificateChain is not found. {0}", alias);
+        	return null;
         }
-        return chain;
+        // The chain is cached per alias, callers get their own copy of the array.
+        return chain.clone();
     }
 
     /**
@@ -265,16 +294,10 @@ public final class OCIKeyStore extends KeyStoreSpi {
     @Override
     public Key engineGetKey(String alias, char[] password) {
     	LOGGER.log(INFO, "OCIKeyStore engineGetKey is invoked for the alias: {0}", alias);
-    	Key key = null;
-    	if(ociCSRCertificates!=null && (ociCSRCertificates.getAliases().contains(alias))) {
-			LOGGER.log(INFO,"OCIKeyStore: engineGetKey: cert found in CSR {0}", alias);
-			return ociCSRCertificates.getKey(alias);
-    	}
-    	if(keyVaultCertificates!=null && (keyVaultCertificates.getAliases().contains(alias))) {
-    		LOGGER.log(INFO,"OCIKeyStore: engineGetKey: cert found in Key Vault {0}", alias);
-    		return keyVaultCertificates.getKey(alias);
+    	Key key = getIndex().getKey(alias);
+    	if (key == null) {
+    		LOGGER.log(SEVERE, "OCIKeyStore engineGetKey is not found for alias: {0}", alias);
     	}
-    	LOGGER.log(SEVERE, "OCIKeyStore engineGetKey is not found for alias: {0}", alias);
     	return key;
     }
 
@@ -286,7 +309,7 @@ public final class OCIKeyStore extends KeyStoreSpi {
      */
     @Override
     public boolean engineIsCertificateEntry(String alias) {
-        return getAllAliases().contains(alias);
+        return getIndex().contains(alias);
     }
 
     /**
@@ -301,7 +324,9 @@ public final class OCIKeyStore extends KeyStoreSpi {
     }
 
     /**
-     * Loads the keystore using the given {@code KeyStore.LoadStoreParameter}.
+     * Loads the keystore using the given {@code KeyStore.LoadStoreParameter}, or the system properties
+     * for any other parameter. Loading a keystore again closes the stores it was loaded with before, so
+     * the keys taken from them no longer sign.
      *
      * @param param the {@code KeyStore.LoadStoreParameter}
      *          that specifies how to load the keystore,
@@ -312,28 +337,70 @@ public final class OCIKeyStore extends KeyStoreSpi {
     	LOGGER.log(INFO, "OCIKeyStore engineLoad is invoked.");
     	if (param instanceof KeyVaultLoadStoreParameter) {
             KeyVaultLoadStoreParameter parameter = (KeyVaultLoadStoreParameter) param;
-            keyVaultCertificates.updateKeyVaultClient(parameter.getCertAuthorityId(),parameter.getCryptoEndpoint());
+            load(parameter.getCertAuthorityIds(), parameter.getCryptoEndpoint());
+        } else {
+            load(getCertAuthorityIdsBySystemProperty(), System.getProperty("oci.cryptoEndpoint"));
         }
     }
 
     /**
      * Loads the keystore from the given input stream.
      *
+     * The stream holds a snapshot written by {@link #engineStore(OutputStream, char[])}. The keystore
+     * serves the snapshot right away and revalidates the Key Vault entries against OCI in the background.
+     * Stores prefetched with {@code oci.keystore.prefetch} are used when they finished loading, keeping
+     * what they loaded over the snapshot; a prefetch still in progress is not waited for.
+     * The entries are restored onto the certificate authorities and crypto endpoint recorded in the
+     * snapshot, which are those the stored keystore was loaded with; snapshots which do not record them
+     * are restored onto the configuration of the system properties. Without a stream the keystore is
+     * loaded from OCI as configured by the system properties.
+     *
      * @param stream the input stream from which the keystore is loaded,or {@code null}
      * @param password the password
+     * @throws IOException if the snapshot is malformed or fails the integrity check
      */
     @Override
-    public void engineLoad(InputStream stream, char[] password) {
+    public void engineLoad(InputStream stream, char[] password) throws IOException {
     	LOGGER.log(INFO, "OCIKeyStore engineLoad is invoked with input stream");
+    	if (stream == null) {
+    		engineLoad(null);
+    		return;
+    	}
+    	OCIKeyStoreSnapshot.Contents contents = OCIKeyStoreSnapshot.read(stream, password);
+    	List<String> ids = contents.getCertificateAuthorityIds();
+    	String endpoint = contents.getCryptoEndpoint();
+    	if (ids == null) {
+    		ids = getCertAuthorityIdsBySystemProperty();
+    		endpoint = System.getProperty("oci.cryptoEndpoint");
+    	}
+    	OCIKeyStoreLoader loader = OCIKeyStoreLoader.forSnapshot(ids, endpoint);
+    	loader.getAllCertificates().forEach(c -> c.restore(contents.getEntries()));
+    	use(loader, ids, endpoint);
+    	loader.getKeyVaultCertificates().refreshCertificatesAsync();
     }
 
     private List<String> getAllAliases() {
     	LOGGER.log(INFO, "OCIKeyStore getAllAliases is invoked");
-        List<String> allAliases = new ArrayList<>(keyVaultCertificates.getAliases());
-        if(ociCSRCertificates!=null) {
-        	allAliases.addAll(ociCSRCertificates.getAliases());
-        }
-        return allAliases;
+        return getIndex().getAliases();
+    }
+
+    /**
+     * Get the index of all the entries, rebuilding it first if one of the stores changed.
+     *
+     * @return the index
+     */
+    private OCIAliasIndex getIndex() {
+    	OCIAliasIndex current = index;
+    	if (current == null || !current.isCurrent(allCertificates)) {
+    		synchronized (this) {
+    			current = index;
+    			if (current == null || !current.isCurrent(allCertificates)) {
+    				current = OCIAliasIndex.build(allCertificates);
+    				index = current;
+    			}
+    		}
+    	}
+    	return current;
     }
 
     /**
@@ -380,18 +447,24 @@ public final class OCIKeyStore extends KeyStoreSpi {
      */
     @Override
     public int engineSize() {
-        return getAllAliases().size();
+        return getIndex().size();
     }
 
     /**
      * Stores this keystore to the given output stream, and protects its integrity with the given password.
      *
+     * Only aliases, certificates and KMS key metadata are written; the keys never leave the vault.
+     *
      * @param stream the output stream to which this keystore is written
      * @param password the password to generate the keystore integrity check
+     * @throws IOException if the snapshot cannot be written
      */
     @Override
-    public void engineStore(OutputStream stream, char[] password) {
+    public void engineStore(OutputStream stream, char[] password) throws IOException {
     	LOGGER.log(INFO, "OCIKeyStore engineStore is invoked with stream");
+    	List<OCIKeyStoreSnapshot.Entry> entries = new ArrayList<>();
+    	allCertificates.forEach(c -> entries.addAll(c.getSnapshotEntries()));
+    	OCIKeyStoreSnapshot.write(stream, password, certAuthorityIds, cryptoEndpoint, entries);
     }
 
     /**
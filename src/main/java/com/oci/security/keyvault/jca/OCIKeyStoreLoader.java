@@ -0,0 +1,173 @@
+package com.oci.security.keyvault.jca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+import com.oci.security.keyvault.jca.implementation.OCIExecutors;
+import com.oci.security.keyvault.jca.implementation.OCIProperties;
+import com.oci.security.keyvault.jca.implementation.certificates.OCICertificates;
+import com.oci.security.keyvault.jca.implementation.certificates.OCIKeyVaultCertificates;
+import com.oci.security.keyvault.jca.implementation.certificates.OCISignedCSRCertificates;
+
+/**
+ * The certificate stores behind one {@link OCIKeyStore}: the Key Vault certificates and, when
+ * {@code oci.certFile} is set, the CSR signed certificate file or directory, issued for the KMS key
+ * {@code oci.keyId} or one of the comma separated {@code oci.keyIds}.
+ *
+ * The stores are loaded concurrently on {@link OCIExecutors#blockingExecutor()}, and only the thread
+ * loading the keystore waits for them. With
+ * {@code oci.keystore.prefetch=true} the stores of the system property configuration start loading
+ * in the background when {@link OCIJcaProvider} is created, and the first keystore loaded with the
+ * same configuration takes them over.
+ */
+final class OCIKeyStoreLoader implements AutoCloseable {
+
+    private static final Map<List<Object>, CompletableFuture<OCIKeyStoreLoader>> PREFETCHED = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = Logger.getLogger(OCIKeyStoreLoader.class.getName());
+
+    private final OCIKeyVaultCertificates keyVaultCertificates;
+    private final OCISignedCSRCertificates csrCertificates;
+    private final List<OCICertificates> allCertificates;
+
+    private OCIKeyStoreLoader(List<String> certAuthorityIds, String cryptoEndpoint) {
+        String certFile = System.getProperty("oci.certFile");
+        keyVaultCertificates = new OCIKeyVaultCertificates(certAuthorityIds, cryptoEndpoint);
+        if (certFile != null) {
+            csrCertificates = new OCISignedCSRCertificates(certFile, getKeyIdsBySystemProperty(),
+                    certAuthorityIds.isEmpty() ? null : certAuthorityIds.get(0), cryptoEndpoint);
+            allCertificates = Arrays.asList(keyVaultCertificates, csrCertificates);
+        } else {
+            csrCertificates = null;
+            allCertificates = Collections.singletonList(keyVaultCertificates);
+        }
+    }
+
+    /**
+     * Get the stores for a configuration, taking over the prefetched ones if they match.
+     *
+     * @param certAuthorityIds the certificate authorities
+     * @param cryptoEndpoint   the vault crypto endpoint
+     * @return the stores, not loaded unless they were prefetched
+     */
+    static OCIKeyStoreLoader forConfiguration(List<String> certAuthorityIds, String cryptoEndpoint) {
+        CompletableFuture<OCIKeyStoreLoader> prefetched = PREFETCHED.remove(key(certAuthorityIds, cryptoEndpoint));
+        if (prefetched != null) {
+            try {
+                OCIKeyStoreLoader loader = prefetched.join();
+                LOGGER.log(INFO, "OCIKeyStoreLoader: using the prefetched stores of {0}", certAuthorityIds);
+                return loader;
+            } catch (CompletionException ce) {
+                LOGGER.log(WARNING, "OCIKeyStoreLoader: prefetch failed, loading again {0}", ce.getMessage());
+            }
+        }
+        return new OCIKeyStoreLoader(certAuthorityIds, cryptoEndpoint);
+    }
+
+    /**
+     * Get the stores to restore a keystore snapshot onto, without waiting for a prefetch. Prefetched
+     * stores which finished loading are taken over, as they are newer than the snapshot; a prefetch
+     * still in progress is discarded.
+     *
+     * @param certAuthorityIds the certificate authorities
+     * @param cryptoEndpoint   the vault crypto endpoint
+     * @return the stores, not loaded unless they were prefetched
+     */
+    static OCIKeyStoreLoader forSnapshot(List<String> certAuthorityIds, String cryptoEndpoint) {
+        CompletableFuture<OCIKeyStoreLoader> prefetched = PREFETCHED.remove(key(certAuthorityIds, cryptoEndpoint));
+        if (prefetched != null) {
+            if (prefetched.isDone() && !prefetched.isCompletedExceptionally()) {
+                LOGGER.log(INFO, "OCIKeyStoreLoader: using the prefetched stores of {0}", certAuthorityIds);
+                return prefetched.join();
+            }
+            LOGGER.log(INFO, "OCIKeyStoreLoader: discarding the unfinished prefetch of {0}", certAuthorityIds);
+            prefetched.thenAccept(OCIKeyStoreLoader::close);
+        }
+        return new OCIKeyStoreLoader(certAuthorityIds, cryptoEndpoint);
+    }
+
+    /**
+     * Start loading the stores of the system property configuration in the background, if
+     * {@code oci.keystore.prefetch} is set. Does nothing when no certificate authority is configured.
+     */
+    static void prefetch() {
+        if (!OCIProperties.getBoolean("oci.keystore.prefetch", false)) {
+            return;
+        }
+        List<String> certAuthorityIds = OCIKeyStore.getCertAuthorityIdsBySystemProperty();
+        String cryptoEndpoint = System.getProperty("oci.cryptoEndpoint");
+        if (certAuthorityIds.isEmpty() || cryptoEndpoint == null) {
+            return;
+        }
+        LOGGER.log(INFO, "OCIKeyStoreLoader: prefetching the stores of {0}", certAuthorityIds);
+        PREFETCHED.computeIfAbsent(key(certAuthorityIds, cryptoEndpoint), k -> CompletableFuture
+                .supplyAsync(() -> new OCIKeyStoreLoader(certAuthorityIds, cryptoEndpoint), OCIExecutors.blockingExecutor())
+                .thenCompose(loader -> loader.loadAsync().thenApply(v -> loader)));
+    }
+
+    /**
+     * Load every store, concurrently, and wait for them.
+     */
+    void load() {
+        loadAsync().join();
+    }
+
+    /**
+     * Load every store concurrently, without waiting for them.
+     */
+    private CompletableFuture<Void> loadAsync() {
+        CompletableFuture<Void> keyVault = keyVaultCertificates.loadAsync();
+        return csrCertificates == null ? keyVault : CompletableFuture.allOf(keyVault, csrCertificates.loadAsync());
+    }
+
+    /**
+     * Close every store.
+     */
+    @Override
+    public void close() {
+        allCertificates.forEach(OCICertificates::close);
+    }
+
+    OCIKeyVaultCertificates getKeyVaultCertificates() {
+        return keyVaultCertificates;
+    }
+
+    List<OCICertificates> getAllCertificates() {
+        return allCertificates;
+    }
+
+    /**
+     * Get the KMS keys of the CSR signed certificates: {@code oci.keyId} followed by the comma separated
+     * {@code oci.keyIds}.
+     */
+    private static List<String> getKeyIdsBySystemProperty() {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String property : new String[] { "oci.keyId", "oci.keyIds" }) {
+            String value = System.getProperty(property);
+            if (value != null) {
+                for (String id : value.split(",")) {
+                    if (!id.trim().isEmpty()) {
+                        ids.add(id.trim());
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static List<Object> key(List<String> certAuthorityIds, String cryptoEndpoint) {
+        return Arrays.asList(certAuthorityIds, cryptoEndpoint, System.getProperty("oci.certFile"),
+                getKeyIdsBySystemProperty());
+    }
+}
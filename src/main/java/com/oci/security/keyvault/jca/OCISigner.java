@@ -0,0 +1,137 @@
+package com.oci.security.keyvault.jca;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProviderException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+import static java.util.logging.Level.INFO;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCISignPriority;
+import com.oracle.bmc.keymanagement.model.SignDataDetails.SigningAlgorithm;
+
+/**
+ * Signs data with an OCI Key Vault key without going through {@link java.security.Signature}.
+ *
+ * Unlike a {@code Signature} instance, an {@code OCISigner} is thread safe and offers asynchronous
+ * variants, so many signatures can be in flight from a few caller threads.
+ */
+public final class OCISigner {
+
+    private final OCIPrivateKey privateKey;
+    private final SigningAlgorithm signingAlgorithm;
+    private final String digestName;
+
+    private static final Logger LOGGER = Logger.getLogger(OCISigner.class.getName());
+
+    /**
+     * Constructor.
+     *
+     * @param privateKey the OCI private key to sign with
+     * @param signingAlgorithm the OCI signing algorithm
+     */
+    public OCISigner(OCIPrivateKey privateKey, SigningAlgorithm signingAlgorithm) {
+    	LOGGER.log(INFO, "OCISigner constructor is invoked for the key {0}", privateKey.getKid());
+        if (privateKey.getKeyVaultClient() == null) {
+            throw new IllegalArgumentException("The private key is not bound to an OCIKeyVaultClient");
+        }
+        this.privateKey = privateKey;
+        this.signingAlgorithm = signingAlgorithm;
+        this.digestName = getDigestName(signingAlgorithm);
+    }
+
+    /**
+     * Sign the data.
+     *
+     * @param data the data
+     * @return the signature
+     */
+    public byte[] sign(byte[] data) {
+        return signDigest(digest(data));
+    }
+
+    /**
+     * Sign a digest computed by the caller.
+     *
+     * @param digest the digest of the data
+     * @return the signature
+     */
+    public byte[] signDigest(byte[] digest) {
+        OCIKeyVaultClient client = privateKey.getKeyVaultClient();
+        return client.getSignedWithPrivateKey(digestName, Base64.getEncoder().encodeToString(digest),
+                signingAlgorithm, privateKey.getKid(), OCISignPriority.resolve(null, privateKey.getPriority()));
+    }
+
+    /**
+     * Sign the data without blocking the caller.
+     *
+     * @param data the data
+     * @return future completed with the signature
+     */
+    public CompletableFuture<byte[]> signAsync(byte[] data) {
+        return signDigestAsync(digest(data));
+    }
+
+    /**
+     * Sign a digest computed by the caller without blocking the caller.
+     *
+     * @param digest the digest of the data
+     * @return future completed with the signature
+     */
+    public CompletableFuture<byte[]> signDigestAsync(byte[] digest) {
+        OCIKeyVaultClient client = privateKey.getKeyVaultClient();
+        return client.getSignedWithPrivateKeyAsync(digestName, Base64.getEncoder().encodeToString(digest),
+                signingAlgorithm, privateKey.getKid(), OCISignPriority.resolve(null, privateKey.getPriority()));
+    }
+
+    /**
+     * Get the private key.
+     *
+     * @return the private key
+     */
+    public OCIPrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * Get the signing algorithm.
+     *
+     * @return the signing algorithm
+     */
+    public SigningAlgorithm getSigningAlgorithm() {
+        return signingAlgorithm;
+    }
+
+    private byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance(digestName).digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ProviderException(e);
+        }
+    }
+
+    private static String getDigestName(SigningAlgorithm signingAlgorithm) {
+        switch (signingAlgorithm) {
+            case Sha224RsaPkcsPss:
+            case Sha224RsaPkcs1V15:
+                return "SHA-224";
+            case Sha256RsaPkcsPss:
+            case Sha256RsaPkcs1V15:
+            case EcdsaSha256:
+                return "SHA-256";
+            case Sha384RsaPkcsPss:
+            case Sha384RsaPkcs1V15:
+            case EcdsaSha384:
+                return "SHA-384";
+            case Sha512RsaPkcsPss:
+            case Sha512RsaPkcs1V15:
+            case EcdsaSha512:
+                return "SHA-512";
+            default:
+                throw new IllegalArgumentException("Unsupported signing algorithm: " + signingAlgorithm);
+        }
+    }
+}
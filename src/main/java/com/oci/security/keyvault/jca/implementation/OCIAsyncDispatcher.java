@@ -0,0 +1,117 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks on an executor with a cap on the number of tasks in flight.
+ *
+ * Submitting never blocks: tasks over the cap wait in a queue and are handed to the executor as
+ * running tasks complete.
+ */
+public final class OCIAsyncDispatcher {
+
+	private final Executor executor;
+	private final int maxInFlight;
+	private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param executor    the executor running the tasks
+	 * @param maxInFlight the maximum number of tasks running at once
+	 */
+	public OCIAsyncDispatcher(Executor executor, int maxInFlight) {
+		if (executor == null) {
+			throw new IllegalArgumentException("executor is required");
+		}
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+		}
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Submit a task.
+	 *
+	 * @param <T>  the result type
+	 * @param work the task
+	 * @return a future completed with the task result
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> work) {
+		Task<T> task = new Task<>(work);
+		pending.add(task);
+		drain();
+		return task.future;
+	}
+
+	/**
+	 * Get the number of running tasks.
+	 *
+	 * @return the number of running tasks
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Get the number of queued tasks.
+	 *
+	 * @return the number of queued tasks
+	 */
+	public int getQueued() {
+		return pending.size();
+	}
+
+	private void drain() {
+		while (!pending.isEmpty()) {
+			int running = inFlight.get();
+			if (running >= maxInFlight) {
+				return;
+			}
+			if (!inFlight.compareAndSet(running, running + 1)) {
+				continue;
+			}
+			Task<?> task = pending.poll();
+			if (task == null) {
+				// Another thread took the last task; give the slot back and look again.
+				inFlight.decrementAndGet();
+				continue;
+			}
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException ree) {
+				inFlight.decrementAndGet();
+				task.future.completeExceptionally(ree);
+			}
+		}
+	}
+
+	private final class Task<T> implements Runnable {
+		private final Supplier<T> work;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		Task(Supplier<T> work) {
+			this.work = work;
+		}
+
+		@Override
+		public void run() {
+			try {
+				future.complete(work.get());
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			} finally {
+				inFlight.decrementAndGet();
+				drain();
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+import com.oracle.bmc.ConfigFileReader;
+import com.oracle.bmc.auth.AbstractAuthenticationDetailsProvider;
+import com.oracle.bmc.auth.ConfigFileAuthenticationDetailsProvider;
+import com.oracle.bmc.auth.InstancePrincipalsAuthenticationDetailsProvider;
+
+/**
+ * Process wide authentication providers, shared by every {@link OCIKeyVaultClient} with the same
+ * authentication settings. Sharing the provider also lets the clients share their
+ * {@link OCIServiceClients}, which are keyed by provider.
+ *
+ * With {@code oci.authType=instance_principal} the security token is fetched when the provider is
+ * created, then checked every {@code oci.auth.refreshCheckSeconds} (60) and renewed in the background
+ * once it expires within {@code oci.auth.refreshMarginSeconds} (600), so signatures never wait for a
+ * token. Otherwise the provider reads the profile {@code oci.profile}, by default DEFAULT, of the
+ * configuration file {@code oci.configFile}, by default {@code ~/.oci/config}, once per process.
+ */
+public final class OCIAuthProviders {
+
+	private static final String INSTANCE_PRINCIPAL = "instance_principal";
+
+	private static final Map<String, AbstractAuthenticationDetailsProvider> REGISTRY = new ConcurrentHashMap<>();
+	private static final Map<String, OCIBackgroundRefresher<InstancePrincipalsAuthenticationDetailsProvider>> REFRESHERS =
+			new ConcurrentHashMap<>();
+	private static final LongAdder TOKEN_REFRESHES = new LongAdder();
+	private static final AtomicReference<String> LAST_TOKEN = new AtomicReference<>();
+
+	static {
+		OCIMetrics metrics = OCIMetrics.getInstance();
+		metrics.registerCounter("auth_token_refreshes", TOKEN_REFRESHES::sum);
+		metrics.registerGauge("auth_token_refresh_failures", () -> REFRESHERS.values().stream()
+				.mapToLong(OCIBackgroundRefresher::getConsecutiveFailures).sum());
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(OCIAuthProviders.class.getName());
+
+	private OCIAuthProviders() {
+	}
+
+	/**
+	 * Get the provider for the authentication settings of the system properties, creating it on first
+	 * use.
+	 *
+	 * @return the shared provider, or null if the configuration file cannot be read
+	 */
+	public static AbstractAuthenticationDetailsProvider fromSystemProperties() {
+		String authType = System.getProperty("oci.authType");
+		LOGGER.log(INFO, "OCIAuthProviders: OCI Authentication type is: {0}", authType);
+		if (INSTANCE_PRINCIPAL.equalsIgnoreCase(authType)) {
+			return REGISTRY.computeIfAbsent(INSTANCE_PRINCIPAL, k -> instancePrincipal());
+		}
+		String configFilePath = System.getProperty("oci.configFile");
+		String profile = System.getProperty("oci.profile");
+		try {
+			return REGISTRY.computeIfAbsent("config|" + configFilePath + "|" + profile,
+					k -> configFile(configFilePath, profile));
+		} catch (UncheckedIOException uioe) {
+			// Not registered, so the next client tries again.
+			LOGGER.log(SEVERE, "OCI KeyVault client initialization failed {0}", uioe.getCause().getMessage());
+			return null;
+		}
+	}
+
+	private static AbstractAuthenticationDetailsProvider configFile(String configFilePath, String profile) {
+		try {
+			ConfigFileReader.ConfigFile configFile = configFilePath == null ? ConfigFileReader.parseDefault(profile)
+					: ConfigFileReader.parse(configFilePath, profile);
+			LOGGER.log(INFO, "OCIAuthProviders: read the configuration file {0}", configFilePath);
+			return new ConfigFileAuthenticationDetailsProvider(configFile);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	private static AbstractAuthenticationDetailsProvider instancePrincipal() {
+		InstancePrincipalsAuthenticationDetailsProvider provider = InstancePrincipalsAuthenticationDetailsProvider
+				.builder().build();
+		Duration margin = Duration.ofSeconds(OCIProperties.getLong("oci.auth.refreshMarginSeconds", 600));
+		try {
+			refresh(provider, margin);
+		} catch (RuntimeException e) {
+			// The SDK fetches the token on the first call instead, and the refresher keeps trying.
+			LOGGER.log(WARNING, "OCIAuthProviders: instance principal token fetch failed {0}", e.getMessage());
+		}
+		long checkMillis = TimeUnit.SECONDS.toMillis(Math.max(1, OCIProperties.getLong("oci.auth.refreshCheckSeconds", 60)));
+		OCIBackgroundRefresher<InstancePrincipalsAuthenticationDetailsProvider> refresher =
+				new OCIBackgroundRefresher<>("instance principal token", provider, p -> refresh(p, margin), checkMillis, 10);
+		REFRESHERS.put(INSTANCE_PRINCIPAL, refresher);
+		refresher.start();
+		return provider;
+	}
+
+	private static void refresh(InstancePrincipalsAuthenticationDetailsProvider provider, Duration margin) {
+		String token = provider.refreshIfExpiringWithin(margin);
+		if (token != null && !token.equals(LAST_TOKEN.getAndSet(token))) {
+			TOKEN_REFRESHES.increment();
+			LOGGER.log(INFO, "OCIAuthProviders: renewed the instance principal token");
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Periodically refreshes a store in the background so readers keep serving the last good contents.
+ *
+ * Each run is scheduled on {@link OCIExecutors#scheduler()} after the interval plus or minus a random
+ * jitter, so many keystores started together do not refresh in lockstep, and runs on
+ * {@link OCIExecutors#blockingExecutor()}. An asynchronous refresh only starts there, and the next run
+ * is scheduled once its future completes, so no thread waits for it. A run that fails is recorded and
+ * the next run is scheduled as usual. The store is held weakly: once it is no longer used the
+ * refresher stops by itself.
+ *
+ * @param <T> the store type
+ */
+public final class OCIBackgroundRefresher<T> {
+
+	private final String name;
+	private final WeakReference<T> owner;
+	private final Function<T, CompletableFuture<?>> refresh;
+	private final long intervalMillis;
+	private final int jitterPercent;
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	private volatile ScheduledFuture<?> scheduled;
+	private volatile boolean stopped;
+	private volatile long lastSuccessMillis;
+	private volatile long lastFailureMillis;
+	private volatile Throwable lastFailure;
+	private volatile int consecutiveFailures;
+
+	private static final Logger LOGGER = Logger.getLogger(OCIBackgroundRefresher.class.getName());
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name           the name used in log messages
+	 * @param owner          the store to refresh, held weakly
+	 * @param refresh        the refresh action, which throws to report a failure
+	 * @param intervalMillis the refresh interval in milliseconds
+	 * @param jitterPercent  the jitter as a percentage of the interval
+	 */
+	public OCIBackgroundRefresher(String name, T owner, Consumer<T> refresh, long intervalMillis, int jitterPercent) {
+		this(target -> {
+			refresh.accept(target);
+			return CompletableFuture.completedFuture(null);
+		}, name, owner, intervalMillis, jitterPercent);
+	}
+
+	private OCIBackgroundRefresher(Function<T, CompletableFuture<?>> refresh, String name, T owner,
+			long intervalMillis, int jitterPercent) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+		}
+		this.name = name;
+		this.owner = new WeakReference<>(owner);
+		this.refresh = refresh;
+		this.intervalMillis = intervalMillis;
+		this.jitterPercent = Math.max(0, Math.min(100, jitterPercent));
+	}
+
+	/**
+	 * Create a refresher for an asynchronous refresh.
+	 *
+	 * @param name           the name used in log messages
+	 * @param owner          the store to refresh, held weakly
+	 * @param refresh        the refresh action, whose future completes exceptionally to report a failure
+	 * @param intervalMillis the refresh interval in milliseconds
+	 * @param jitterPercent  the jitter as a percentage of the interval
+	 * @param <T>            the store type
+	 * @return the refresher, not started
+	 */
+	public static <T> OCIBackgroundRefresher<T> ofAsync(String name, T owner, Function<T, CompletableFuture<?>> refresh,
+			long intervalMillis, int jitterPercent) {
+		return new OCIBackgroundRefresher<>(refresh, name, owner, intervalMillis, jitterPercent);
+	}
+
+	/**
+	 * Schedule the first refresh.
+	 */
+	public void start() {
+		LOGGER.log(INFO, "OCIBackgroundRefresher {0}: refreshing every {1} ms with {2}% jitter",
+				new Object[] { name, intervalMillis, jitterPercent });
+		schedule();
+	}
+
+	/**
+	 * Stop refreshing. A refresh already running completes.
+	 */
+	public void stop() {
+		stopped = true;
+		ScheduledFuture<?> current = scheduled;
+		if (current != null) {
+			current.cancel(false);
+		}
+	}
+
+	/**
+	 * Run a refresh now in the background, unless one is already running.
+	 */
+	public void refreshNow() {
+		if (!stopped) {
+			OCIExecutors.blockingExecutor().execute(this::run);
+		}
+	}
+
+	/**
+	 * Get the time of the last successful refresh.
+	 *
+	 * @return the time in milliseconds since the epoch, or 0 if no refresh succeeded yet
+	 */
+	public long getLastSuccessMillis() {
+		return lastSuccessMillis;
+	}
+
+	/**
+	 * Get the time of the last failed refresh.
+	 *
+	 * @return the time in milliseconds since the epoch, or 0 if no refresh failed yet
+	 */
+	public long getLastFailureMillis() {
+		return lastFailureMillis;
+	}
+
+	/**
+	 * Get the error of the last failed refresh.
+	 *
+	 * @return the error, or null if no refresh failed yet
+	 */
+	public Throwable getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Get the number of failed refreshes since the last successful one.
+	 *
+	 * @return the number of consecutive failures
+	 */
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	private void schedule() {
+		if (stopped) {
+			return;
+		}
+		long jitter = intervalMillis * jitterPercent / 100;
+		long delay = intervalMillis + (jitter == 0 ? 0 : ThreadLocalRandom.current().nextLong(-jitter, jitter + 1));
+		scheduled = OCIExecutors.scheduler().schedule(() -> OCIExecutors.blockingExecutor().execute(
+				() -> run().whenComplete((v, e) -> schedule())), Math.max(1, delay), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Start a refresh.
+	 *
+	 * @return future completed when the refresh is done, whether it succeeded or not
+	 */
+	private CompletableFuture<Void> run() {
+		T target = owner.get();
+		if (target == null) {
+			LOGGER.log(INFO, "OCIBackgroundRefresher {0}: store is no longer used, stopping", name);
+			stop();
+			return CompletableFuture.completedFuture(null);
+		}
+		if (!running.compareAndSet(false, true)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		CompletableFuture<?> result;
+		try {
+			result = refresh.apply(target);
+		} catch (RuntimeException e) {
+			result = new CompletableFuture<>();
+			result.completeExceptionally(e);
+		}
+		return result.handle((v, e) -> {
+			if (e == null) {
+				lastSuccessMillis = System.currentTimeMillis();
+				consecutiveFailures = 0;
+			} else {
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				lastFailure = cause;
+				lastFailureMillis = System.currentTimeMillis();
+				consecutiveFailures++;
+				LOGGER.log(WARNING, "OCIBackgroundRefresher {0}: refresh failed ({1} in a row), keeping the last contents: {2}",
+						new Object[] { name, consecutiveFailures, cause.getMessage() });
+			}
+			running.set(false);
+			return null;
+		});
+	}
+}
@@ -0,0 +1,78 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+/**
+ * Closes resources once their owner is no longer used, for owners which are never closed, such as a
+ * {@link java.security.KeyStoreSpi}. The owners are held through phantom references, checked every
+ * few seconds on {@link OCIExecutors#scheduler()}. The resource must not refer to its owner.
+ */
+public final class OCICleaner {
+
+	private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+	private static final Map<Cleanable, Boolean> PENDING = new ConcurrentHashMap<>();
+
+	static {
+		OCIExecutors.scheduler().scheduleWithFixedDelay(OCICleaner::cleanUnreachable, 5, 5, TimeUnit.SECONDS);
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(OCICleaner.class.getName());
+
+	private OCICleaner() {
+	}
+
+	/**
+	 * Close a resource once its owner is no longer used.
+	 *
+	 * @param owner    the owner
+	 * @param resource the resource
+	 * @return the registration, to close the resource earlier
+	 */
+	public static Cleanable register(Object owner, AutoCloseable resource) {
+		Cleanable cleanable = new Cleanable(owner, resource);
+		PENDING.put(cleanable, Boolean.TRUE);
+		return cleanable;
+	}
+
+	private static void cleanUnreachable() {
+		for (Reference<?> reference; (reference = QUEUE.poll()) != null;) {
+			LOGGER.log(INFO, "OCICleaner: closing the resources of an owner no longer used");
+			((Cleanable) reference).clean();
+		}
+	}
+
+	/**
+	 * A resource registered to be closed with its owner.
+	 */
+	public static final class Cleanable extends PhantomReference<Object> {
+
+		private final AutoCloseable resource;
+
+		private Cleanable(Object owner, AutoCloseable resource) {
+			super(owner, QUEUE);
+			this.resource = resource;
+		}
+
+		/**
+		 * Close the resource now, unless it was already closed.
+		 */
+		public void clean() {
+			if (PENDING.remove(this) == null) {
+				return;
+			}
+			try {
+				resource.close();
+			} catch (Exception e) {
+				LOGGER.log(WARNING, "OCICleaner: unable to close {0}: {1}", new Object[] { resource, e.getMessage() });
+			}
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.security.ProviderException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import static java.util.logging.Level.FINE;
+import java.util.logging.Logger;
+
+import com.oracle.bmc.model.BmcException;
+
+/**
+ * Adaptive limit of the requests in flight to one vault, using additive increase and multiplicative
+ * decrease (AIMD).
+ *
+ * The limit grows by one per limit's worth of successful requests while it is in use, and shrinks by
+ * {@code oci.limiter.backoffRatio} (0.9) when a request is throttled (429), the vault is unavailable
+ * (503), a request times out, or its latency exceeds {@code oci.limiter.latencyTolerance} (2.0) times
+ * the lowest latency recently seen. Only requests started after the previous decrease can shrink the
+ * limit again, so a burst of throttled responses counts once and the limit does not collapse.
+ *
+ * Requests above the limit wait for up to {@code oci.limiter.maxWaitMillis} (1000) in a queue of at
+ * most {@code oci.limiter.maxQueue} (1000) requests, and are otherwise rejected with
+ * {@link RejectedException}. The limit starts at {@code oci.limiter.initialLimit} (32) and stays
+ * between {@code oci.limiter.minLimit} (1) and {@code oci.limiter.maxLimit} (256). The limiter is
+ * disabled with {@code oci.limiter.enabled=false}.
+ */
+public final class OCIConcurrencyLimiter {
+
+	private static final Map<String, OCIConcurrencyLimiter> REGISTRY = new ConcurrentHashMap<>();
+	private static final int BASELINE_WINDOW = 500;
+
+	private static final LongAdder REJECTIONS = new LongAdder();
+	private static final LongAdder DECREASES = new LongAdder();
+
+	static {
+		OCIMetrics metrics = OCIMetrics.getInstance();
+		metrics.registerGauge("limiter_limit",
+				() -> REGISTRY.values().stream().mapToLong(OCIConcurrencyLimiter::getLimit).sum());
+		metrics.registerGauge("limiter_in_flight",
+				() -> REGISTRY.values().stream().mapToLong(OCIConcurrencyLimiter::getInFlight).sum());
+		metrics.registerGauge("limiter_queued",
+				() -> REGISTRY.values().stream().mapToLong(OCIConcurrencyLimiter::getQueued).sum());
+		metrics.registerCounter("limiter_rejections", REJECTIONS::sum);
+		metrics.registerCounter("limiter_decreases", DECREASES::sum);
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(OCIConcurrencyLimiter.class.getName());
+
+	private final String name;
+	private final boolean enabled;
+	private final double minLimit;
+	private final double maxLimit;
+	private final double backoffRatio;
+	private final double latencyTolerance;
+	private final long maxWaitNanos;
+	private final int maxQueue;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private double limit;
+	private int inFlight;
+	private int queued;
+	private long lastDecreaseNanos;
+	private long baselineNanos;
+	private long windowMinNanos = Long.MAX_VALUE;
+	private int windowSamples;
+
+	OCIConcurrencyLimiter(String name) {
+		this.name = name;
+		this.enabled = OCIProperties.getBoolean("oci.limiter.enabled", true);
+		this.minLimit = Math.max(1, OCIProperties.getInt("oci.limiter.minLimit", 1));
+		this.maxLimit = Math.max(minLimit, OCIProperties.getInt("oci.limiter.maxLimit", 256));
+		this.limit = Math.max(minLimit, Math.min(maxLimit, OCIProperties.getInt("oci.limiter.initialLimit", 32)));
+		this.backoffRatio = Math.max(0.1, Math.min(0.99, OCIProperties.getDouble("oci.limiter.backoffRatio", 0.9)));
+		this.latencyTolerance = Math.max(1, OCIProperties.getDouble("oci.limiter.latencyTolerance", 2.0));
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, OCIProperties.getLong("oci.limiter.maxWaitMillis", 1000)));
+		this.maxQueue = Math.max(0, OCIProperties.getInt("oci.limiter.maxQueue", 1000));
+		this.lastDecreaseNanos = System.nanoTime();
+	}
+
+	/**
+	 * Get the limiter shared by every client of an endpoint.
+	 *
+	 * @param endpoint the endpoint
+	 * @return the limiter of the endpoint
+	 */
+	public static OCIConcurrencyLimiter forEndpoint(String endpoint) {
+		return REGISTRY.computeIfAbsent(String.valueOf(endpoint), OCIConcurrencyLimiter::new);
+	}
+
+	/**
+	 * Run a single request within the limit.
+	 *
+	 * @param call the request
+	 * @param <T>  the response type
+	 * @return the response
+	 * @throws RejectedException if the request waited too long for the limit
+	 */
+	public <T> T call(Supplier<T> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		long start = acquire();
+		T response;
+		try {
+			response = call.get();
+		} catch (BmcException be) {
+			int status = be.getStatusCode();
+			release(start, status == 429 || status == 503 || be.isTimeout(), false);
+			throw be;
+		} catch (RuntimeException e) {
+			release(start, false, false);
+			throw e;
+		}
+		release(start, false, true);
+		return response;
+	}
+
+	/**
+	 * Get the current limit.
+	 *
+	 * @return the number of requests allowed in flight
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of requests in flight.
+	 *
+	 * @return the number of requests in flight
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of requests waiting for the limit.
+	 *
+	 * @return the number of queued requests
+	 */
+	public int getQueued() {
+		lock.lock();
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private long acquire() {
+		lock.lock();
+		try {
+			if (inFlight >= (int) limit) {
+				if (queued >= maxQueue) {
+					throw reject();
+				}
+				queued++;
+				try {
+					long remaining = maxWaitNanos;
+					while (inFlight >= (int) limit) {
+						if (remaining <= 0) {
+							throw reject();
+						}
+						remaining = available.awaitNanos(remaining);
+					}
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new ProviderException(ie);
+				} finally {
+					queued--;
+				}
+			}
+			inFlight++;
+			return System.nanoTime();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Give back the permit of a request and adapt the limit.
+	 *
+	 * @param overloaded whether the vault signalled overload
+	 * @param succeeded  whether the request succeeded, so its latency is a capacity signal
+	 */
+	private void release(long start, boolean overloaded, boolean succeeded) {
+		long now = System.nanoTime();
+		long latency = now - start;
+		lock.lock();
+		try {
+			int permits = (int) limit;
+			inFlight--;
+			if (succeeded) {
+				sample(latency);
+			}
+			if (overloaded || succeeded && latency > latencyTolerance * baselineNanos) {
+				if (start - lastDecreaseNanos > 0) {
+					limit = Math.max(minLimit, limit * backoffRatio);
+					lastDecreaseNanos = now;
+					DECREASES.increment();
+					LOGGER.log(FINE, "OCIConcurrencyLimiter: limit of {0} decreased to {1}",
+							new Object[] { name, (int) limit });
+				}
+			} else if (succeeded && inFlight + 1 >= limit / 2) {
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+			if ((int) limit > permits) {
+				available.signalAll();
+			} else {
+				available.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Track the lowest latency, the baseline of an unloaded vault.
+	 */
+	private void sample(long latency) {
+		windowMinNanos = Math.min(windowMinNanos, latency);
+		if (++windowSamples >= BASELINE_WINDOW) {
+			// Start a new window so the baseline follows the vault when it gets slower for good.
+			baselineNanos = windowMinNanos;
+			windowMinNanos = Long.MAX_VALUE;
+			windowSamples = 0;
+		} else if (baselineNanos == 0 || windowMinNanos < baselineNanos) {
+			baselineNanos = windowMinNanos;
+		}
+	}
+
+	private RejectedException reject() {
+		REJECTIONS.increment();
+		return new RejectedException("Too many OCI Key Vault requests in flight to " + name + ", limit "
+				+ (int) limit);
+	}
+
+	/**
+	 * Thrown when a request could not get within the limit of its endpoint in time.
+	 */
+	public static final class RejectedException extends ProviderException {
+
+		private static final long serialVersionUID = 1L;
+
+		RejectedException(String message) {
+			super(message);
+		}
+	}
+}
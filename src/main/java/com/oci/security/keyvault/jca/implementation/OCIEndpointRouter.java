@@ -0,0 +1,255 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+import com.oracle.bmc.model.BmcException;
+
+/**
+ * Routes KMS calls across the vaults holding the same keys, such as a primary vault and its
+ * cross-region replicas.
+ *
+ * Each call goes to the endpoint with the lowest exponentially weighted moving average latency whose
+ * circuit is closed, and fails over to the next one on throttling, server errors, timeouts, an open
+ * circuit or a full {@link OCIConcurrencyLimiter}. Endpoints which were never called rank first, so
+ * every endpoint gets measured, and {@code oci.routing.probePercent} (1 by default) of the calls go to
+ * a random endpoint so the averages follow latency changes. The weight of the latest latency is
+ * {@code oci.routing.ewmaAlpha} (0.2). A failed endpoint is ranked as slow until its next successful
+ * call, which replaces its average.
+ */
+public final class OCIEndpointRouter implements AutoCloseable {
+
+	private static final LongAdder FAILOVERS = new LongAdder();
+	private static final double MAX_PENALTY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+	static {
+		OCIMetrics.getInstance().registerCounter("routing_failovers", FAILOVERS::sum);
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(OCIEndpointRouter.class.getName());
+
+	private final List<Route> routes;
+	private final double alpha;
+	private final int probePercent;
+
+	/**
+	 * Create a router over the given routes.
+	 *
+	 * @param routes the routes, the primary one first
+	 */
+	public OCIEndpointRouter(List<Route> routes) {
+		if (routes.isEmpty()) {
+			throw new IllegalArgumentException("At least one endpoint is needed");
+		}
+		this.routes = Collections.unmodifiableList(new ArrayList<>(routes));
+		this.alpha = Math.max(0.01, Math.min(1, OCIProperties.getDouble("oci.routing.ewmaAlpha", 0.2)));
+		this.probePercent = Math.max(0, Math.min(100, OCIProperties.getInt("oci.routing.probePercent", 1)));
+	}
+
+	/**
+	 * Run a call on the best endpoint, failing over to the others on transient errors.
+	 *
+	 * @param call the call
+	 * @param <T>  the response type
+	 * @return the response
+	 * @throws BmcException the error of the last endpoint tried
+	 * @throws OCIResilience.CircuitOpenException if every endpoint has an open circuit
+	 */
+	public <T> T call(Function<Route, T> call) {
+		List<Route> ordered = order();
+		RuntimeException last = null;
+		for (int i = 0; i < ordered.size(); i++) {
+			Route route = ordered.get(i);
+			if (i > 0) {
+				FAILOVERS.increment();
+				LOGGER.log(WARNING, "OCIEndpointRouter: failing over to {0} after {1}",
+						new Object[] { route.getEndpoint(), last.getMessage() });
+			}
+			long start = System.nanoTime();
+			try {
+				T response = call.apply(route);
+				route.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), alpha);
+				return response;
+			} catch (OCIResilience.CircuitOpenException | OCIConcurrencyLimiter.RejectedException e) {
+				last = e;
+			} catch (BmcException be) {
+				if (!OCIResilience.isRetryable(be)) {
+					throw be;
+				}
+				route.penalize(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+				last = be;
+			}
+		}
+		throw last;
+	}
+
+	/**
+	 * Get the routes.
+	 *
+	 * @return the routes, the primary one first
+	 */
+	public List<Route> getRoutes() {
+		return routes;
+	}
+
+	/**
+	 * Release the transport and the clients of every route.
+	 */
+	@Override
+	public void close() {
+		for (Route route : routes) {
+			route.transport.close();
+			route.clients.close();
+		}
+	}
+
+	/**
+	 * Order the routes by latency, endpoints with an open circuit last, with the occasional probe first.
+	 */
+	private List<Route> order() {
+		if (routes.size() == 1) {
+			return routes;
+		}
+		List<Route> ordered = new ArrayList<>(routes);
+		// The sort is stable, so the primary endpoint wins ties.
+		ordered.sort((a, b) -> {
+			boolean aOpen = a.resilience.isOpen();
+			boolean bOpen = b.resilience.isOpen();
+			if (aOpen != bOpen) {
+				return aOpen ? 1 : -1;
+			}
+			return Double.compare(a.ewmaMicros, b.ewmaMicros);
+		});
+		if (probePercent > 0 && ThreadLocalRandom.current().nextInt(100) < probePercent) {
+			Route probe = ordered.remove(ThreadLocalRandom.current().nextInt(ordered.size()));
+			if (!probe.resilience.isOpen()) {
+				LOGGER.log(INFO, "OCIEndpointRouter: probing {0}", probe.getEndpoint());
+			}
+			ordered.add(0, probe);
+		}
+		return ordered;
+	}
+
+	/**
+	 * One vault: its shared SDK clients, its KMS transport, its resilience state, the concurrency
+	 * limiters of its crypto and management endpoints and its moving average latency.
+	 */
+	public static final class Route {
+
+		private final String endpoint;
+		private final OCIServiceClients clients;
+		private final OCIKmsTransport transport;
+		private final OCIResilience resilience;
+		private final OCIConcurrencyLimiter limiter;
+		private final OCIConcurrencyLimiter managementLimiter;
+		private volatile double ewmaMicros;
+		private boolean penalized;
+
+		/**
+		 * Create a route with the transport selected by {@code oci.transport}. The router releases the
+		 * transport and the clients when it is closed.
+		 *
+		 * @param endpoint the crypto endpoint
+		 * @param clients  the clients of the vault
+		 */
+		public Route(String endpoint, OCIServiceClients clients) {
+			this.endpoint = endpoint;
+			this.clients = clients;
+			this.transport = OCIKmsTransports.create(clients);
+			this.resilience = OCIResilience.forEndpoint(endpoint);
+			this.limiter = OCIConcurrencyLimiter.forEndpoint(endpoint);
+			this.managementLimiter = OCIConcurrencyLimiter.forEndpoint(clients.getManagementEndpoint());
+		}
+
+		/**
+		 * Get the crypto endpoint.
+		 *
+		 * @return the endpoint
+		 */
+		public String getEndpoint() {
+			return endpoint;
+		}
+
+		/**
+		 * Get the clients of the vault.
+		 *
+		 * @return the clients
+		 */
+		public OCIServiceClients getClients() {
+			return clients;
+		}
+
+		/**
+		 * Get the transport of the KMS calls to the vault.
+		 *
+		 * @return the transport
+		 */
+		public OCIKmsTransport getTransport() {
+			return transport;
+		}
+
+		/**
+		 * Get the resilience state of the endpoint.
+		 *
+		 * @return the resilience state
+		 */
+		public OCIResilience getResilience() {
+			return resilience;
+		}
+
+		/**
+		 * Get the concurrency limiter of the crypto endpoint, which the signatures go through.
+		 *
+		 * @return the limiter
+		 */
+		public OCIConcurrencyLimiter getLimiter() {
+			return limiter;
+		}
+
+		/**
+		 * Get the concurrency limiter of the management endpoint, which the key and key version reads go
+		 * through. The management plane has its own rate limits, so its throttling leaves the signing
+		 * limit alone.
+		 *
+		 * @return the limiter
+		 */
+		public OCIConcurrencyLimiter getManagementLimiter() {
+			return managementLimiter;
+		}
+
+		/**
+		 * Get the moving average latency.
+		 *
+		 * @return the latency in microseconds, 0 until the first call
+		 */
+		public double getLatencyMicros() {
+			return ewmaMicros;
+		}
+
+		/**
+		 * Record the latency of a successful call. The first one after a failure replaces the average,
+		 * so a recovered vault wins back its traffic from the first probe which reaches it.
+		 */
+		synchronized void record(long micros, double alpha) {
+			ewmaMicros = ewmaMicros == 0 || penalized ? micros : ewmaMicros + alpha * (micros - ewmaMicros);
+			penalized = false;
+		}
+
+		/**
+		 * A failed call counts as twice as slow as the worse of its duration and the average so far, up to
+		 * a minute.
+		 */
+		synchronized void penalize(long micros) {
+			ewmaMicros = Math.min(MAX_PENALTY_MICROS, 2 * Math.max(Math.max(micros, ewmaMicros), 1));
+			penalized = true;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors used to run blocking OCI SDK calls off the caller's thread.
+ */
+public final class OCIExecutors {
+
+	private OCIExecutors() {
+	}
+
+	/**
+	 * Get the shared executor for blocking OCI calls. On Java 21 and later it starts a virtual thread
+	 * per call unless {@code oci.executor.virtualThreads=false}; otherwise it is a daemon pool of
+	 * {@code oci.executor.threads} threads (32 by default) whose idle threads time out.
+	 *
+	 * @return the shared executor
+	 */
+	public static ExecutorService blockingExecutor() {
+		return BlockingExecutorHolder.EXECUTOR;
+	}
+
+	/**
+	 * Get the executor for the attempts of calls made with a timeout or hedging. The callers of these
+	 * attempts wait for them, and often run on {@link #blockingExecutor()} themselves, so the attempts
+	 * never queue behind their callers: on Java 21 and later they run on {@link #blockingExecutor()}
+	 * virtual threads, otherwise on a daemon pool which grows with the attempts in flight, themselves
+	 * bounded by the {@link OCIConcurrencyLimiter}s.
+	 *
+	 * @return the attempt executor
+	 */
+	public static ExecutorService attemptExecutor() {
+		return AttemptExecutorHolder.EXECUTOR;
+	}
+
+	/**
+	 * Check whether blocking OCI calls run on virtual threads.
+	 *
+	 * @return true if {@link #blockingExecutor()} starts a virtual thread per call
+	 */
+	public static boolean usesVirtualThreads() {
+		return BlockingExecutorHolder.VIRTUAL;
+	}
+
+	/**
+	 * Get the shared scheduler for periodic background work such as keystore refreshes. It runs on a
+	 * single daemon thread; scheduled work should hand blocking calls to {@link #blockingExecutor()}.
+	 *
+	 * @return the shared scheduler
+	 */
+	public static ScheduledExecutorService scheduler() {
+		return SchedulerHolder.SCHEDULER;
+	}
+
+	/**
+	 * Create a thread factory for daemon threads.
+	 *
+	 * @param prefix the thread name prefix
+	 * @return the thread factory
+	 */
+	public static ThreadFactory daemonThreadFactory(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static final class BlockingExecutorHolder {
+		private static final ExecutorService VIRTUAL_EXECUTOR = OCIVirtualThreads.newExecutor("oci-kms");
+		private static final boolean VIRTUAL = VIRTUAL_EXECUTOR != null;
+		private static final ExecutorService EXECUTOR = VIRTUAL ? VIRTUAL_EXECUTOR : newBlockingExecutor();
+
+		private static ExecutorService newBlockingExecutor() {
+			int threads = Math.max(1, OCIProperties.getInt("oci.executor.threads", 32));
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), daemonThreadFactory("oci-kms"));
+			executor.allowCoreThreadTimeOut(true);
+			OCIMetrics.getInstance().registerGauge("executor_active_threads", executor::getActiveCount);
+			OCIMetrics.getInstance().registerGauge("executor_queued_tasks", () -> executor.getQueue().size());
+			return executor;
+		}
+	}
+
+	private static final class AttemptExecutorHolder {
+		private static final ExecutorService EXECUTOR = usesVirtualThreads() ? blockingExecutor()
+				: newAttemptExecutor();
+
+		private static ExecutorService newAttemptExecutor() {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+					new SynchronousQueue<>(), daemonThreadFactory("oci-attempt"));
+			OCIMetrics.getInstance().registerGauge("executor_attempt_threads", executor::getActiveCount);
+			return executor;
+		}
+	}
+
+	private static final class SchedulerHolder {
+		private static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+		private static ScheduledExecutorService newScheduler() {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+					daemonThreadFactory("oci-scheduler"));
+			scheduler.setRemoveOnCancelPolicy(true);
+			return scheduler;
+		}
+	}
+}
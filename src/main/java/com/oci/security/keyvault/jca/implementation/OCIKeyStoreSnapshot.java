@@ -0,0 +1,368 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import static java.util.logging.Level.INFO;
+import java.util.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Compact, integrity protected snapshot of the keystore contents, used to start a keystore without
+ * network calls.
+ *
+ * The snapshot holds the certificate authorities and the crypto endpoint the keystore was loaded with,
+ * and per alias the certificate chain DER and the KMS key metadata (key OCID, algorithm, length, name
+ * and key version); it never holds key material. It is protected by an HMAC-SHA256 keyed
+ * with a PBKDF2 derivation of the keystore password. Without a password only a SHA-256 checksum is
+ * written, which detects corruption but not tampering.
+ */
+public final class OCIKeyStoreSnapshot {
+
+	private static final int MAGIC = 0x4F434B53;
+	private static final int VERSION = 2;
+	private static final int ITERATIONS = 10000;
+	private static final int SALT_LENGTH = 16;
+
+	/**
+	 * Upper bounds of the lengths read, checked before anything is allocated: a snapshot only holds
+	 * certificates and metadata, the salt and the integrity check are a few bytes.
+	 */
+	private static final int MAX_BODY_LENGTH = 64 * 1024 * 1024;
+	private static final int MAX_DIGEST_LENGTH = 64;
+
+	private static final Logger LOGGER = Logger.getLogger(OCIKeyStoreSnapshot.class.getName());
+
+	private OCIKeyStoreSnapshot() {
+	}
+
+	/**
+	 * Write a snapshot without the keystore configuration.
+	 *
+	 * @param stream   the output stream
+	 * @param password the password protecting the snapshot integrity, may be null
+	 * @param entries  the entries
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public static void write(OutputStream stream, char[] password, List<Entry> entries) throws IOException {
+		write(stream, password, null, null, entries);
+	}
+
+	/**
+	 * Write a snapshot.
+	 *
+	 * @param stream                  the output stream
+	 * @param password                the password protecting the snapshot integrity, may be null
+	 * @param certificateAuthorityIds the certificate authorities the keystore was loaded with, or null
+	 *                                if unknown
+	 * @param cryptoEndpoint          the crypto endpoint the keystore was loaded with
+	 * @param entries                 the entries
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public static void write(OutputStream stream, char[] password, List<String> certificateAuthorityIds,
+			String cryptoEndpoint, List<Entry> entries) throws IOException {
+		ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+		try (DataOutputStream payload = new DataOutputStream(payloadBytes)) {
+			payload.writeLong(System.currentTimeMillis());
+			payload.writeBoolean(certificateAuthorityIds != null);
+			if (certificateAuthorityIds != null) {
+				payload.writeInt(certificateAuthorityIds.size());
+				for (String certificateAuthorityId : certificateAuthorityIds) {
+					writeString(payload, certificateAuthorityId);
+				}
+				writeString(payload, cryptoEndpoint);
+			}
+			payload.writeInt(entries.size());
+			for (Entry entry : entries) {
+				writeString(payload, entry.source);
+				writeString(payload, entry.alias);
+				writeString(payload, entry.certificateAuthorityId);
+				writeString(payload, entry.keyId);
+				writeString(payload, entry.keyName);
+				writeString(payload, entry.algorithm);
+				payload.writeInt(entry.keyLength);
+				writeString(payload, entry.keyVersionId);
+				payload.writeInt(entry.certificateChain.size());
+				for (Certificate certificate : entry.certificateChain) {
+					try {
+						writeBytes(payload, certificate.getEncoded());
+					} catch (CertificateEncodingException cee) {
+						throw new IOException("Cannot encode the certificate of " + entry.alias, cee);
+					}
+				}
+			}
+		}
+		byte[] salt = new byte[0];
+		if (password != null && password.length > 0) {
+			salt = new byte[SALT_LENGTH];
+			new SecureRandom().nextBytes(salt);
+		}
+		byte[] body = payloadBytes.toByteArray();
+		if (body.length > MAX_BODY_LENGTH) {
+			throw new IOException("OCI keystore snapshot of " + body.length + " bytes is too large");
+		}
+		DataOutputStream out = new DataOutputStream(stream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeBytes(out, salt);
+		writeBytes(out, body);
+		writeBytes(out, integrity(password, salt, body));
+		out.flush();
+		LOGGER.log(INFO, "OCIKeyStoreSnapshot: wrote {0} entries", entries.size());
+	}
+
+	/**
+	 * Read and verify a snapshot.
+	 *
+	 * @param stream   the input stream
+	 * @param password the password the snapshot was written with, may be null
+	 * @return the contents
+	 * @throws IOException if the snapshot is malformed or fails the integrity check
+	 */
+	public static Contents read(InputStream stream, char[] password) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not an OCI keystore snapshot");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported OCI keystore snapshot version " + version);
+		}
+		byte[] salt = readBytes(in, MAX_DIGEST_LENGTH);
+		byte[] body = readBytes(in, MAX_BODY_LENGTH);
+		byte[] expected = readBytes(in, MAX_DIGEST_LENGTH);
+		if (salt.length == 0 && password != null && password.length > 0) {
+			throw new IOException("OCI keystore snapshot is not password protected");
+		}
+		if (!MessageDigest.isEqual(expected, integrity(password, salt, body))) {
+			throw new IOException("OCI keystore snapshot integrity check failed");
+		}
+		List<Entry> entries = new ArrayList<>();
+		List<String> certificateAuthorityIds = null;
+		String cryptoEndpoint = null;
+		ByteArrayInputStream payloadBytes = new ByteArrayInputStream(body);
+		try (DataInputStream payload = new DataInputStream(payloadBytes)) {
+			long createdAt = payload.readLong();
+			if (payload.readBoolean()) {
+				int idCount = payload.readInt();
+				if (idCount < 0 || idCount > payloadBytes.available()) {
+					throw new IOException("Invalid certificate authority count in OCI keystore snapshot");
+				}
+				certificateAuthorityIds = new ArrayList<>(idCount);
+				for (int i = 0; i < idCount; i++) {
+					certificateAuthorityIds.add(readString(payload));
+				}
+				cryptoEndpoint = readString(payload);
+			}
+			int count = payload.readInt();
+			if (count < 0) {
+				throw new IOException("Invalid entry count in OCI keystore snapshot");
+			}
+			CertificateFactory cf = CertificateFactory.getInstance("X.509");
+			for (int i = 0; i < count; i++) {
+				String source = readString(payload);
+				String alias = readString(payload);
+				String certificateAuthorityId = readString(payload);
+				String keyId = readString(payload);
+				String keyName = readString(payload);
+				String algorithm = readString(payload);
+				int keyLength = payload.readInt();
+				String keyVersionId = readString(payload);
+				int chainLength = payload.readInt();
+				if (chainLength < 0 || chainLength > payloadBytes.available()) {
+					throw new IOException("Invalid certificate chain length in OCI keystore snapshot");
+				}
+				List<Certificate> chain = new ArrayList<>(Math.min(chainLength, 16));
+				for (int c = 0; c < chainLength; c++) {
+					chain.add(cf.generateCertificate(new ByteArrayInputStream(
+							readBytes(payload, payloadBytes.available()))));
+				}
+				entries.add(new Entry(source, alias, certificateAuthorityId, keyId, keyName, algorithm, keyLength,
+						keyVersionId, chain));
+			}
+			LOGGER.log(INFO, "OCIKeyStoreSnapshot: read {0} entries written at {1}",
+					new Object[] { count, new Date(createdAt) });
+		} catch (CertificateException ce) {
+			throw new IOException("Invalid certificate in OCI keystore snapshot", ce);
+		}
+		return new Contents(certificateAuthorityIds, cryptoEndpoint, entries);
+	}
+
+	private static byte[] integrity(char[] password, byte[] salt, byte[] body) throws IOException {
+		try {
+			if (salt.length == 0) {
+				return MessageDigest.getInstance("SHA-256").digest(body);
+			}
+			SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+			PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, 256);
+			byte[] macKey = factory.generateSecret(spec).getEncoded();
+			spec.clearPassword();
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(macKey, "HmacSHA256"));
+			Arrays.fill(macKey, (byte) 0);
+			return mac.doFinal(body);
+		} catch (GeneralSecurityException gse) {
+			throw new IOException("Cannot compute the OCI keystore snapshot integrity check", gse);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	private static byte[] readBytes(DataInputStream in, int maxLength) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > maxLength) {
+			throw new IOException("Invalid length " + length + " in OCI keystore snapshot");
+		}
+		byte[] value = new byte[length];
+		in.readFully(value);
+		return value;
+	}
+
+	/**
+	 * The contents of a snapshot.
+	 */
+	public static final class Contents {
+
+		private final List<String> certificateAuthorityIds;
+		private final String cryptoEndpoint;
+		private final List<Entry> entries;
+
+		Contents(List<String> certificateAuthorityIds, String cryptoEndpoint, List<Entry> entries) {
+			this.certificateAuthorityIds = certificateAuthorityIds == null ? null
+					: Collections.unmodifiableList(certificateAuthorityIds);
+			this.cryptoEndpoint = cryptoEndpoint;
+			this.entries = Collections.unmodifiableList(entries);
+		}
+
+		/**
+		 * Get the certificate authorities the keystore was loaded with.
+		 *
+		 * @return the certificate authority ids, or null if the snapshot does not record them
+		 */
+		public List<String> getCertificateAuthorityIds() {
+			return certificateAuthorityIds;
+		}
+
+		/**
+		 * Get the crypto endpoint the keystore was loaded with.
+		 *
+		 * @return the crypto endpoint, or null if the snapshot does not record it
+		 */
+		public String getCryptoEndpoint() {
+			return cryptoEndpoint;
+		}
+
+		public List<Entry> getEntries() {
+			return entries;
+		}
+	}
+
+	/**
+	 * One keystore entry in a snapshot.
+	 */
+	public static final class Entry {
+
+		/**
+		 * Source of entries loaded from a Key Vault certificate authority.
+		 */
+		public static final String SOURCE_KEY_VAULT = "keyvault";
+
+		/**
+		 * Source of entries loaded from a CSR signed certificate file.
+		 */
+		public static final String SOURCE_CSR = "csr";
+
+		private final String source;
+		private final String alias;
+		private final String certificateAuthorityId;
+		private final String keyId;
+		private final String keyName;
+		private final String algorithm;
+		private final int keyLength;
+		private final String keyVersionId;
+		private final List<Certificate> certificateChain;
+
+		public Entry(String source, String alias, String certificateAuthorityId, String keyId, String keyName,
+				String algorithm, int keyLength, String keyVersionId, List<Certificate> certificateChain) {
+			this.source = source;
+			this.alias = alias;
+			this.certificateAuthorityId = certificateAuthorityId;
+			this.keyId = keyId;
+			this.keyName = keyName;
+			this.algorithm = algorithm;
+			this.keyLength = keyLength;
+			this.keyVersionId = keyVersionId;
+			this.certificateChain = Collections.unmodifiableList(new ArrayList<>(certificateChain));
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		public String getAlias() {
+			return alias;
+		}
+
+		public String getCertificateAuthorityId() {
+			return certificateAuthorityId;
+		}
+
+		public String getKeyId() {
+			return keyId;
+		}
+
+		public String getKeyName() {
+			return keyName;
+		}
+
+		public String getAlgorithm() {
+			return algorithm;
+		}
+
+		public int getKeyLength() {
+			return keyLength;
+		}
+
+		public String getKeyVersionId() {
+			return keyVersionId;
+		}
+
+		public List<Certificate> getCertificateChain() {
+			return certificateChain;
+		}
+	}
+}
@@ -1,50 +1,102 @@
 package com.oci.security.keyvault.jca.implementation;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProviderException;
+import java.security.PublicKey;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.INFO;
 import static java.util.logging.Level.SEVERE;
 import java.util.logging.Logger;
 
-import com.oracle.bmc.ConfigFileReader;
 import com.oracle.bmc.auth.AbstractAuthenticationDetailsProvider;
-import com.oracle.bmc.auth.ConfigFileAuthenticationDetailsProvider;
-import com.oracle.bmc.auth.InstancePrincipalsAuthenticationDetailsProvider;
 import com.oracle.bmc.certificates.CertificatesClient;
+import com.oracle.bmc.certificates.model.CertificateAuthorityBundle;
 import com.oracle.bmc.certificates.requests.GetCertificateAuthorityBundleRequest;
 import com.oracle.bmc.certificates.responses.GetCertificateAuthorityBundleResponse;
 import com.oracle.bmc.certificatesmanagement.CertificatesManagementClient;
+import com.oracle.bmc.certificatesmanagement.model.CertificateAuthority;
 import com.oracle.bmc.certificatesmanagement.requests.GetCertificateAuthorityRequest;
 import com.oracle.bmc.certificatesmanagement.responses.GetCertificateAuthorityResponse;
-import com.oracle.bmc.http.client.jersey3.Jersey3HttpProvider;
-import com.oracle.bmc.keymanagement.KmsCryptoClient;
-import com.oracle.bmc.keymanagement.KmsManagementClient;
 import com.oracle.bmc.keymanagement.model.SignDataDetails;
 import com.oracle.bmc.keymanagement.model.SignDataDetails.MessageType;
 import com.oracle.bmc.keymanagement.model.SignDataDetails.SigningAlgorithm;
 import com.oracle.bmc.keymanagement.requests.GetKeyRequest;
+import com.oracle.bmc.keymanagement.requests.GetKeyVersionRequest;
 import com.oracle.bmc.keymanagement.requests.SignRequest;
 import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
 import com.oracle.bmc.keymanagement.responses.SignResponse;
+import com.oracle.bmc.model.BmcException;
+import com.oracle.bmc.retrier.RetryConfiguration;
 
 /**
  * The OCI client for the OCI Key Vault.
+ *
+ * The SDK clients are shared per (region, endpoint, auth provider) through {@link OCIServiceClients};
+ * call {@link #close()} once the client is no longer needed to release them. Clients configured with
+ * system properties share their auth provider through {@link OCIAuthProviders}.
+ *
+ * Several crypto endpoints can be given, comma separated in {@code oci.cryptoEndpoint} or in
+ * {@code oci.cryptoEndpoints}, for vaults replicated across regions with the same keys. Key calls are
+ * then routed by {@link OCIEndpointRouter} to the fastest healthy vault, the first one being the
+ * primary; certificates are always read from the region of the primary vault.
+ *
+ * The endpoints derived from the crypto endpoint can be overridden with the system properties
+ * {@code oci.managementEndpoint}, {@code oci.certificatesEndpoint},
+ * {@code oci.certificatesManagementEndpoint} and {@code oci.region}, and the OCI configuration file
+ * with {@code oci.configFile} and {@code oci.profile}, for instance to use a local stand-in server.
  */
-public class OCIKeyVaultClient {
+public class OCIKeyVaultClient implements AutoCloseable {
 	
 	private String certificateAuthorityId;
 	private String cryptoEndpoint;
 	private String managementEndpoint;
+	private String certificatesEndpoint;
+	private String certificatesManagementEndpoint;
 	private String region;
 	private AbstractAuthenticationDetailsProvider provider;
+	private volatile OCIServiceClients clients;
+	private final OCIKeyVersionCache keyVersions = OCIKeyVersionCache.getInstance();
+	private volatile OCIAsyncDispatcher asyncDispatcher;
+	private volatile OCIEndpointRouter router;
+	private OCISignScheduler scheduler;
+	private OCISignScheduler.Registration schedulerRegistration;
+
+	private static final Map<String, PublicKey> PUBLIC_KEYS = publicKeyCache(
+			OCIProperties.getInt("oci.publicKeyCacheMaxEntries", 1000));
+	private static final Set<String> BULK_KEY_IDS = new HashSet<>(splitList(System.getProperty("oci.sign.bulkKeyIds")));
+
+	private static final OCIMetrics.Operation SIGN_METRICS = OCIMetrics.getInstance().operation(OCIMetrics.SIGN);
+	private static final OCIMetrics.Operation GET_KEY_METRICS = OCIMetrics.getInstance().operation(OCIMetrics.GET_KEY);
+	private static final OCIMetrics.Operation GET_KEY_VERSION_METRICS = OCIMetrics.getInstance()
+			.operation(OCIMetrics.GET_KEY_VERSION);
+	private static final OCIMetrics.Operation GET_CERTIFICATE_METRICS = OCIMetrics.getInstance()
+			.operation(OCIMetrics.GET_CERTIFICATE);
+	private static final OCIMetrics.Operation GET_CERTIFICATE_AUTHORITY_METRICS = OCIMetrics.getInstance()
+			.operation(OCIMetrics.GET_CERTIFICATE_AUTHORITY);
+	private static final OCIMetrics.Cache KEY_VERSION_CACHE_METRICS = OCIMetrics.getInstance().cache("keyVersion");
+	private static final OCIMetrics.Cache PUBLIC_KEY_CACHE_METRICS = OCIMetrics.getInstance().cache("publicKey");
+	private static final OCIMetrics.Cache KEY_METADATA_CACHE_METRICS = OCIMetrics.getInstance().cache("keyMetadata");
 
 	private static final Logger LOGGER = Logger.getLogger(OCIKeyVaultClient.class.getName());
 
@@ -52,24 +104,26 @@ public class OCIKeyVaultClient {
 		LOGGER.log(INFO, "OCIKeyVaultClient: initialize: method is invoked {0} {1}",
 				new Object[] { certificateAuthorityId, cryptoEndpoint });
 		this.certificateAuthorityId = certificateAuthorityId;
-		this.cryptoEndpoint = cryptoEndpoint;
-		this.managementEndpoint = this.cryptoEndpoint.replace("crypto", "management");
-		this.region = this.cryptoEndpoint.substring(this.cryptoEndpoint.indexOf("kms.") + 4,
-				this.cryptoEndpoint.indexOf(".o"));
-
-		String ociAuthType = System.getProperty("oci.authType");
-		LOGGER.log(INFO, "OCIKeyVaultClient: initialize: OCI Authentication type is: {0}", ociAuthType);
-		if (ociAuthType != null && !ociAuthType.isEmpty() && ociAuthType.equalsIgnoreCase("instance_principal")) {
-			this.provider = InstancePrincipalsAuthenticationDetailsProvider.builder().build();
-			return;
-		}
-		ConfigFileReader.ConfigFile configFile;
-		try {
-			configFile = ConfigFileReader.parseDefault();
-			this.provider = new ConfigFileAuthenticationDetailsProvider(configFile);
-		} catch (IOException ioe) {
-			LOGGER.log(SEVERE, "OCI KeyVault client initialization failed {0}", ioe.getMessage());
+		List<String> cryptoEndpoints = splitList(cryptoEndpoint, System.getProperty("oci.cryptoEndpoints"));
+		this.cryptoEndpoint = cryptoEndpoints.isEmpty() ? cryptoEndpoint : cryptoEndpoints.get(0);
+		this.managementEndpoint = System.getProperty("oci.managementEndpoint",
+				this.cryptoEndpoint.replace("crypto", "management"));
+		this.certificatesEndpoint = System.getProperty("oci.certificatesEndpoint");
+		this.certificatesManagementEndpoint = System.getProperty("oci.certificatesManagementEndpoint");
+		this.region = System.getProperty("oci.region", regionOf(this.cryptoEndpoint));
+
+		this.provider = OCIAuthProviders.fromSystemProperties();
+		this.clients = OCIServiceClients.acquire(this.region, this.cryptoEndpoint, this.managementEndpoint,
+				this.certificatesEndpoint, this.certificatesManagementEndpoint, this.provider);
+		List<OCIEndpointRouter.Route> routes = new ArrayList<>();
+		routes.add(primaryRoute());
+		for (String replica : cryptoEndpoints.subList(Math.min(1, cryptoEndpoints.size()), cryptoEndpoints.size())) {
+			// A replica lives in its own region, and its management endpoint follows the usual naming.
+			routes.add(new OCIEndpointRouter.Route(replica, OCIServiceClients.acquire(regionOf(replica), replica,
+					replica.replace("crypto", "management"), this.provider)));
 		}
+		this.router = new OCIEndpointRouter(routes);
+		initScheduler();
 		LOGGER.log(INFO, "OCIKeyVaultClient: initialize: method is complete");
 	}
 
@@ -83,6 +137,96 @@ public class OCIKeyVaultClient {
 		this.initialize(certificateAuthorityId, cryptoEndpoint);
 	}
 
+	/**
+	 * Constructor with explicit endpoints and authentication, for vaults which do not follow the
+	 * {@code kms.<region>.oraclecloud.com} endpoint naming, such as local test servers.
+	 *
+	 * @param certificateAuthorityId the certificate authority id
+	 * @param region                 the region of the certificates service
+	 * @param cryptoEndpoint         the vault crypto endpoint
+	 * @param managementEndpoint     the vault management endpoint
+	 * @param provider               the authentication provider
+	 */
+	public OCIKeyVaultClient(String certificateAuthorityId, String region, String cryptoEndpoint,
+			String managementEndpoint, AbstractAuthenticationDetailsProvider provider) {
+		this(certificateAuthorityId, region, cryptoEndpoint, managementEndpoint, null, null, provider);
+	}
+
+	/**
+	 * Constructor with explicit endpoints for every service and explicit authentication.
+	 *
+	 * @param certificateAuthorityId         the certificate authority id
+	 * @param region                         the region of the certificates service
+	 * @param cryptoEndpoint                 the vault crypto endpoint
+	 * @param managementEndpoint             the vault management endpoint
+	 * @param certificatesEndpoint           the certificates endpoint, or null for the regional one
+	 * @param certificatesManagementEndpoint the certificates management endpoint, or null for the regional one
+	 * @param provider                       the authentication provider
+	 */
+	public OCIKeyVaultClient(String certificateAuthorityId, String region, String cryptoEndpoint,
+			String managementEndpoint, String certificatesEndpoint, String certificatesManagementEndpoint,
+			AbstractAuthenticationDetailsProvider provider) {
+		LOGGER.log(INFO, "OCIKeyVaultClient: Constructor with endpoints is invoked {0} {1}",
+				new Object[] { cryptoEndpoint, managementEndpoint });
+		this.certificateAuthorityId = certificateAuthorityId;
+		this.region = region;
+		this.cryptoEndpoint = cryptoEndpoint;
+		this.managementEndpoint = managementEndpoint;
+		this.certificatesEndpoint = certificatesEndpoint;
+		this.certificatesManagementEndpoint = certificatesManagementEndpoint;
+		this.provider = provider;
+		this.clients = OCIServiceClients.acquire(this.region, this.cryptoEndpoint, this.managementEndpoint,
+				this.certificatesEndpoint, this.certificatesManagementEndpoint, this.provider);
+		this.router = new OCIEndpointRouter(Collections.singletonList(primaryRoute()));
+		initScheduler();
+	}
+
+	private OCIEndpointRouter.Route primaryRoute() {
+		return new OCIEndpointRouter.Route(this.cryptoEndpoint, OCIServiceClients.acquire(this.region,
+				this.cryptoEndpoint, this.managementEndpoint, this.certificatesEndpoint,
+				this.certificatesManagementEndpoint, this.provider));
+	}
+
+	/**
+	 * Get the distinct values of the given comma separated lists, in order.
+	 */
+	private static List<String> splitList(String... lists) {
+		Set<String> values = new LinkedHashSet<>();
+		for (String list : lists) {
+			if (list != null) {
+				for (String value : list.split(",")) {
+					if (!value.trim().isEmpty()) {
+						values.add(value.trim());
+					}
+				}
+			}
+		}
+		return new ArrayList<>(values);
+	}
+
+	/**
+	 * Share the signing capacity of the vaults of this client, the sum of their concurrency limits,
+	 * between the priority classes.
+	 */
+	private void initScheduler() {
+		List<OCIConcurrencyLimiter> limiters = new ArrayList<>();
+		for (OCIEndpointRouter.Route route : router.getRoutes()) {
+			limiters.add(route.getLimiter());
+		}
+		this.scheduler = OCISignScheduler.forEndpoint(this.cryptoEndpoint);
+		this.schedulerRegistration = scheduler.register(limiters);
+	}
+
+	/**
+	 * Get the region of a {@code kms.<region>.oraclecloud.com} endpoint.
+	 */
+	private static String regionOf(String endpoint) {
+		if (endpoint != null && endpoint.contains("kms.") && endpoint.contains(".o")) {
+			return endpoint.substring(endpoint.indexOf("kms.") + 4, endpoint.indexOf(".o"));
+		}
+		return null;
+	}
+
 	public static OCIKeyVaultClient createKeyVaultClientBySystemProperty() {
 		LOGGER.log(INFO, "OCIKeyVaultClient: createKeyVaultClientBySystemProperty is invoked");
 		String certificateAuthorityId = System.getProperty("oci.certAuthorityId");
@@ -98,19 +242,44 @@ public class OCIKeyVaultClient {
 	public List<String> getAliases() {
 		LOGGER.log(INFO, "OCIKeyVaultClient: getAliases: is invoked");
 		ArrayList<String> result = new ArrayList<>();
-		GetCertificateAuthorityRequest certAuthReq = GetCertificateAuthorityRequest.builder()
-				.certificateAuthorityId(this.certificateAuthorityId).opcRequestId("CertAuthorityAliases").build();
-		CertificatesManagementClient cmc = CertificatesManagementClient.builder().region(this.region)
-				.httpProvider(new Jersey3HttpProvider()).build(provider);
-		GetCertificateAuthorityResponse certAuthRes = cmc.getCertificateAuthority(certAuthReq);
-		if (certAuthRes != null && certAuthRes.get__httpStatusCode__() == 200) {
-			result.add(certAuthRes.getCertificateAuthority().getName());
+		CertificateAuthority certificateAuthority = getCertificateAuthority();
+		if (certificateAuthority != null) {
+			result.add(certificateAuthority.getName());
 		}
-		cmc.close();
 		LOGGER.log(INFO, "OCIKeyVaultClient: getAliases: is complete {0}", result);
 		return result;
 	}
 
+	/**
+	 * Get the certificate authority metadata: its name, which is used as the alias, and its KMS key.
+	 *
+	 * @return the certificate authority, or null if not found.
+	 */
+	public CertificateAuthority getCertificateAuthority() {
+		return getCertificateAuthority(this.certificateAuthorityId);
+	}
+
+	/**
+	 * Get the metadata of the given certificate authority.
+	 *
+	 * @param certificateAuthorityId the certificate authority id.
+	 * @return the certificate authority, or null if not found.
+	 */
+	public CertificateAuthority getCertificateAuthority(String certificateAuthorityId) {
+		LOGGER.log(INFO, "OCIKeyVaultClient: getCertificateAuthority: is invoked for {0}", certificateAuthorityId);
+		GetCertificateAuthorityRequest certAuthReq = GetCertificateAuthorityRequest.builder()
+				.certificateAuthorityId(certificateAuthorityId).opcRequestId("CertAuthorityAliases").build();
+		CertificatesManagementClient cmc = clients().certificatesManagement();
+		GetCertificateAuthorityResponse certAuthRes = call(GET_CERTIFICATE_AUTHORITY_METRICS,
+				() -> cmc.getCertificateAuthority(certAuthReq), GetCertificateAuthorityResponse::get__httpStatusCode__);
+		if (certAuthRes != null && certAuthRes.get__httpStatusCode__() == 200) {
+			return certAuthRes.getCertificateAuthority();
+		}
+		LOGGER.log(SEVERE, "OCIKeyVaultClient: getCertificateAuthority: is returning NULL for {0}",
+				certificateAuthorityId);
+		return null;
+	}
+
 	/**
 	 * Get the certificate.
 	 *
@@ -120,30 +289,84 @@ public class OCIKeyVaultClient {
 	public Certificate getCertificate(String alias) {
 		LOGGER.log(INFO, "OCIKeyVaultClient: getCertificate: Get Certificate method is invoked for the alias {0}",
 				alias);
-		X509Certificate certificate = null;
+		Certificate certificate = getCertificateAuthorityCertificate(this.certificateAuthorityId);
+		LOGGER.log(INFO, "OCIKeyVaultClient: getCertificate: Get Certificate method is finished for the alias {0}",
+				alias);
+		return certificate;
+	}
+
+	/**
+	 * Get the certificate of the given certificate authority from its current bundle.
+	 *
+	 * @param certificateAuthorityId the certificate authority id.
+	 * @return the certificate, or null if not found.
+	 */
+	public Certificate getCertificateAuthorityCertificate(String certificateAuthorityId) {
+		X509Certificate[] chain = getCertificateAuthorityCertificateChain(certificateAuthorityId);
+		return chain == null ? null : chain[0];
+	}
+
+	/**
+	 * Get the certificate chain of the given certificate authority from its current bundle, parsed from
+	 * its {@code certificatePem} followed by its {@code certChainPem}.
+	 *
+	 * @param certificateAuthorityId the certificate authority id.
+	 * @return the chain, with the certificate of the certificate authority first, or null if not found.
+	 */
+	public X509Certificate[] getCertificateAuthorityCertificateChain(String certificateAuthorityId) {
+		return getCertificateAuthorityCertificateChain(certificateAuthorityId, null);
+	}
+
+	/**
+	 * Get the certificate chain of a version of the given certificate authority.
+	 *
+	 * @param certificateAuthorityId the certificate authority id.
+	 * @param versionNumber          the version, as read from the metadata of the certificate authority,
+	 *                               or null for the current version.
+	 * @return the chain, with the certificate of the certificate authority first, or null if not found.
+	 */
+	public X509Certificate[] getCertificateAuthorityCertificateChain(String certificateAuthorityId,
+			Long versionNumber) {
 		GetCertificateAuthorityBundleRequest certAuthBReq = GetCertificateAuthorityBundleRequest.builder()
-				.certificateAuthorityId(certificateAuthorityId).opcRequestId("GetCertAuthorityBundle").build();
-		CertificatesClient cc = CertificatesClient.builder().region(this.region).httpProvider(new Jersey3HttpProvider())
-				.build(provider);
-		GetCertificateAuthorityBundleResponse certAuthBRes = cc.getCertificateAuthorityBundle(certAuthBReq);
+				.certificateAuthorityId(certificateAuthorityId).versionNumber(versionNumber)
+				.opcRequestId("GetCertAuthorityBundle").build();
+		CertificatesClient cc = clients().certificates();
+		GetCertificateAuthorityBundleResponse certAuthBRes = call(GET_CERTIFICATE_METRICS,
+				() -> cc.getCertificateAuthorityBundle(certAuthBReq), GetCertificateAuthorityBundleResponse::get__httpStatusCode__);
 		if (certAuthBRes != null && certAuthBRes.get__httpStatusCode__() == 200) {
-			String certificateString = certAuthBRes.getCertificateAuthorityBundle().getCertificatePem();
-			if (certificateString != null) {
-				certificateString = certificateString.replace("-----BEGIN CERTIFICATE-----", "")
-						.replace("-----END CERTIFICATE-----", "").replace("\n", "");
-				try {
-					CertificateFactory cf = CertificateFactory.getInstance("X.509");
-					certificate = (X509Certificate) cf.generateCertificate(
-							new ByteArrayInputStream(Base64.getDecoder().decode(certificateString)));
-				} catch (CertificateException ce) {
-					LOGGER.log(SEVERE, "OCIKeyVaultClient getCertificate is invalid {0}", ce.getMessage());
-				}
+			CertificateAuthorityBundle bundle = certAuthBRes.getCertificateAuthorityBundle();
+			if (bundle.getCertificatePem() != null) {
+				return parseCertificateChainPem(bundle.getCertificatePem(), bundle.getCertChainPem());
 			}
 		}
-		LOGGER.log(INFO, "OCIKeyVaultClient: getCertificate: Get Certificate method is finished for the alias {0}",
-				alias);
-		cc.close();
-		return certificate;
+		return null;
+	}
+
+	/**
+	 * Parse a PEM encoded certificate.
+	 *
+	 * @param certificatePem the PEM encoded certificate
+	 * @return the certificate, or null if it is invalid
+	 */
+	public static X509Certificate parseCertificatePem(String certificatePem) {
+		X509Certificate[] chain = parseCertificateChainPem(certificatePem);
+		return chain == null ? null : chain[0];
+	}
+
+	/**
+	 * Parse PEM encoded certificates into one chain.
+	 *
+	 * @param certificatePems the PEM encoded certificates, in chain order
+	 * @return the chain, or null if it is empty or invalid
+	 */
+	public static X509Certificate[] parseCertificateChainPem(String... certificatePems) {
+		try {
+			X509Certificate[] chain = OCIPemCertificates.parseChain(certificatePems);
+			return chain.length == 0 ? null : chain;
+		} catch (CertificateException ce) {
+			LOGGER.log(SEVERE, "OCIKeyVaultClient getCertificate is invalid {0}", ce.getMessage());
+			return null;
+		}
 	}
 
 	/**
@@ -155,35 +378,14 @@ public class OCIKeyVaultClient {
 	 */
 	public Key getKey(String alias, char[] password) {
 		LOGGER.log(INFO, "OCIKeyVaultClient: getKey: get Key method is invoked for the alias {0}", alias);
-		GetCertificateAuthorityRequest certAuthReq = GetCertificateAuthorityRequest.builder()
-				.certificateAuthorityId(this.certificateAuthorityId).opcRequestId("CertAuthorityAliases").build();
-		CertificatesManagementClient cmc = CertificatesManagementClient.builder().region(this.region)
-				.httpProvider(new Jersey3HttpProvider()).build(provider);
-		GetCertificateAuthorityResponse certAuthRes = cmc.getCertificateAuthority(certAuthReq);
-		String kmsKeyID = null;
-		if (certAuthRes != null && certAuthRes.get__httpStatusCode__() == 200) {
-			kmsKeyID = certAuthRes.getCertificateAuthority().getKmsKeyId();
-		}
-
-		if (kmsKeyID != null) {
-			GetKeyRequest getKReq = GetKeyRequest.builder().keyId(kmsKeyID).opcRequestId("GetKeyForCert").build();
-			KmsManagementClient kmsManagementClient = KmsManagementClient.builder().endpoint(managementEndpoint)
-					.httpProvider(new Jersey3HttpProvider()).build(provider);
-			GetKeyResponse getKRes = kmsManagementClient.getKey(getKReq);
-			if (getKRes != null && getKRes.get__httpStatusCode__() == 200) {
-				com.oracle.bmc.keymanagement.model.Key ociKey = getKRes.getKey();
-				String alg = ociKey.getKeyShape().getAlgorithm().getValue();
-				int length = ociKey.getKeyShape().getLength();
-				String keyId = ociKey.getId();
-				String keyName = ociKey.getDisplayName();
+		CertificateAuthority certificateAuthority = getCertificateAuthority();
+		if (certificateAuthority != null && certificateAuthority.getKmsKeyId() != null) {
+			Key key = getPrivateKey(certificateAuthority.getKmsKeyId());
+			if (key != null) {
 				LOGGER.log(INFO, "OCIKeyVaultClient: getKey: get Key method is complete for the alias {0}", alias);
-				kmsManagementClient.close();
-				cmc.close();
-				return new OCIPrivateKey(alg, keyId, keyName, length, this);
+				return key;
 			}
-			kmsManagementClient.close();
 		}
-		cmc.close();
 		LOGGER.log(SEVERE, "OCIKeyVaultClient: getKey: get Key method is returning NULL for the alias {0}", alias);
 		return null;
 
@@ -196,21 +398,45 @@ public class OCIKeyVaultClient {
 	 * @return the key.
 	 */
 	public Key getPrivateKey(String keyId) {
+		return revalidatePrivateKey(keyId, null);
+	}
+
+	/**
+	 * Revalidate a key loaded before. The metadata of the KMS key is read again, and the previous key is
+	 * kept unless the ETag or the current key version of the metadata changed.
+	 *
+	 * @param keyId    The keyId of the private key.
+	 * @param previous the key loaded before, or null to always build a new key.
+	 * @return the previous key if it is unchanged, else the new key, or null if the key cannot be read.
+	 */
+	public Key revalidatePrivateKey(String keyId, Key previous) {
 		LOGGER.log(INFO, "OCIKeyVaultClient: getPrivateKey: get Key method is invoked for the key {0}", keyId);
 		GetKeyRequest getKReq = GetKeyRequest.builder().keyId(keyId).opcRequestId("GetKeyForCert").build();
-		KmsManagementClient kmsManagementClient = KmsManagementClient.builder().endpoint(managementEndpoint)
-				.httpProvider(new Jersey3HttpProvider()).build(provider);
-		GetKeyResponse getKRes = kmsManagementClient.getKey(getKReq);
+		GetKeyResponse getKRes = call(GET_KEY_METRICS,
+				() -> router().call(route -> route.getManagementLimiter()
+						.call(() -> OCIKmsTransports.await(route.getTransport().getKey(getKReq)))),
+				GetKeyResponse::get__httpStatusCode__);
 		if (getKRes != null && getKRes.get__httpStatusCode__() == 200) {
 			com.oracle.bmc.keymanagement.model.Key ociKey = getKRes.getKey();
+			keyVersions.put(keyId, ociKey.getCurrentKeyVersion());
+			String metadataVersion = getKRes.getEtag() + "/" + ociKey.getCurrentKeyVersion();
+			if (previous instanceof OCIPrivateKey
+					&& metadataVersion.equals(((OCIPrivateKey) previous).getMetadataVersion())) {
+				KEY_METADATA_CACHE_METRICS.hit();
+				LOGGER.log(FINE, "OCIKeyVaultClient: getKey: the key {0} is unchanged", keyId);
+				return previous;
+			}
+			if (previous != null) {
+				KEY_METADATA_CACHE_METRICS.miss();
+			}
 			String alg = ociKey.getKeyShape().getAlgorithm().getValue();
 			int length = ociKey.getKeyShape().getLength();
 			String keyName = ociKey.getDisplayName();
-			kmsManagementClient.close();
+			OCIPrivateKey key = new OCIPrivateKey(alg, keyId, keyName, length, this);
+			key.setMetadataVersion(metadataVersion);
 			LOGGER.log(INFO, "OCIKeyVaultClient: getKey: get Key method is complete for the key {0}", keyId);
-			return new OCIPrivateKey(alg, keyId, keyName, length, this);
+			return key;
 		}
-		kmsManagementClient.close();
 		LOGGER.log(SEVERE, "OCIKeyVaultClient: getKey: get Key method is returning NULL for the key {0}", keyId);
 		return null;
 
@@ -219,43 +445,344 @@ public class OCIKeyVaultClient {
 	/**
 	 * get signature by key vault
 	 * 
+	 * The key version is taken from {@link OCIKeyVersionCache}, so a signature normally costs a single
+	 * Sign call. When the cached version is rejected because it was disabled or rotated away, the
+	 * cache entry is dropped and the call is retried once with the current key version. Throttling,
+	 * server errors and timeouts are retried, and optionally hedged, by the {@link OCIResilience} of
+	 * the crypto endpoint.
+	 * 
 	 * @param digestName  digestName
 	 * @param digestValue digestValue
 	 * @param signAlgorithm signAlgorithm
 	 * @param keyId       The key id
 	 * @return signature
+	 * @throws ProviderException if no signature could be obtained, including
+	 *                           {@link OCIResilience.CircuitOpenException} when the vault is failing
+	 * @throws BmcException      if the last Sign call failed
 	 */
 	public byte[] getSignedWithPrivateKey(String digestName, String digestValue, SigningAlgorithm signAlgorithm,
 			String keyId) {
+		return getSignedWithPrivateKey(digestName, digestValue, signAlgorithm, keyId, null);
+	}
+
+	/**
+	 * get signature by key vault with a priority class.
+	 * 
+	 * The signature waits for a slot of its priority class in the {@link OCISignScheduler} of the
+	 * vault. Without a priority, the priority of the calling thread applies, then
+	 * {@code oci.sign.bulkKeyIds}, then {@link OCISignPriority#INTERACTIVE}.
+	 * 
+	 * @param digestName  digestName
+	 * @param digestValue digestValue
+	 * @param signAlgorithm signAlgorithm
+	 * @param keyId       The key id
+	 * @param priority    the priority class, may be null
+	 * @return signature
+	 */
+	public byte[] getSignedWithPrivateKey(String digestName, String digestValue, SigningAlgorithm signAlgorithm,
+			String keyId, OCISignPriority priority) {
+		return scheduler.call(priorityOf(keyId, OCISignPriority.resolve(priority, null)),
+				() -> signDigest(digestName, digestValue, signAlgorithm, keyId));
+	}
+
+	private static OCISignPriority priorityOf(String keyId, OCISignPriority requested) {
+		if (requested != null) {
+			return requested;
+		}
+		return BULK_KEY_IDS.contains(keyId) ? OCISignPriority.BULK : OCISignPriority.INTERACTIVE;
+	}
+
+	private byte[] signDigest(String digestName, String digestValue, SigningAlgorithm signAlgorithm, String keyId) {
 		LOGGER.log(INFO, "OCIKeyVaultClient: getSigned: is invoked with arguments: {0} {1} {2} {3}",
 				new Object[] { digestName, digestValue, signAlgorithm.getValue(), keyId });
 
-		// Get the key version for the selected key
+		long start = SIGN_METRICS.start();
+		int status = 0;
+		try {
+			String keyVersionID = getKeyVersion(keyId);
+			if (keyVersionID != null) {
+				SignResponse signResponse;
+				try {
+					signResponse = sign(keyId, keyVersionID, digestValue, signAlgorithm);
+				} catch (BmcException be) {
+					if (!isStaleKeyVersion(be) || keyVersions.isPinned(keyId)) {
+						throw be;
+					}
+					LOGGER.log(INFO, "OCIKeyVaultClient: getSigned: key version {0} was rejected, reloading it",
+							keyVersionID);
+					keyVersions.invalidate(keyId);
+					keyVersionID = getKeyVersion(keyId);
+					signResponse = keyVersionID == null ? null : sign(keyId, keyVersionID, digestValue, signAlgorithm);
+				}
+				if (signResponse != null && signResponse.get__httpStatusCode__() == 200) {
+					LOGGER.log(INFO, "OCIKeyVaultClient: getSigned: is returning with signature");
+					byte[] signature = Base64.getDecoder().decode(signResponse.getSignedData().getSignature().getBytes());
+					SIGN_METRICS.success(start);
+					start = -1;
+					return signature;
+				}
+				status = signResponse == null ? 0 : signResponse.get__httpStatusCode__();
+				keyVersions.invalidate(keyId);
+			}
+			LOGGER.log(SEVERE, "OCIKeyVaultClient: getSigned: no signature for the key {0}", keyId);
+			throw new ProviderException("OCI Key Vault returned no signature for the key " + keyId
+					+ (status == 0 ? "" : ", status " + status));
+		} catch (BmcException be) {
+			status = be.getStatusCode();
+			throw be;
+		} finally {
+			if (start != -1) {
+				SIGN_METRICS.failure(start, status);
+			}
+		}
+	}
+
+	/**
+	 * get signature by key vault without blocking the caller.
+	 * 
+	 * The blocking SDK calls run on the executor set with {@link #setAsyncExecutor(Executor, int)}, by
+	 * default the shared {@link OCIExecutors#blockingExecutor()} with at most
+	 * {@code oci.async.maxInFlight} requests in flight for this client: 256 by default, 4096 when the
+	 * calls run on virtual threads.
+	 * 
+	 * @param digestName  digestName
+	 * @param digestValue digestValue
+	 * @param signAlgorithm signAlgorithm
+	 * @param keyId       The key id
+	 * @return future completed with the signature
+	 */
+	public CompletableFuture<byte[]> getSignedWithPrivateKeyAsync(String digestName, String digestValue,
+			SigningAlgorithm signAlgorithm, String keyId) {
+		return getSignedWithPrivateKeyAsync(digestName, digestValue, signAlgorithm, keyId, null);
+	}
+
+	/**
+	 * get signature by key vault with a priority class without blocking the caller.
+	 * 
+	 * The priority of the calling thread is captured when this method is called.
+	 * 
+	 * @param digestName  digestName
+	 * @param digestValue digestValue
+	 * @param signAlgorithm signAlgorithm
+	 * @param keyId       The key id
+	 * @param priority    the priority class, may be null
+	 * @return future completed with the signature
+	 */
+	public CompletableFuture<byte[]> getSignedWithPrivateKeyAsync(String digestName, String digestValue,
+			SigningAlgorithm signAlgorithm, String keyId, OCISignPriority priority) {
+		OCISignPriority requested = priorityOf(keyId, OCISignPriority.resolve(priority, null));
+		return getAsyncDispatcher()
+				.submit(() -> getSignedWithPrivateKey(digestName, digestValue, signAlgorithm, keyId, requested));
+	}
+
+	/**
+	 * Set the executor and the in-flight cap used by the asynchronous sign method.
+	 *
+	 * @param executor    the executor running the blocking sign calls
+	 * @param maxInFlight the maximum number of sign requests in flight for this client
+	 */
+	public void setAsyncExecutor(Executor executor, int maxInFlight) {
+		this.asyncDispatcher = new OCIAsyncDispatcher(executor, maxInFlight);
+	}
+
+	private OCIAsyncDispatcher getAsyncDispatcher() {
+		OCIAsyncDispatcher dispatcher = asyncDispatcher;
+		if (dispatcher == null) {
+			synchronized (this) {
+				if (asyncDispatcher == null) {
+					asyncDispatcher = new OCIAsyncDispatcher(OCIExecutors.blockingExecutor(),
+							OCIProperties.getInt("oci.async.maxInFlight", OCIExecutors.usesVirtualThreads() ? 4096 : 256));
+				}
+				dispatcher = asyncDispatcher;
+			}
+		}
+		return dispatcher;
+	}
+
+	/**
+	 * Get the public key of the current version of a KMS key, to verify signatures locally.
+	 *
+	 * @param keyId The key id
+	 * @return the public key, or null if it cannot be loaded
+	 */
+	public PublicKey getPublicKey(String keyId) {
+		String keyVersionID = getKeyVersion(keyId);
+		return keyVersionID == null ? null : getPublicKey(keyId, keyVersionID);
+	}
+
+	/**
+	 * Get the public key of a KMS key version. Key versions are immutable, so the public key is
+	 * fetched once per key version and cached; the cache keeps the {@code oci.publicKeyCacheMaxEntries}
+	 * (1000 by default) most recently used public keys.
+	 *
+	 * @param keyId        The key id
+	 * @param keyVersionId The key version id
+	 * @return the public key, or null if it cannot be loaded
+	 */
+	public PublicKey getPublicKey(String keyId, String keyVersionId) {
+		PublicKey publicKey = PUBLIC_KEYS.get(keyVersionId);
+		if (publicKey != null) {
+			PUBLIC_KEY_CACHE_METRICS.hit();
+			return publicKey;
+		}
+		PUBLIC_KEY_CACHE_METRICS.miss();
+		LOGGER.log(INFO, "OCIKeyVaultClient: getPublicKey: loading the public key of the key version {0}",
+				keyVersionId);
+		GetKeyVersionRequest keyVersionReq = GetKeyVersionRequest.builder().keyId(keyId).keyVersionId(keyVersionId)
+				.opcRequestId("GetPublicKey").build();
+		GetKeyVersionResponse keyVersionRes = call(GET_KEY_VERSION_METRICS,
+				() -> router().call(route -> route.getManagementLimiter()
+						.call(() -> OCIKmsTransports.await(route.getTransport().getKeyVersion(keyVersionReq)))),
+				GetKeyVersionResponse::get__httpStatusCode__);
+		if (keyVersionRes != null && keyVersionRes.get__httpStatusCode__() == 200
+				&& keyVersionRes.getKeyVersion().getPublicKey() != null) {
+			publicKey = parsePublicKey(keyVersionRes.getKeyVersion().getPublicKey());
+			if (publicKey != null) {
+				PUBLIC_KEYS.put(keyVersionId, publicKey);
+			}
+			return publicKey;
+		}
+		LOGGER.log(SEVERE, "OCIKeyVaultClient: getPublicKey: no public key for the key version {0}", keyVersionId);
+		return null;
+	}
+
+	/**
+	 * A map which evicts its least recently used entry beyond the given size.
+	 */
+	private static Map<String, PublicKey> publicKeyCache(int maxEntries) {
+		return Collections.synchronizedMap(new LinkedHashMap<String, PublicKey>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PublicKey> eldest) {
+				return size() > Math.max(1, maxEntries);
+			}
+		});
+	}
+
+	private static PublicKey parsePublicKey(String publicKeyPem) {
+		String encoded = publicKeyPem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+		X509EncodedKeySpec keySpec = new X509EncodedKeySpec(Base64.getDecoder().decode(encoded));
+		for (String algorithm : new String[] { "RSA", "EC" }) {
+			try {
+				return KeyFactory.getInstance(algorithm).generatePublic(keySpec);
+			} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+				LOGGER.log(INFO, "OCIKeyVaultClient: public key is not an {0} key", algorithm);
+			}
+		}
+		LOGGER.log(SEVERE, "OCIKeyVaultClient: public key could not be parsed");
+		return null;
+	}
+
+	/**
+	 * Pin the key version used to sign with a key.
+	 *
+	 * @param keyId        The key id
+	 * @param keyVersionId The key version id, or null to go back to the current key version
+	 */
+	public void pinKeyVersion(String keyId, String keyVersionId) {
+		if (keyVersionId == null) {
+			keyVersions.unpin(keyId);
+		} else {
+			keyVersions.pin(keyId, keyVersionId);
+		}
+	}
+
+	/**
+	 * Get the key version to sign with, from the cache or else from the current key version in KMS.
+	 */
+	private String getKeyVersion(String keyId) {
+		String keyVersionID = keyVersions.get(keyId);
+		if (keyVersionID != null) {
+			KEY_VERSION_CACHE_METRICS.hit();
+			return keyVersionID;
+		}
+		KEY_VERSION_CACHE_METRICS.miss();
 		GetKeyRequest keyReq = GetKeyRequest.builder().keyId(keyId).build();
-		KmsManagementClient kmsManagementClient = KmsManagementClient.builder().endpoint(managementEndpoint)
-				.httpProvider(new Jersey3HttpProvider()).build(provider);
-		GetKeyResponse keyRes = kmsManagementClient.getKey(keyReq);
+		GetKeyResponse keyRes = call(GET_KEY_METRICS,
+				() -> router().call(route -> route.getManagementLimiter()
+						.call(() -> OCIKmsTransports.await(route.getTransport().getKey(keyReq)))),
+				GetKeyResponse::get__httpStatusCode__);
 		if (keyRes != null && keyRes.get__httpStatusCode__() == 200) {
-			String keyVersionID = keyRes.getKey().getCurrentKeyVersion();
-
-			// Now create Sign Request object and get it signed from OCI vault
-			SignDataDetails signDataDetails = SignDataDetails.builder().keyId(keyId).keyVersionId(keyVersionID)
-					.messageType(MessageType.Digest).signingAlgorithm(signAlgorithm)
-					.message(digestValue).build();
-			SignRequest signRequest = SignRequest.builder().signDataDetails(signDataDetails).build();
-			KmsCryptoClient kmsCryptoClient = KmsCryptoClient.builder().endpoint(this.cryptoEndpoint)
-					.httpProvider(new Jersey3HttpProvider()).build(provider);
-			SignResponse signResponse = kmsCryptoClient.sign(signRequest);
-			if (signResponse != null && signResponse.get__httpStatusCode__() == 200) {
-				kmsManagementClient.close();
-				kmsCryptoClient.close();
-				LOGGER.log(INFO, "OCIKeyVaultClient: getSigned: is returning with signature");
-				return Base64.getDecoder().decode(signResponse.getSignedData().getSignature().getBytes());
-			}
-			kmsCryptoClient.close();
+			keyVersionID = keyRes.getKey().getCurrentKeyVersion();
+			keyVersions.put(keyId, keyVersionID);
+		}
+		return keyVersionID;
+	}
+
+	private SignResponse sign(String keyId, String keyVersionID, String digestValue, SigningAlgorithm signAlgorithm) {
+		SignDataDetails signDataDetails = SignDataDetails.builder().keyId(keyId).keyVersionId(keyVersionID)
+				.messageType(MessageType.Digest).signingAlgorithm(signAlgorithm)
+				.message(digestValue).build();
+		// Retries are made by OCIResilience, which knows the latency and the circuit of the endpoint.
+		SignRequest signRequest = SignRequest.builder().signDataDetails(signDataDetails)
+				.retryConfiguration(RetryConfiguration.NO_RETRY_CONFIGURATION).build();
+		return router().call(route -> route.getResilience().call(() -> route.getLimiter()
+				.call(() -> OCIKmsTransports.await(route.getTransport().sign(signRequest)))));
+	}
+
+	/**
+	 * Run an SDK call and record it in the metrics of an operation.
+	 */
+	private static <T> T call(OCIMetrics.Operation metrics, Supplier<T> call, ToIntFunction<T> status) {
+		long start = metrics.start();
+		T response;
+		try {
+			response = call.get();
+		} catch (BmcException be) {
+			metrics.failure(start, be.getStatusCode());
+			throw be;
+		} catch (RuntimeException e) {
+			metrics.failure(start, 0);
+			throw e;
+		}
+		int code = response == null ? 0 : status.applyAsInt(response);
+		if (code == 200) {
+			metrics.success(start);
+		} else {
+			metrics.failure(start, code);
+		}
+		return response;
+	}
+
+	/**
+	 * A disabled, deleted or otherwise unusable key version is reported as a client error.
+	 */
+	private static boolean isStaleKeyVersion(BmcException be) {
+		int status = be.getStatusCode();
+		return status == 400 || status == 404 || status == 409;
+	}
+
+	private OCIServiceClients clients() {
+		OCIServiceClients current = clients;
+		if (current == null) {
+			throw new IllegalStateException("OCIKeyVaultClient is closed");
+		}
+		return current;
+	}
+
+	private OCIEndpointRouter router() {
+		OCIEndpointRouter current = router;
+		if (current == null) {
+			throw new IllegalStateException("OCIKeyVaultClient is closed");
+		}
+		return current;
+	}
+
+	/**
+	 * Release the shared SDK clients held by this client. Calls made afterwards, including signatures
+	 * with the keys of this client, throw {@link IllegalStateException}.
+	 */
+	@Override
+	public synchronized void close() {
+		LOGGER.log(INFO, "OCIKeyVaultClient: close: is invoked");
+		if (clients != null) {
+			schedulerRegistration.close();
+			clients.close();
+			clients = null;
+			router.close();
+			router = null;
 		}
-		kmsManagementClient.close();
-		LOGGER.log(SEVERE, "OCIKeyVaultClient: getSigned: is returning NULL");
-		return new byte[0];
 	}
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+/**
+ * Process wide cache of the key version used to sign with each KMS key.
+ *
+ * Entries expire after {@code oci.keyVersionCacheTtlSeconds} (300 seconds by default). A key version
+ * can be pinned, either through {@link #pin(String, String)} or with the system property
+ * {@code oci.keyVersionPins} as a comma separated list of {@code keyId=keyVersionId} pairs; pinned
+ * versions never expire and are never invalidated.
+ */
+public final class OCIKeyVersionCache {
+
+	// Declared first: building the instance logs the invalid pins.
+	private static final Logger LOGGER = Logger.getLogger(OCIKeyVersionCache.class.getName());
+
+	private static final OCIKeyVersionCache INSTANCE = new OCIKeyVersionCache(
+			TimeUnit.SECONDS.toNanos(OCIProperties.getLong("oci.keyVersionCacheTtlSeconds", 300)));
+
+	private final long ttlNanos;
+	private final Map<String, CachedVersion> versions = new ConcurrentHashMap<>();
+	private final Map<String, String> pinned = new ConcurrentHashMap<>();
+
+	OCIKeyVersionCache(long ttlNanos) {
+		this.ttlNanos = ttlNanos;
+		loadPins(System.getProperty("oci.keyVersionPins"));
+	}
+
+	/**
+	 * Get the shared cache.
+	 *
+	 * @return the shared cache
+	 */
+	public static OCIKeyVersionCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get the key version to sign with.
+	 *
+	 * @param keyId the key id
+	 * @return the pinned or cached key version, or null if unknown or expired
+	 */
+	public String get(String keyId) {
+		String pin = pinned.get(keyId);
+		if (pin != null) {
+			return pin;
+		}
+		CachedVersion cached = versions.get(keyId);
+		if (cached == null) {
+			return null;
+		}
+		if (System.nanoTime() - cached.loadedAt > ttlNanos) {
+			versions.remove(keyId, cached);
+			return null;
+		}
+		return cached.keyVersionId;
+	}
+
+	/**
+	 * Remember the current key version of a key.
+	 *
+	 * @param keyId        the key id
+	 * @param keyVersionId the current key version id
+	 */
+	public void put(String keyId, String keyVersionId) {
+		if (keyId != null && keyVersionId != null) {
+			versions.put(keyId, new CachedVersion(keyVersionId, System.nanoTime()));
+		}
+	}
+
+	/**
+	 * Forget the cached key version of a key. Pinned versions are kept.
+	 *
+	 * @param keyId the key id
+	 */
+	public void invalidate(String keyId) {
+		LOGGER.log(INFO, "OCIKeyVersionCache: invalidate is invoked for the key {0}", keyId);
+		versions.remove(keyId);
+	}
+
+	/**
+	 * Always sign with the given key version.
+	 *
+	 * @param keyId        the key id
+	 * @param keyVersionId the key version id
+	 */
+	public void pin(String keyId, String keyVersionId) {
+		pinned.put(keyId, keyVersionId);
+	}
+
+	/**
+	 * Remove the pinned key version of a key.
+	 *
+	 * @param keyId the key id
+	 */
+	public void unpin(String keyId) {
+		pinned.remove(keyId);
+	}
+
+	/**
+	 * Check whether the key version of a key is pinned.
+	 *
+	 * @param keyId the key id
+	 * @return true if pinned
+	 */
+	public boolean isPinned(String keyId) {
+		return pinned.containsKey(keyId);
+	}
+
+	private void loadPins(String pins) {
+		if (pins == null || pins.trim().isEmpty()) {
+			return;
+		}
+		for (String pin : pins.split(",")) {
+			int separator = pin.indexOf('=');
+			if (separator <= 0 || separator == pin.length() - 1) {
+				LOGGER.log(WARNING, "OCIKeyVersionCache: ignoring invalid key version pin {0}", pin);
+				continue;
+			}
+			pin(pin.substring(0, separator).trim(), pin.substring(separator + 1).trim());
+		}
+	}
+
+	private static final class CachedVersion {
+		private final String keyVersionId;
+		private final long loadedAt;
+
+		CachedVersion(String keyVersionId, long loadedAt) {
+			this.keyVersionId = keyVersionId;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
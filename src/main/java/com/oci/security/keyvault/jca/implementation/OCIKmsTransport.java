@@ -0,0 +1,78 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.oracle.bmc.auth.AbstractAuthenticationDetailsProvider;
+import com.oracle.bmc.keymanagement.requests.GetKeyRequest;
+import com.oracle.bmc.keymanagement.requests.GetKeyVersionRequest;
+import com.oracle.bmc.keymanagement.requests.SignRequest;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+
+/**
+ * Transport of the KMS calls made by {@link OCIKeyVaultClient} to one vault.
+ *
+ * The transport is chosen with {@code oci.transport}: {@code sdk}, the default, uses the shared SDK
+ * clients of {@link OCIServiceClients}; any other name selects the {@link Factory} of that name found
+ * with {@link java.util.ServiceLoader}. A failed call completes its future with a
+ * {@link com.oracle.bmc.model.BmcException} carrying the HTTP status, so retries, failover and
+ * concurrency limits work the same with every transport.
+ */
+public interface OCIKmsTransport extends AutoCloseable {
+
+	/**
+	 * Sign a message or digest.
+	 *
+	 * @param request the request
+	 * @return future completed with the response
+	 */
+	CompletableFuture<SignResponse> sign(SignRequest request);
+
+	/**
+	 * Get a key.
+	 *
+	 * @param request the request
+	 * @return future completed with the response
+	 */
+	CompletableFuture<GetKeyResponse> getKey(GetKeyRequest request);
+
+	/**
+	 * Get a key version.
+	 *
+	 * @param request the request
+	 * @return future completed with the response
+	 */
+	CompletableFuture<GetKeyVersionResponse> getKeyVersion(GetKeyVersionRequest request);
+
+	/**
+	 * Release the resources of the transport.
+	 */
+	@Override
+	void close();
+
+	/**
+	 * Creates the transports of one kind, registered in
+	 * {@code META-INF/services/com.oci.security.keyvault.jca.implementation.OCIKmsTransport$Factory}.
+	 */
+	interface Factory {
+
+		/**
+		 * Get the name selecting this transport in {@code oci.transport}.
+		 *
+		 * @return the name
+		 */
+		String getName();
+
+		/**
+		 * Create a transport to one vault.
+		 *
+		 * @param cryptoEndpoint     the vault crypto endpoint
+		 * @param managementEndpoint the vault management endpoint
+		 * @param provider           the authentication provider
+		 * @return the transport
+		 */
+		OCIKmsTransport create(String cryptoEndpoint, String managementEndpoint,
+				AbstractAuthenticationDetailsProvider provider);
+	}
+}
@@ -0,0 +1,128 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.security.ProviderException;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+import com.oracle.bmc.keymanagement.requests.GetKeyRequest;
+import com.oracle.bmc.keymanagement.requests.GetKeyVersionRequest;
+import com.oracle.bmc.keymanagement.requests.SignRequest;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+
+/**
+ * Selection of the {@link OCIKmsTransport} of a vault.
+ */
+public final class OCIKmsTransports {
+
+	/**
+	 * Name of the transport using the SDK clients.
+	 */
+	public static final String SDK = "sdk";
+
+	private static final Logger LOGGER = Logger.getLogger(OCIKmsTransports.class.getName());
+
+	private OCIKmsTransports() {
+	}
+
+	/**
+	 * Create the transport selected with {@code oci.transport} for the vault of a client set. A
+	 * transport which is not installed falls back to the SDK clients.
+	 *
+	 * @param clients the clients of the vault, which the SDK transport uses and does not release
+	 * @return the transport
+	 */
+	public static OCIKmsTransport create(OCIServiceClients clients) {
+		String name = System.getProperty("oci.transport", SDK);
+		if (!SDK.equalsIgnoreCase(name)) {
+			for (OCIKmsTransport.Factory factory : ServiceLoader.load(OCIKmsTransport.Factory.class,
+					OCIKmsTransports.class.getClassLoader())) {
+				if (factory.getName().equalsIgnoreCase(name)) {
+					LOGGER.log(INFO, "OCIKmsTransports: using the {0} transport for {1}",
+							new Object[] { name, clients.getCryptoEndpoint() });
+					return factory.create(clients.getCryptoEndpoint(), clients.getManagementEndpoint(),
+							clients.getProvider());
+				}
+			}
+			LOGGER.log(WARNING, "OCIKmsTransports: transport {0} is not installed, using the SDK clients", name);
+		}
+		return new SdkTransport(clients);
+	}
+
+	/**
+	 * Wait for a transport call. The wait is interruptible so a hedged or timed out call gives back its
+	 * thread.
+	 *
+	 * @param future the call
+	 * @param <T>    the response type
+	 * @return the response
+	 * @throws com.oracle.bmc.model.BmcException if the call failed
+	 */
+	public static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException ie) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ProviderException(ie);
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ProviderException(cause);
+		}
+	}
+
+	/**
+	 * The SDK clients. They block, so the call runs on the calling thread and the future is already
+	 * completed.
+	 */
+	private static final class SdkTransport implements OCIKmsTransport {
+
+		private final OCIServiceClients clients;
+
+		SdkTransport(OCIServiceClients clients) {
+			this.clients = clients;
+		}
+
+		@Override
+		public CompletableFuture<SignResponse> sign(SignRequest request) {
+			return completed(() -> clients.kmsCrypto().sign(request));
+		}
+
+		@Override
+		public CompletableFuture<GetKeyResponse> getKey(GetKeyRequest request) {
+			return completed(() -> clients.kmsManagement().getKey(request));
+		}
+
+		@Override
+		public CompletableFuture<GetKeyVersionResponse> getKeyVersion(GetKeyVersionRequest request) {
+			return completed(() -> clients.kmsManagement().getKeyVersion(request));
+		}
+
+		@Override
+		public void close() {
+			// The clients belong to the route.
+		}
+
+		private static <T> CompletableFuture<T> completed(Supplier<T> call) {
+			CompletableFuture<T> future = new CompletableFuture<>();
+			try {
+				future.complete(call.get());
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+			return future;
+		}
+	}
+}
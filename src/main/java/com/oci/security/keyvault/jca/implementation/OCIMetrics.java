@@ -0,0 +1,417 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process wide metrics of the provider: per operation call counts, latency histograms, in-flight calls
+ * and errors by HTTP status, cache hit ratios, counters and gauges.
+ *
+ * Recording only touches {@link LongAdder}s, so it is cheap on the signing hot path; it can be turned
+ * off with {@code oci.metrics.enabled=false}. The metrics are exposed as an MXBean and in the
+ * Prometheus text format through {@link #getPrometheusText()}.
+ */
+public final class OCIMetrics implements OCIMetricsMXBean {
+
+	/**
+	 * Object name of the MXBean.
+	 */
+	public static final String OBJECT_NAME = "com.oci.security.keyvault.jca:type=Metrics";
+
+	/**
+	 * Signing with a KMS key.
+	 */
+	public static final String SIGN = "sign";
+
+	/**
+	 * Reading a KMS key.
+	 */
+	public static final String GET_KEY = "getKey";
+
+	/**
+	 * Reading a KMS key version, for its public key.
+	 */
+	public static final String GET_KEY_VERSION = "getKeyVersion";
+
+	/**
+	 * Reading a certificate authority bundle.
+	 */
+	public static final String GET_CERTIFICATE = "getCertificate";
+
+	/**
+	 * Reading the metadata of a certificate authority.
+	 */
+	public static final String GET_CERTIFICATE_AUTHORITY = "getCertificateAuthority";
+
+	/**
+	 * Refreshing a certificate store.
+	 */
+	public static final String REFRESH = "refresh";
+
+	/**
+	 * Upper bounds of the latency histogram buckets in microseconds, the last bucket is unbounded.
+	 */
+	private static final long[] BUCKETS_MICROS = { 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000,
+			250000, 500000, 1000000, 2500000, 5000000, 10000000 };
+
+	private static final OCIMetrics INSTANCE = new OCIMetrics(OCIProperties.getBoolean("oci.metrics.enabled", true));
+
+	private static final Logger LOGGER = Logger.getLogger(OCIMetrics.class.getName());
+
+	private final boolean enabled;
+	private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongSupplier> counters = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+	OCIMetrics(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Get the shared metrics.
+	 *
+	 * @return the shared metrics
+	 */
+	public static OCIMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Register the shared metrics as an MXBean, unless {@code oci.metrics.jmx} is false or it is already
+	 * registered.
+	 */
+	public static void registerMBean() {
+		if (!INSTANCE.enabled || !OCIProperties.getBoolean("oci.metrics.jmx", true)) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			synchronized (OCIMetrics.class) {
+				if (!server.isRegistered(name)) {
+					server.registerMBean(INSTANCE, name);
+					LOGGER.log(INFO, "OCIMetrics: registered the MXBean {0}", OBJECT_NAME);
+				}
+			}
+		} catch (JMException | SecurityException e) {
+			LOGGER.log(WARNING, "OCIMetrics: cannot register the MXBean: {0}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Get the metrics of an operation.
+	 *
+	 * @param name the operation name
+	 * @return the operation metrics
+	 */
+	public Operation operation(String name) {
+		return operations.computeIfAbsent(name, n -> new Operation(enabled));
+	}
+
+	/**
+	 * Get the metrics of a cache.
+	 *
+	 * @param name the cache name
+	 * @return the cache metrics
+	 */
+	public Cache cache(String name) {
+		return caches.computeIfAbsent(name, n -> new Cache(enabled));
+	}
+
+	/**
+	 * Register a counter, a total which only grows, replacing any counter with the same name. It is
+	 * exported to Prometheus with the {@code _total} suffix.
+	 *
+	 * @param name    the counter name, without the suffix
+	 * @param counter the counter
+	 */
+	public void registerCounter(String name, LongSupplier counter) {
+		counters.put(name, counter);
+	}
+
+	/**
+	 * Register a gauge, replacing any gauge with the same name.
+	 *
+	 * @param name  the gauge name
+	 * @param gauge the gauge
+	 */
+	public void registerGauge(String name, LongSupplier gauge) {
+		gauges.put(name, gauge);
+	}
+
+	@Override
+	public Map<String, Long> getCallCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		operations.forEach((name, operation) -> counts.put(name, operation.count.sum()));
+		return counts;
+	}
+
+	@Override
+	public Map<String, Long> getErrorCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		operations.forEach((name, operation) -> operation.errors
+				.forEach((status, count) -> counts.put(name + "." + statusLabel(status), count.sum())));
+		return counts;
+	}
+
+	@Override
+	public Map<String, Long> getInFlight() {
+		Map<String, Long> inFlight = new TreeMap<>();
+		operations.forEach((name, operation) -> inFlight.put(name, operation.inFlight.get()));
+		return inFlight;
+	}
+
+	@Override
+	public Map<String, Double> getLatencyMicros() {
+		Map<String, Double> latencies = new TreeMap<>();
+		operations.forEach((name, operation) -> {
+			long count = operation.count.sum();
+			latencies.put(name + ".mean",
+					count == 0 ? 0d : TimeUnit.NANOSECONDS.toMicros(operation.totalNanos.sum()) / (double) count);
+			latencies.put(name + ".p50", operation.percentileMicros(0.50));
+			latencies.put(name + ".p90", operation.percentileMicros(0.90));
+			latencies.put(name + ".p99", operation.percentileMicros(0.99));
+		});
+		return latencies;
+	}
+
+	@Override
+	public Map<String, Double> getCacheHitRatios() {
+		Map<String, Double> ratios = new TreeMap<>();
+		caches.forEach((name, cache) -> {
+			long hits = cache.hits.sum();
+			long total = hits + cache.misses.sum();
+			ratios.put(name, total == 0 ? 0d : hits / (double) total);
+		});
+		return ratios;
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> values = new TreeMap<>();
+		counters.forEach((name, counter) -> values.put(name, counter.getAsLong()));
+		return values;
+	}
+
+	@Override
+	public Map<String, Long> getGauges() {
+		Map<String, Long> values = new TreeMap<>();
+		gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+		return values;
+	}
+
+	@Override
+	public String getPrometheusText() {
+		StringBuilder out = new StringBuilder();
+		Map<String, Operation> sorted = new TreeMap<>(operations);
+		out.append("# HELP oci_jca_operation_duration_seconds Latency of the provider operations.\n");
+		out.append("# TYPE oci_jca_operation_duration_seconds histogram\n");
+		sorted.forEach((name, operation) -> {
+			long cumulative = 0;
+			for (int i = 0; i < operation.buckets.length; i++) {
+				cumulative += operation.buckets[i].sum();
+				String le = i < BUCKETS_MICROS.length ? seconds(BUCKETS_MICROS[i]) : "+Inf";
+				out.append("oci_jca_operation_duration_seconds_bucket{operation=\"").append(name)
+						.append("\",le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+			}
+			out.append("oci_jca_operation_duration_seconds_sum{operation=\"").append(name).append("\"} ")
+					.append(operation.totalNanos.sum() / 1e9).append('\n');
+			out.append("oci_jca_operation_duration_seconds_count{operation=\"").append(name).append("\"} ")
+					.append(operation.count.sum()).append('\n');
+		});
+		out.append("# HELP oci_jca_operation_errors_total Failed provider operations by HTTP status.\n");
+		out.append("# TYPE oci_jca_operation_errors_total counter\n");
+		sorted.forEach((name, operation) -> new TreeMap<>(operation.errors).forEach((status, count) -> out
+				.append("oci_jca_operation_errors_total{operation=\"").append(name).append("\",status=\"")
+				.append(statusLabel(status)).append("\"} ").append(count.sum()).append('\n')));
+		out.append("# HELP oci_jca_operation_in_flight Provider operations in flight.\n");
+		out.append("# TYPE oci_jca_operation_in_flight gauge\n");
+		sorted.forEach((name, operation) -> out.append("oci_jca_operation_in_flight{operation=\"").append(name)
+				.append("\"} ").append(operation.inFlight.get()).append('\n'));
+		out.append("# HELP oci_jca_cache_requests_total Cache lookups by result.\n");
+		out.append("# TYPE oci_jca_cache_requests_total counter\n");
+		new TreeMap<>(caches).forEach((name, cache) -> {
+			out.append("oci_jca_cache_requests_total{cache=\"").append(name).append("\",result=\"hit\"} ")
+					.append(cache.hits.sum()).append('\n');
+			out.append("oci_jca_cache_requests_total{cache=\"").append(name).append("\",result=\"miss\"} ")
+					.append(cache.misses.sum()).append('\n');
+		});
+		new TreeMap<>(counters).forEach((name, counter) -> {
+			String metric = "oci_jca_" + name.replaceAll("[^A-Za-z0-9_]", "_") + "_total";
+			out.append("# TYPE ").append(metric).append(" counter\n");
+			out.append(metric).append(' ').append(counter.getAsLong()).append('\n');
+		});
+		new TreeMap<>(gauges).forEach((name, gauge) -> {
+			String metric = "oci_jca_" + name.replaceAll("[^A-Za-z0-9_]", "_");
+			out.append("# TYPE ").append(metric).append(" gauge\n");
+			out.append(metric).append(' ').append(gauge.getAsLong()).append('\n');
+		});
+		return out.toString();
+	}
+
+	@Override
+	public void reset() {
+		operations.values().forEach(Operation::reset);
+		caches.values().forEach(Cache::reset);
+	}
+
+	private static String statusLabel(int status) {
+		return status > 0 ? Integer.toString(status) : "other";
+	}
+
+	private static String seconds(long micros) {
+		return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+	}
+
+	/**
+	 * Metrics of one operation.
+	 */
+	public static final class Operation {
+
+		private final boolean enabled;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong inFlight = new AtomicLong();
+		private final LongAdder[] buckets = new LongAdder[BUCKETS_MICROS.length + 1];
+		private final ConcurrentMap<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+
+		Operation(boolean enabled) {
+			this.enabled = enabled;
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		/**
+		 * Record the start of a call.
+		 *
+		 * @return the start time to pass to {@link #success(long)} or {@link #failure(long, int)}
+		 */
+		public long start() {
+			if (!enabled) {
+				return 0;
+			}
+			inFlight.incrementAndGet();
+			return System.nanoTime();
+		}
+
+		/**
+		 * Record a successful call.
+		 *
+		 * @param start the value returned by {@link #start()}
+		 */
+		public void success(long start) {
+			if (enabled) {
+				record(System.nanoTime() - start);
+			}
+		}
+
+		/**
+		 * Record a failed call.
+		 *
+		 * @param start  the value returned by {@link #start()}
+		 * @param status the HTTP status of the failure, or 0 if there is none
+		 */
+		public void failure(long start, int status) {
+			if (enabled) {
+				record(System.nanoTime() - start);
+				errors.computeIfAbsent(status, s -> new LongAdder()).increment();
+			}
+		}
+
+		private void record(long nanos) {
+			inFlight.decrementAndGet();
+			count.increment();
+			totalNanos.add(nanos);
+			long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+			int bucket = 0;
+			while (bucket < BUCKETS_MICROS.length && micros > BUCKETS_MICROS[bucket]) {
+				bucket++;
+			}
+			buckets[bucket].increment();
+		}
+
+		private double percentileMicros(double quantile) {
+			long total = 0;
+			long[] counts = new long[buckets.length];
+			for (int i = 0; i < buckets.length; i++) {
+				counts[i] = buckets[i].sum();
+				total += counts[i];
+			}
+			if (total == 0) {
+				return 0d;
+			}
+			long rank = (long) Math.ceil(quantile * total);
+			long cumulative = 0;
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+				if (cumulative >= rank) {
+					return i < BUCKETS_MICROS.length ? BUCKETS_MICROS[i] : Double.POSITIVE_INFINITY;
+				}
+			}
+			return Double.POSITIVE_INFINITY;
+		}
+
+		private void reset() {
+			count.reset();
+			totalNanos.reset();
+			for (LongAdder bucket : buckets) {
+				bucket.reset();
+			}
+			errors.clear();
+		}
+	}
+
+	/**
+	 * Metrics of one cache.
+	 */
+	public static final class Cache {
+
+		private final boolean enabled;
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		Cache(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Record a cache hit.
+		 */
+		public void hit() {
+			if (enabled) {
+				hits.increment();
+			}
+		}
+
+		/**
+		 * Record a cache miss.
+		 */
+		public void miss() {
+			if (enabled) {
+				misses.increment();
+			}
+		}
+
+		private void reset() {
+			hits.reset();
+			misses.reset();
+		}
+	}
+}
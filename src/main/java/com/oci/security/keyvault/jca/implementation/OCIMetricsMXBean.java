@@ -0,0 +1,73 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.Map;
+
+/**
+ * Management interface of the provider metrics, registered as
+ * {@value OCIMetrics#OBJECT_NAME} by {@link com.oci.security.keyvault.jca.OCIJcaProvider}.
+ */
+public interface OCIMetricsMXBean {
+
+	/**
+	 * Get the number of calls per operation.
+	 *
+	 * @return the call counts by operation
+	 */
+	Map<String, Long> getCallCounts();
+
+	/**
+	 * Get the number of failed calls per operation and HTTP status, keyed {@code operation.status}.
+	 * Failures without an HTTP status use the status {@code other}.
+	 *
+	 * @return the error counts
+	 */
+	Map<String, Long> getErrorCounts();
+
+	/**
+	 * Get the number of calls in flight per operation.
+	 *
+	 * @return the in-flight calls by operation
+	 */
+	Map<String, Long> getInFlight();
+
+	/**
+	 * Get latency percentiles in microseconds, keyed {@code operation.p50}, {@code operation.p90},
+	 * {@code operation.p99} and {@code operation.mean}. Percentiles are histogram bucket upper bounds.
+	 *
+	 * @return the latencies
+	 */
+	Map<String, Double> getLatencyMicros();
+
+	/**
+	 * Get the hit ratio of each cache.
+	 *
+	 * @return the hit ratios by cache, between 0 and 1
+	 */
+	Map<String, Double> getCacheHitRatios();
+
+	/**
+	 * Get the counters, totals which only grow.
+	 *
+	 * @return the counter values by name
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * Get the gauges.
+	 *
+	 * @return the gauge values by name
+	 */
+	Map<String, Long> getGauges();
+
+	/**
+	 * Get all the metrics in the Prometheus text exposition format.
+	 *
+	 * @return the metrics text
+	 */
+	String getPrometheusText();
+
+	/**
+	 * Reset the counters and histograms.
+	 */
+	void reset();
+}
@@ -0,0 +1,80 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Parser of PEM encoded certificate chains, such as the {@code certificatePem} and
+ * {@code certChainPem} of a certificate authority bundle.
+ *
+ * Each PEM string is scanned once: the Base64 body of every certificate is copied, without line breaks,
+ * into a buffer reused for the whole chain and decoded from there, so no intermediate strings are built.
+ */
+public final class OCIPemCertificates {
+
+	private static final String BEGIN = "-----BEGIN CERTIFICATE-----";
+	private static final String END = "-----END CERTIFICATE-----";
+
+	private static final X509Certificate[] NO_CERTIFICATES = new X509Certificate[0];
+
+	private OCIPemCertificates() {
+	}
+
+	/**
+	 * Parse the certificates of PEM strings into one chain.
+	 *
+	 * A certificate repeated in a later string, like the leaf certificate at the start of a chain, is
+	 * kept once.
+	 *
+	 * @param pems the PEM strings in chain order, null strings are skipped
+	 * @return the certificates, leaf first, empty if there is none
+	 * @throws CertificateException if a certificate is invalid or not terminated
+	 */
+	public static X509Certificate[] parseChain(String... pems) throws CertificateException {
+		CertificateFactory cf = CertificateFactory.getInstance("X.509");
+		List<X509Certificate> chain = new ArrayList<>(4);
+		byte[] buffer = null;
+		for (String pem : pems) {
+			if (pem == null) {
+				continue;
+			}
+			int from = pem.indexOf(BEGIN);
+			while (from >= 0) {
+				int start = from + BEGIN.length();
+				int end = pem.indexOf(END, start);
+				if (end < 0) {
+					throw new CertificateException("Unterminated PEM certificate at offset " + from);
+				}
+				if (buffer == null || buffer.length < end - start) {
+					buffer = new byte[end - start];
+				}
+				int length = 0;
+				for (int i = start; i < end; i++) {
+					char c = pem.charAt(i);
+					if (c > ' ') {
+						buffer[length++] = (byte) c;
+					}
+				}
+				ByteBuffer der;
+				try {
+					der = Base64.getDecoder().decode(ByteBuffer.wrap(buffer, 0, length));
+				} catch (IllegalArgumentException iae) {
+					throw new CertificateException("Invalid Base64 in PEM certificate at offset " + from, iae);
+				}
+				X509Certificate certificate = (X509Certificate) cf.generateCertificate(
+						new ByteArrayInputStream(der.array(), der.arrayOffset(), der.remaining()));
+				if (!chain.contains(certificate)) {
+					chain.add(certificate);
+				}
+				from = pem.indexOf(BEGIN, end + END.length());
+			}
+		}
+		return chain.isEmpty() ? NO_CERTIFICATES : chain.toArray(new X509Certificate[0]);
+	}
+}
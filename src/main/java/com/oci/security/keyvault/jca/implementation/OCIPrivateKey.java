@@ -23,6 +23,9 @@ public class OCIPrivateKey implements PrivateKey, SecretKey {
     private int length;
     private String keyName;
     private transient OCIKeyVaultClient keyVaultClient;
+    private OCISignPriority priority;
+
+    private transient String metadataVersion;
 
     /**
      * Builder for key vault private key
@@ -102,6 +105,38 @@ public class OCIPrivateKey implements PrivateKey, SecretKey {
     	return this.keyName;
     }
     
+    /**
+     * Set the priority class of the signatures made with this key
+     * @param priority the priority class, or null for the default
+     */
+    public void setPriority(OCISignPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Get the priority class of the signatures made with this key
+     * @return the priority class, or null if none was set
+     */
+    public OCISignPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Set the version of the KMS key metadata this key was built from
+     * @param metadataVersion the ETag and current key version of the metadata
+     */
+    public void setMetadataVersion(String metadataVersion) {
+        this.metadataVersion = metadataVersion;
+    }
+
+    /**
+     * Get the version of the KMS key metadata this key was built from
+     * @return the metadata version, or null if unknown
+     */
+    public String getMetadataVersion() {
+        return metadataVersion;
+    }
+
     public void setKeyLenmgth(int length) {
     	this.length = length;
     }
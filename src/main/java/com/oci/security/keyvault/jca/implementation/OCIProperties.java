@@ -0,0 +1,93 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+/**
+ * Reads the numeric and boolean tuning knobs of the provider from system properties.
+ */
+public final class OCIProperties {
+
+	private static final Logger LOGGER = Logger.getLogger(OCIProperties.class.getName());
+
+	private OCIProperties() {
+	}
+
+	/**
+	 * Get an int system property.
+	 *
+	 * @param name         the property name
+	 * @param defaultValue the value used when the property is missing or invalid
+	 * @return the property value
+	 */
+	public static int getInt(String name, int defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException nfe) {
+			LOGGER.log(WARNING, "OCIProperties: invalid value {0} for {1}, using {2}",
+					new Object[] { value, name, defaultValue });
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get a long system property.
+	 *
+	 * @param name         the property name
+	 * @param defaultValue the value used when the property is missing or invalid
+	 * @return the property value
+	 */
+	public static long getLong(String name, long defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException nfe) {
+			LOGGER.log(WARNING, "OCIProperties: invalid value {0} for {1}, using {2}",
+					new Object[] { value, name, defaultValue });
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get a double system property.
+	 *
+	 * @param name         the property name
+	 * @param defaultValue the value used when the property is missing or invalid
+	 * @return the property value
+	 */
+	public static double getDouble(String name, double defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException nfe) {
+			LOGGER.log(WARNING, "OCIProperties: invalid value {0} for {1}, using {2}",
+					new Object[] { value, name, defaultValue });
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get a boolean system property.
+	 *
+	 * @param name         the property name
+	 * @param defaultValue the value used when the property is missing
+	 * @return the property value
+	 */
+	public static boolean getBoolean(String name, boolean defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		return Boolean.parseBoolean(value.trim());
+	}
+}
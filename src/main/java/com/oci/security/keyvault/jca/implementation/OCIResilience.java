@@ -0,0 +1,382 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.security.ProviderException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+import com.oracle.bmc.model.BmcException;
+
+/**
+ * Retries, per-attempt timeouts, hedging and a circuit breaker around the calls made to one vault.
+ *
+ * A call is retried on throttling (429), server errors (5xx) and timeouts, with exponential backoff
+ * and full jitter. With hedging enabled, a second request is sent when the first one has not answered
+ * after the 95th percentile of the recent latencies, and whichever answers first wins. After
+ * {@code oci.sign.breaker.failures} consecutive failures the circuit opens and calls fail fast with
+ * {@link CircuitOpenException} for {@code oci.sign.breaker.openMillis}, then a single trial call
+ * decides whether it closes again.
+ *
+ * The behaviour is set with the system properties {@code oci.sign.maxAttempts} (3),
+ * {@code oci.sign.attemptTimeoutMillis} (0, no timeout besides the SDK read timeout),
+ * {@code oci.sign.backoffBaseMillis} (50), {@code oci.sign.backoffMaxMillis} (2000),
+ * {@code oci.sign.hedge} (false), {@code oci.sign.hedgeDelayMillis} (100, used until enough latencies
+ * are known), {@code oci.sign.hedgeMinDelayMillis} (10), {@code oci.sign.hedgeMaxPercent} (10, the
+ * share of calls which may be hedged), {@code oci.sign.breaker.failures} (5, 0 disables the breaker)
+ * and {@code oci.sign.breaker.openMillis} (10000).
+ *
+ * With a timeout or hedging, attempts run on {@link OCIExecutors#attemptExecutor()}, never on the pool
+ * of the callers waiting for them. The attempts which lose, or time out, are cancelled and interrupted
+ * so they give back their thread and their limiter permit.
+ */
+public final class OCIResilience {
+
+	private static final Map<String, OCIResilience> REGISTRY = new ConcurrentHashMap<>();
+
+	private static final LongAdder RETRIES = new LongAdder();
+	private static final LongAdder HEDGES = new LongAdder();
+	private static final LongAdder HEDGE_WINS = new LongAdder();
+	private static final LongAdder REJECTIONS = new LongAdder();
+
+	static {
+		OCIMetrics.getInstance().registerCounter("sign_retries", RETRIES::sum);
+		OCIMetrics.getInstance().registerCounter("sign_hedges", HEDGES::sum);
+		OCIMetrics.getInstance().registerCounter("sign_hedge_wins", HEDGE_WINS::sum);
+		OCIMetrics.getInstance().registerCounter("sign_circuit_rejections", REJECTIONS::sum);
+		OCIMetrics.getInstance().registerGauge("sign_circuits_open",
+				() -> REGISTRY.values().stream().filter(OCIResilience::isOpen).count());
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(OCIResilience.class.getName());
+
+	private final String name;
+	private final int maxAttempts;
+	private final long attemptTimeoutMillis;
+	private final long backoffBaseMillis;
+	private final long backoffMaxMillis;
+	private final boolean hedge;
+	private final long hedgeDelayMillis;
+	private final long hedgeMinDelayMillis;
+	private final int hedgeMaxPercent;
+	private final int breakerFailures;
+	private final long breakerOpenMillis;
+	private final ExecutorService executor;
+
+	private final LatencyWindow latencies = new LatencyWindow();
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicBoolean trialInFlight = new AtomicBoolean();
+	private volatile long openUntilMillis;
+
+	OCIResilience(String name, ExecutorService executor) {
+		this.name = name;
+		this.executor = executor;
+		this.maxAttempts = Math.max(1, OCIProperties.getInt("oci.sign.maxAttempts", 3));
+		this.attemptTimeoutMillis = Math.max(0, OCIProperties.getLong("oci.sign.attemptTimeoutMillis", 0));
+		this.backoffBaseMillis = Math.max(1, OCIProperties.getLong("oci.sign.backoffBaseMillis", 50));
+		this.backoffMaxMillis = Math.max(backoffBaseMillis, OCIProperties.getLong("oci.sign.backoffMaxMillis", 2000));
+		this.hedge = OCIProperties.getBoolean("oci.sign.hedge", false);
+		this.hedgeDelayMillis = Math.max(1, OCIProperties.getLong("oci.sign.hedgeDelayMillis", 100));
+		this.hedgeMinDelayMillis = Math.max(1, OCIProperties.getLong("oci.sign.hedgeMinDelayMillis", 10));
+		this.hedgeMaxPercent = Math.max(0, Math.min(100, OCIProperties.getInt("oci.sign.hedgeMaxPercent", 10)));
+		this.breakerFailures = Math.max(0, OCIProperties.getInt("oci.sign.breaker.failures", 5));
+		this.breakerOpenMillis = Math.max(1, OCIProperties.getLong("oci.sign.breaker.openMillis", 10000));
+	}
+
+	/**
+	 * Get the resilience state shared by every client of an endpoint.
+	 *
+	 * @param endpoint the endpoint
+	 * @return the resilience state of the endpoint
+	 */
+	public static OCIResilience forEndpoint(String endpoint) {
+		return REGISTRY.computeIfAbsent(String.valueOf(endpoint),
+				e -> new OCIResilience(e, OCIExecutors.attemptExecutor()));
+	}
+
+	/**
+	 * Run a call with retries, timeouts, hedging and the circuit breaker.
+	 *
+	 * Errors which are not worth retrying, such as 400, 404 or 409, are thrown at once and do not count
+	 * against the circuit.
+	 *
+	 * @param call the call, which may run several times and concurrently when hedging
+	 * @param <T>  the response type
+	 * @return the response of the first successful attempt
+	 * @throws CircuitOpenException if the circuit is open
+	 * @throws BmcException         the error of the last attempt
+	 */
+	public <T> T call(Supplier<T> call) {
+		boolean trial = acquire();
+		calls.incrementAndGet();
+		try {
+			for (int attempt = 1;; attempt++) {
+				try {
+					T response = attempt(call);
+					onSuccess();
+					trial = false;
+					return response;
+				} catch (BmcException be) {
+					if (!isRetryable(be)) {
+						if (trial) {
+							trialInFlight.set(false);
+							trial = false;
+						}
+						throw be;
+					}
+					onFailure(be);
+					trial = false;
+					if (attempt >= maxAttempts || isOpen()) {
+						throw be;
+					}
+					RETRIES.increment();
+					sleep(backoffMillis(attempt));
+				}
+			}
+		} catch (RuntimeException e) {
+			if (trial) {
+				onFailure(e);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Get whether the circuit is open.
+	 *
+	 * @return true if calls currently fail fast
+	 */
+	public boolean isOpen() {
+		return openUntilMillis != 0 && System.currentTimeMillis() < openUntilMillis;
+	}
+
+	/**
+	 * Get the name of the endpoint.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the 95th percentile of the recent successful attempts.
+	 *
+	 * @return the latency in milliseconds, or -1 until enough attempts were made
+	 */
+	public long getP95Millis() {
+		long p95 = latencies.p95Micros();
+		return p95 < 0 ? -1 : TimeUnit.MICROSECONDS.toMillis(p95);
+	}
+
+	/**
+	 * Let a call through unless the circuit is open.
+	 *
+	 * @return true if the call is the trial call of a half-open circuit
+	 */
+	private boolean acquire() {
+		long openUntil = openUntilMillis;
+		if (openUntil == 0) {
+			return false;
+		}
+		if (System.currentTimeMillis() >= openUntil && trialInFlight.compareAndSet(false, true)) {
+			LOGGER.log(INFO, "OCIResilience: circuit of {0} is half open, sending a trial call", name);
+			return true;
+		}
+		REJECTIONS.increment();
+		throw new CircuitOpenException("OCI Key Vault circuit of " + name + " is open");
+	}
+
+	private void onSuccess() {
+		consecutiveFailures.set(0);
+		if (openUntilMillis != 0) {
+			LOGGER.log(INFO, "OCIResilience: circuit of {0} is closed", name);
+			openUntilMillis = 0;
+		}
+		trialInFlight.set(false);
+	}
+
+	private void onFailure(RuntimeException e) {
+		int failures = consecutiveFailures.incrementAndGet();
+		if (breakerFailures > 0 && (failures >= breakerFailures || trialInFlight.get())) {
+			LOGGER.log(WARNING, "OCIResilience: circuit of {0} is open after {1} failures: {2}",
+					new Object[] { name, failures, e.getMessage() });
+			openUntilMillis = System.currentTimeMillis() + breakerOpenMillis;
+			trialInFlight.set(false);
+		}
+	}
+
+	private <T> T attempt(Supplier<T> call) {
+		if (attemptTimeoutMillis == 0 && !hedge) {
+			long start = System.nanoTime();
+			T response = call.get();
+			latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+			return response;
+		}
+		CompletableFuture<T> winner = new CompletableFuture<>();
+		AtomicInteger outstanding = new AtomicInteger(1);
+		List<Future<?>> attempts = new ArrayList<>(2);
+		attempts.add(launch(call, winner, outstanding, false));
+		long deadline = attemptTimeoutMillis == 0 ? Long.MAX_VALUE
+				: System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(attemptTimeoutMillis);
+		try {
+			if (hedge) {
+				long delay = hedgeDelayMillis();
+				try {
+					return winner.get(Math.min(delay, remainingMillis(deadline)), TimeUnit.MILLISECONDS);
+				} catch (TimeoutException te) {
+					if (remainingMillis(deadline) > 0 && allowHedge()) {
+						HEDGES.increment();
+						outstanding.incrementAndGet();
+						attempts.add(launch(call, winner, outstanding, true));
+					}
+				}
+			}
+			return deadline == Long.MAX_VALUE ? winner.get()
+					: winner.get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException te) {
+			throw new BmcException(true, "OCI Key Vault call to " + name + " timed out after "
+					+ attemptTimeoutMillis + " ms", te, null);
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new ProviderException(cause);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new ProviderException(ie);
+		} finally {
+			for (Future<?> attempt : attempts) {
+				attempt.cancel(true);
+			}
+		}
+	}
+
+	private <T> Future<?> launch(Supplier<T> call, CompletableFuture<T> winner, AtomicInteger outstanding,
+			boolean hedged) {
+		return executor.submit(() -> {
+			long start = System.nanoTime();
+			try {
+				T response = call.get();
+				latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+				if (winner.complete(response) && hedged) {
+					HEDGE_WINS.increment();
+				}
+			} catch (RuntimeException e) {
+				if (outstanding.decrementAndGet() == 0) {
+					winner.completeExceptionally(e);
+				}
+			}
+		});
+	}
+
+	private long hedgeDelayMillis() {
+		long p95 = getP95Millis();
+		return p95 < 0 ? hedgeDelayMillis : Math.max(hedgeMinDelayMillis, p95);
+	}
+
+	private boolean allowHedge() {
+		if (hedges.get() * 100 >= calls.get() * hedgeMaxPercent) {
+			return false;
+		}
+		hedges.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Full jitter: a random delay up to the exponential backoff of the attempt.
+	 */
+	private long backoffMillis(int attempt) {
+		long cap = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempt - 1, 20));
+		return ThreadLocalRandom.current().nextLong(cap + 1);
+	}
+
+	private static long remainingMillis(long deadline) {
+		if (deadline == Long.MAX_VALUE) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new ProviderException(ie);
+		}
+	}
+
+	/**
+	 * Throttling, server errors, timeouts and connection failures are transient.
+	 */
+	static boolean isRetryable(BmcException be) {
+		int status = be.getStatusCode();
+		return status == 429 || status >= 500 || be.isTimeout() || status <= 0;
+	}
+
+	/**
+	 * Thrown when a call is rejected because the circuit of its endpoint is open.
+	 */
+	public static final class CircuitOpenException extends ProviderException {
+
+		private static final long serialVersionUID = 1L;
+
+		CircuitOpenException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Sliding window of the latest latencies, with a 95th percentile recomputed every few samples.
+	 */
+	private static final class LatencyWindow {
+
+		private static final int SIZE = 256;
+		private static final int MIN_SAMPLES = 32;
+		private static final int RECOMPUTE_EVERY = 32;
+
+		private final long[] samples = new long[SIZE];
+		private int index;
+		private int count;
+		private int sinceRecompute;
+		private volatile long p95 = -1;
+
+		synchronized void add(long micros) {
+			samples[index] = micros;
+			index = (index + 1) % SIZE;
+			// Both counters stay bounded, an endpoint may see billions of attempts.
+			count = Math.min(count + 1, SIZE);
+			sinceRecompute++;
+			if (count >= MIN_SAMPLES && sinceRecompute >= RECOMPUTE_EVERY) {
+				sinceRecompute = 0;
+				long[] sorted = Arrays.copyOf(samples, count);
+				Arrays.sort(sorted);
+				p95 = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+			}
+		}
+
+		long p95Micros() {
+			return p95;
+		}
+	}
+}
@@ -0,0 +1,356 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.oracle.bmc.ClientConfiguration;
+import com.oracle.bmc.auth.AbstractAuthenticationDetailsProvider;
+import com.oracle.bmc.certificates.CertificatesClient;
+import com.oracle.bmc.certificatesmanagement.CertificatesManagementClient;
+import com.oracle.bmc.http.ClientConfigurator;
+import com.oracle.bmc.http.client.jersey3.ApacheClientProperties;
+import com.oracle.bmc.http.client.jersey3.Jersey3HttpProvider;
+import com.oracle.bmc.keymanagement.KmsCryptoClient;
+import com.oracle.bmc.keymanagement.KmsManagementClient;
+
+/**
+ * Process wide, long lived set of OCI SDK clients for one (region, endpoint, auth provider).
+ *
+ * The four SDK clients share one pooled connection manager, so the TCP and TLS connections to the
+ * vault and certificates endpoints are kept alive and reused across calls. Instances are reference
+ * counted: {@link #acquire} hands out the shared set and {@link #close()} releases it; the SDK
+ * clients and the connection pool are closed when the last user releases them.
+ *
+ * The certificates clients use the regional endpoints unless explicit endpoints are given, for
+ * instance to point the provider at a local stand-in server.
+ *
+ * Pool sizing is read from the system properties {@code oci.client.maxConnections},
+ * {@code oci.client.maxConnectionsPerRoute}, {@code oci.client.keepAliveSeconds},
+ * {@code oci.client.connectTimeoutMillis} and {@code oci.client.readTimeoutMillis}.
+ */
+public final class OCIServiceClients implements AutoCloseable {
+
+	private static final Map<ClientsKey, OCIServiceClients> REGISTRY = new ConcurrentHashMap<>();
+
+	private static final Logger LOGGER = Logger.getLogger(OCIServiceClients.class.getName());
+
+	private final ClientsKey key;
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final ClientConfiguration configuration;
+	private final ClientConfigurator configurator;
+	private int references;
+	private volatile boolean closed;
+
+	private volatile KmsManagementClient kmsManagementClient;
+	private volatile KmsCryptoClient kmsCryptoClient;
+	private volatile CertificatesManagementClient certificatesManagementClient;
+	private volatile CertificatesClient certificatesClient;
+
+	private OCIServiceClients(ClientsKey key) {
+		this.key = key;
+		long keepAliveMillis = TimeUnit.SECONDS.toMillis(OCIProperties.getLong("oci.client.keepAliveSeconds", 60));
+		this.connectionManager = new PoolingHttpClientConnectionManager(keepAliveMillis, TimeUnit.MILLISECONDS);
+		this.connectionManager.setMaxTotal(OCIProperties.getInt("oci.client.maxConnections", 64));
+		this.connectionManager.setDefaultMaxPerRoute(OCIProperties.getInt("oci.client.maxConnectionsPerRoute", 32));
+		this.connectionManager.setValidateAfterInactivity(2000);
+		this.configuration = ClientConfiguration.builder()
+				.connectionTimeoutMillis(OCIProperties.getInt("oci.client.connectTimeoutMillis", 10000))
+				.readTimeoutMillis(OCIProperties.getInt("oci.client.readTimeoutMillis", 30000)).build();
+		this.configurator = builder -> builder
+				.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+				.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, Boolean.TRUE)
+				.property(ApacheClientProperties.KEEPALIVE_STRATEGY, (response, context) -> keepAliveMillis);
+	}
+
+	/**
+	 * Get the shared clients for the given region, endpoints and auth provider, creating them if needed.
+	 * Every call must be paired with a call to {@link #close()}.
+	 *
+	 * @param region             the region of the certificates service
+	 * @param cryptoEndpoint     the vault crypto endpoint
+	 * @param managementEndpoint the vault management endpoint
+	 * @param provider           the authentication provider
+	 * @return the shared clients
+	 */
+	public static OCIServiceClients acquire(String region, String cryptoEndpoint, String managementEndpoint,
+			AbstractAuthenticationDetailsProvider provider) {
+		return acquire(region, cryptoEndpoint, managementEndpoint, null, null, provider);
+	}
+
+	/**
+	 * Get the shared clients for the given endpoints and auth provider, creating them if needed.
+	 * Every call must be paired with a call to {@link #close()}.
+	 *
+	 * @param region                         the region of the certificates service
+	 * @param cryptoEndpoint                 the vault crypto endpoint
+	 * @param managementEndpoint             the vault management endpoint
+	 * @param certificatesEndpoint           the certificates endpoint, or null for the regional one
+	 * @param certificatesManagementEndpoint the certificates management endpoint, or null for the regional one
+	 * @param provider                       the authentication provider
+	 * @return the shared clients
+	 */
+	public static OCIServiceClients acquire(String region, String cryptoEndpoint, String managementEndpoint,
+			String certificatesEndpoint, String certificatesManagementEndpoint,
+			AbstractAuthenticationDetailsProvider provider) {
+		ClientsKey clientsKey = new ClientsKey(region, cryptoEndpoint, managementEndpoint, certificatesEndpoint,
+				certificatesManagementEndpoint, provider);
+		while (true) {
+			OCIServiceClients clients = REGISTRY.computeIfAbsent(clientsKey, OCIServiceClients::new);
+			if (clients.retain()) {
+				return clients;
+			}
+			// Lost a race with the last close(); the closed instance is already out of the registry.
+			REGISTRY.remove(clientsKey, clients);
+		}
+	}
+
+	/**
+	 * Close every shared client set, regardless of outstanding references. Intended for application
+	 * shutdown.
+	 */
+	public static void shutdown() {
+		LOGGER.log(INFO, "OCIServiceClients: shutdown is invoked for {0} client sets", REGISTRY.size());
+		List<OCIServiceClients> all = new ArrayList<>(REGISTRY.values());
+		REGISTRY.clear();
+		for (OCIServiceClients clients : all) {
+			synchronized (clients) {
+				if (clients.closed) {
+					continue;
+				}
+				clients.closed = true;
+			}
+			clients.closeClients();
+		}
+	}
+
+	private synchronized boolean retain() {
+		if (closed) {
+			return false;
+		}
+		references++;
+		return true;
+	}
+
+	/**
+	 * Release this client set. The SDK clients are closed once every holder has released it.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			references--;
+			if (references > 0) {
+				return;
+			}
+			closed = true;
+		}
+		REGISTRY.remove(key, this);
+		closeClients();
+	}
+
+	/**
+	 * Get the vault crypto endpoint.
+	 *
+	 * @return the endpoint
+	 */
+	public String getCryptoEndpoint() {
+		return key.cryptoEndpoint;
+	}
+
+	/**
+	 * Get the vault management endpoint.
+	 *
+	 * @return the endpoint
+	 */
+	public String getManagementEndpoint() {
+		return key.managementEndpoint;
+	}
+
+	/**
+	 * Get the authentication provider of the clients.
+	 *
+	 * @return the provider
+	 */
+	public AbstractAuthenticationDetailsProvider getProvider() {
+		return key.provider;
+	}
+
+	/**
+	 * Get the KMS management client.
+	 *
+	 * @return the shared client
+	 */
+	public KmsManagementClient kmsManagement() {
+		KmsManagementClient client = kmsManagementClient;
+		if (client == null) {
+			synchronized (this) {
+				ensureOpen();
+				if (kmsManagementClient == null) {
+					kmsManagementClient = KmsManagementClient.builder().endpoint(key.managementEndpoint)
+							.configuration(configuration).additionalClientConfigurator(configurator)
+							.httpProvider(Jersey3HttpProvider.getInstance()).build(key.provider);
+				}
+				client = kmsManagementClient;
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Get the KMS crypto client.
+	 *
+	 * @return the shared client
+	 */
+	public KmsCryptoClient kmsCrypto() {
+		KmsCryptoClient client = kmsCryptoClient;
+		if (client == null) {
+			synchronized (this) {
+				ensureOpen();
+				if (kmsCryptoClient == null) {
+					kmsCryptoClient = KmsCryptoClient.builder().endpoint(key.cryptoEndpoint)
+							.configuration(configuration).additionalClientConfigurator(configurator)
+							.httpProvider(Jersey3HttpProvider.getInstance()).build(key.provider);
+				}
+				client = kmsCryptoClient;
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Get the certificates management client.
+	 *
+	 * @return the shared client
+	 */
+	public CertificatesManagementClient certificatesManagement() {
+		CertificatesManagementClient client = certificatesManagementClient;
+		if (client == null) {
+			synchronized (this) {
+				ensureOpen();
+				if (certificatesManagementClient == null) {
+					CertificatesManagementClient.Builder builder = CertificatesManagementClient.builder();
+					if (key.certificatesManagementEndpoint != null) {
+						builder.endpoint(key.certificatesManagementEndpoint);
+					} else {
+						builder.region(key.region);
+					}
+					certificatesManagementClient = builder.configuration(configuration)
+							.additionalClientConfigurator(configurator)
+							.httpProvider(Jersey3HttpProvider.getInstance()).build(key.provider);
+				}
+				client = certificatesManagementClient;
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Get the certificates client.
+	 *
+	 * @return the shared client
+	 */
+	public CertificatesClient certificates() {
+		CertificatesClient client = certificatesClient;
+		if (client == null) {
+			synchronized (this) {
+				ensureOpen();
+				if (certificatesClient == null) {
+					CertificatesClient.Builder builder = CertificatesClient.builder();
+					if (key.certificatesEndpoint != null) {
+						builder.endpoint(key.certificatesEndpoint);
+					} else {
+						builder.region(key.region);
+					}
+					certificatesClient = builder.configuration(configuration)
+							.additionalClientConfigurator(configurator)
+							.httpProvider(Jersey3HttpProvider.getInstance()).build(key.provider);
+				}
+				client = certificatesClient;
+			}
+		}
+		return client;
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("OCI service clients are closed for " + key.cryptoEndpoint);
+		}
+	}
+
+	private void closeClients() {
+		LOGGER.log(INFO, "OCIServiceClients: closing clients for {0}", key.cryptoEndpoint);
+		closeQuietly(kmsManagementClient);
+		closeQuietly(kmsCryptoClient);
+		closeQuietly(certificatesManagementClient);
+		closeQuietly(certificatesClient);
+		connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+		connectionManager.shutdown();
+	}
+
+	private static void closeQuietly(AutoCloseable client) {
+		if (client == null) {
+			return;
+		}
+		try {
+			client.close();
+		} catch (Exception e) {
+			LOGGER.log(WARNING, "OCIServiceClients: client close failed {0}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Identity of a shared client set. The auth provider is compared by identity.
+	 */
+	private static final class ClientsKey {
+		private final String region;
+		private final String cryptoEndpoint;
+		private final String managementEndpoint;
+		private final String certificatesEndpoint;
+		private final String certificatesManagementEndpoint;
+		private final AbstractAuthenticationDetailsProvider provider;
+
+		ClientsKey(String region, String cryptoEndpoint, String managementEndpoint, String certificatesEndpoint,
+				String certificatesManagementEndpoint, AbstractAuthenticationDetailsProvider provider) {
+			this.region = region;
+			this.cryptoEndpoint = cryptoEndpoint;
+			this.managementEndpoint = managementEndpoint;
+			this.certificatesEndpoint = certificatesEndpoint;
+			this.certificatesManagementEndpoint = certificatesManagementEndpoint;
+			this.provider = provider;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ClientsKey)) {
+				return false;
+			}
+			ClientsKey other = (ClientsKey) o;
+			return provider == other.provider && Objects.equals(region, other.region)
+					&& Objects.equals(cryptoEndpoint, other.cryptoEndpoint)
+					&& Objects.equals(managementEndpoint, other.managementEndpoint)
+					&& Objects.equals(certificatesEndpoint, other.certificatesEndpoint)
+					&& Objects.equals(certificatesManagementEndpoint, other.certificatesManagementEndpoint);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(region, cryptoEndpoint, managementEndpoint, certificatesEndpoint,
+					certificatesManagementEndpoint, System.identityHashCode(provider));
+		}
+	}
+
+}
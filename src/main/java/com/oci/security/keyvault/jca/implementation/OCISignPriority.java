@@ -0,0 +1,78 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * Priority class of a signature, used by {@link OCISignScheduler} to share the vault capacity between
+ * latency-sensitive and bulk work.
+ *
+ * The priority of a signature is, from the most to the least specific: the priority set on the
+ * {@link java.security.Signature} with {@code setParameter}, the priority of the calling thread set
+ * with {@link #enter()}, the priority of the {@link OCIPrivateKey}, the keys listed in
+ * {@code oci.sign.bulkKeyIds}, and otherwise {@link #INTERACTIVE}.
+ */
+public enum OCISignPriority implements AlgorithmParameterSpec {
+
+	/**
+	 * Latency-sensitive work such as TLS handshakes.
+	 */
+	INTERACTIVE,
+
+	/**
+	 * Throughput-oriented work such as batch artifact signing.
+	 */
+	BULK;
+
+	private static final ThreadLocal<OCISignPriority> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Make this the priority of the signatures of the calling thread until the returned scope is
+	 * closed.
+	 *
+	 * @return the scope restoring the previous priority of the thread when closed
+	 */
+	public Scope enter() {
+		OCISignPriority previous = CURRENT.get();
+		CURRENT.set(this);
+		return () -> {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Get the priority of the calling thread.
+	 *
+	 * @return the priority, or null if none was entered
+	 */
+	public static OCISignPriority current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Get the requested priority of a signature made on the calling thread.
+	 *
+	 * @param explicit    the priority set on the signature, may be null
+	 * @param keyPriority the priority of the key, may be null
+	 * @return the most specific priority, or null if none was requested
+	 */
+	public static OCISignPriority resolve(OCISignPriority explicit, OCISignPriority keyPriority) {
+		if (explicit != null) {
+			return explicit;
+		}
+		OCISignPriority current = CURRENT.get();
+		return current != null ? current : keyPriority;
+	}
+
+	/**
+	 * Scope of a thread priority.
+	 */
+	public interface Scope extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,308 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.security.ProviderException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Shares the signing capacity of a vault between the {@link OCISignPriority} classes.
+ *
+ * The capacity is the number of signatures allowed in flight, normally the sum of the limits of the
+ * {@link OCIConcurrencyLimiter}s registered by the open clients of the vault, each limiter counted
+ * once. {@code oci.scheduler.interactiveReservePercent} (25) of
+ * it is kept for interactive signatures: bulk signatures never take it, so a handshake always finds a
+ * free slot or waits behind other handshakes only. Waiting signatures are served by stride scheduling
+ * with the weights {@code oci.scheduler.interactiveWeight} (4) and {@code oci.scheduler.bulkWeight} (1),
+ * so bulk work keeps progressing while handshakes are queued. A signature waits for at most
+ * {@code oci.scheduler.maxWaitMillis} (30000). The scheduler is disabled with
+ * {@code oci.scheduler.enabled=false}.
+ */
+public final class OCISignScheduler {
+
+	private static final Map<String, OCISignScheduler> REGISTRY = new ConcurrentHashMap<>();
+	private static final OCISignPriority[] PRIORITIES = OCISignPriority.values();
+
+	static {
+		OCIMetrics metrics = OCIMetrics.getInstance();
+		for (OCISignPriority priority : PRIORITIES) {
+			String name = priority.name().toLowerCase();
+			metrics.registerGauge("scheduler_in_flight_" + name,
+					() -> REGISTRY.values().stream().mapToLong(s -> s.getInFlight(priority)).sum());
+			metrics.registerGauge("scheduler_queued_" + name,
+					() -> REGISTRY.values().stream().mapToLong(s -> s.getQueued(priority)).sum());
+		}
+	}
+
+	private final String name;
+	private final IntSupplier capacity;
+	private final boolean enabled;
+	private final int reservePercent;
+	private final double[] strides = new double[PRIORITIES.length];
+	private final long maxWaitNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition granted = lock.newCondition();
+	private final int[] inFlight = new int[PRIORITIES.length];
+	private final double[] passes = new double[PRIORITIES.length];
+	@SuppressWarnings("unchecked")
+	private final ArrayDeque<Waiter>[] queues = new ArrayDeque[PRIORITIES.length];
+	private double lastPass;
+	private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name     the scheduler name
+	 * @param capacity the number of signatures allowed in flight, or null for the limits of the
+	 *                 registered limiters
+	 */
+	OCISignScheduler(String name, IntSupplier capacity) {
+		this.name = name;
+		this.capacity = capacity != null ? capacity : this::getRegisteredCapacity;
+		this.enabled = OCIProperties.getBoolean("oci.scheduler.enabled", true);
+		this.reservePercent = Math.max(0, Math.min(100,
+				OCIProperties.getInt("oci.scheduler.interactiveReservePercent", 25)));
+		this.strides[OCISignPriority.INTERACTIVE.ordinal()] = 1.0
+				/ Math.max(1, OCIProperties.getInt("oci.scheduler.interactiveWeight", 4));
+		this.strides[OCISignPriority.BULK.ordinal()] = 1.0
+				/ Math.max(1, OCIProperties.getInt("oci.scheduler.bulkWeight", 1));
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(
+				Math.max(0, OCIProperties.getLong("oci.scheduler.maxWaitMillis", 30000)));
+		for (int i = 0; i < queues.length; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Get the scheduler shared by every client of an endpoint. Its capacity comes from the limiters
+	 * registered with {@link #register(List)}.
+	 *
+	 * @param endpoint the primary crypto endpoint
+	 * @return the scheduler of the endpoint
+	 */
+	public static OCISignScheduler forEndpoint(String endpoint) {
+		return REGISTRY.computeIfAbsent(String.valueOf(endpoint), e -> new OCISignScheduler(e, null));
+	}
+
+	/**
+	 * Add the limits of the limiters of a client to the capacity, until the registration is closed.
+	 *
+	 * @param limiters the limiters of the endpoints the client signs with
+	 * @return the registration, closed with the client
+	 */
+	public Registration register(List<OCIConcurrencyLimiter> limiters) {
+		Registration registration = new Registration(limiters);
+		registrations.add(registration);
+		wakeUp();
+		return registration;
+	}
+
+	/**
+	 * Get the number of signatures allowed in flight.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return Math.max(1, capacity.getAsInt());
+	}
+
+	private int getRegisteredCapacity() {
+		Set<OCIConcurrencyLimiter> limiters = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Registration registration : registrations) {
+			limiters.addAll(registration.limiters);
+		}
+		int total = 0;
+		for (OCIConcurrencyLimiter limiter : limiters) {
+			total += limiter.getLimit();
+		}
+		return total;
+	}
+
+	/**
+	 * Let the waiting signatures use a capacity which grew.
+	 */
+	private void wakeUp() {
+		lock.lock();
+		try {
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Run a signature once the priority class is given a slot.
+	 *
+	 * @param priority the priority class
+	 * @param call     the signature
+	 * @param <T>      the result type
+	 * @return the result
+	 * @throws OCIConcurrencyLimiter.RejectedException if the signature waited too long
+	 */
+	public <T> T call(OCISignPriority priority, Supplier<T> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		acquire(priority.ordinal());
+		try {
+			return call.get();
+		} finally {
+			release(priority.ordinal());
+		}
+	}
+
+	/**
+	 * Get the number of signatures of a priority class in flight.
+	 *
+	 * @param priority the priority class
+	 * @return the number of signatures in flight
+	 */
+	public int getInFlight(OCISignPriority priority) {
+		lock.lock();
+		try {
+			return inFlight[priority.ordinal()];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of signatures of a priority class waiting for a slot.
+	 *
+	 * @param priority the priority class
+	 * @return the number of waiting signatures
+	 */
+	public int getQueued(OCISignPriority priority) {
+		lock.lock();
+		try {
+			return queues[priority.ordinal()].size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void acquire(int priority) {
+		lock.lock();
+		try {
+			if (queues[priority].isEmpty() && canRun(priority, getCapacity())) {
+				inFlight[priority]++;
+				return;
+			}
+			if (queues[priority].isEmpty()) {
+				// A class coming back from idle starts at the current pass instead of catching up.
+				passes[priority] = Math.max(passes[priority], lastPass);
+			}
+			Waiter waiter = new Waiter();
+			queues[priority].add(waiter);
+			long remaining = maxWaitNanos;
+			try {
+				while (!waiter.granted) {
+					if (remaining <= 0) {
+						queues[priority].remove(waiter);
+						throw new OCIConcurrencyLimiter.RejectedException("No " + PRIORITIES[priority]
+								+ " signing slot freed up in time for " + name);
+					}
+					remaining = granted.awaitNanos(remaining);
+				}
+			} catch (InterruptedException ie) {
+				if (!queues[priority].remove(waiter)) {
+					// The slot was granted meanwhile, give it to the next waiter.
+					inFlight[priority]--;
+					dispatch();
+				}
+				Thread.currentThread().interrupt();
+				throw new ProviderException(ie);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(int priority) {
+		lock.lock();
+		try {
+			inFlight[priority]--;
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Grant free slots to the waiting class with the lowest pass, as long as it may run.
+	 */
+	private void dispatch() {
+		int slots = getCapacity();
+		boolean any = false;
+		while (true) {
+			int next = -1;
+			for (int i = 0; i < queues.length; i++) {
+				if (!queues[i].isEmpty() && canRun(i, slots) && (next < 0 || passes[i] < passes[next])) {
+					next = i;
+				}
+			}
+			if (next < 0) {
+				break;
+			}
+			queues[next].poll().granted = true;
+			inFlight[next]++;
+			lastPass = passes[next];
+			passes[next] += strides[next];
+			any = true;
+		}
+		if (any) {
+			granted.signalAll();
+		}
+	}
+
+	private boolean canRun(int priority, int slots) {
+		int total = 0;
+		for (int count : inFlight) {
+			total += count;
+		}
+		if (total >= slots) {
+			return false;
+		}
+		if (priority == OCISignPriority.INTERACTIVE.ordinal()) {
+			return true;
+		}
+		int reserved = (int) Math.ceil(slots * reservePercent / 100.0);
+		return inFlight[priority] < Math.max(1, slots - reserved);
+	}
+
+	private static final class Waiter {
+		private boolean granted;
+	}
+
+	/**
+	 * The limiters a client added to the capacity.
+	 */
+	public final class Registration implements AutoCloseable {
+
+		private final List<OCIConcurrencyLimiter> limiters;
+
+		private Registration(List<OCIConcurrencyLimiter> limiters) {
+			this.limiters = new ArrayList<>(limiters);
+		}
+
+		/**
+		 * Remove the limiters from the capacity. Signatures already in flight are not affected.
+		 */
+		@Override
+		public void close() {
+			registrations.remove(this);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual thread support, replaced by the {@code META-INF/versions/21} variant of this class on Java 21
+ * and later. Virtual threads do not exist before Java 21, so this variant has none.
+ */
+final class OCIVirtualThreads {
+
+	private OCIVirtualThreads() {
+	}
+
+	/**
+	 * Create an executor starting a virtual thread per task.
+	 *
+	 * @param prefix the thread name prefix
+	 * @return the executor, or null if virtual threads are not available
+	 */
+	static ExecutorService newExecutor(String prefix) {
+		return null;
+	}
+}
@@ -0,0 +1,207 @@
+package com.oci.security.keyvault.jca.implementation.certificates;
+
+import java.nio.ByteBuffer;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProviderException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Immutable index of the entries of several certificate stores.
+ *
+ * Maps each alias to its certificate and key, and the SHA-256 fingerprint of each certificate to its
+ * alias, so lookups take constant time. The index remembers the modification count of every store it
+ * was built from; {@link #isCurrent(List)} tells when it has to be rebuilt.
+ */
+public final class OCIAliasIndex {
+
+    private final List<String> aliases;
+    private final Map<String, IndexEntry> entries;
+    private final Map<ByteBuffer, String> fingerprints;
+    private final long[] modificationCounts;
+
+    private static final Logger LOGGER = Logger.getLogger(OCIAliasIndex.class.getName());
+
+    private OCIAliasIndex(List<String> aliases, Map<String, IndexEntry> entries, Map<ByteBuffer, String> fingerprints,
+            long[] modificationCounts) {
+        this.aliases = Collections.unmodifiableList(aliases);
+        this.entries = entries;
+        this.fingerprints = fingerprints;
+        this.modificationCounts = modificationCounts;
+    }
+
+    /**
+     * Build the index of the given stores.
+     *
+     * When an alias is in several stores, the certificate and its chain come from the first store
+     * holding one and the key from the last store holding one.
+     *
+     * @param stores the stores, in lookup order
+     * @return the index
+     */
+    public static OCIAliasIndex build(List<OCICertificates> stores) {
+        LOGGER.log(INFO, "OCIAliasIndex build is invoked");
+        long[] modificationCounts = new long[stores.size()];
+        for (int i = 0; i < stores.size(); i++) {
+            modificationCounts[i] = stores.get(i).getModificationCount();
+        }
+        List<String> aliases = new ArrayList<>();
+        Map<String, IndexEntry> entries = new HashMap<>();
+        for (OCICertificates store : stores) {
+            for (String alias : store.getAliases()) {
+                IndexEntry entry = entries.get(alias);
+                if (entry == null) {
+                    aliases.add(alias);
+                }
+                Key key = store.getKey(alias);
+                key = key != null ? key : entry == null ? null : entry.key;
+                if (entry != null && entry.certificate != null) {
+                    entries.put(alias, new IndexEntry(entry.certificate, entry.chain, key));
+                } else {
+                    Certificate certificate = store.getCertificate(alias);
+                    Certificate[] chain = certificate == null ? null : store.getCertificateChain(alias);
+                    entries.put(alias, new IndexEntry(certificate,
+                            chain == null && certificate != null ? new Certificate[] { certificate } : chain, key));
+                }
+            }
+        }
+        Map<ByteBuffer, String> fingerprints = new HashMap<>();
+        for (String alias : aliases) {
+            Certificate certificate = entries.get(alias).certificate;
+            if (certificate != null) {
+                ByteBuffer fingerprint = fingerprint(certificate);
+                if (fingerprint != null) {
+                    fingerprints.putIfAbsent(fingerprint, alias);
+                }
+            }
+        }
+        return new OCIAliasIndex(aliases, entries, fingerprints, modificationCounts);
+    }
+
+    /**
+     * Check whether none of the given stores changed since this index was built.
+     *
+     * @param stores the stores the index was built from
+     * @return true if the index is up to date
+     */
+    public boolean isCurrent(List<OCICertificates> stores) {
+        if (stores.size() != modificationCounts.length) {
+            return false;
+        }
+        for (int i = 0; i < modificationCounts.length; i++) {
+            if (stores.get(i).getModificationCount() != modificationCounts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the aliases.
+     *
+     * @return the aliases, in store order
+     */
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Check whether an alias exists.
+     *
+     * @param alias the alias
+     * @return true if the alias exists
+     */
+    public boolean contains(String alias) {
+        return alias != null && entries.containsKey(alias);
+    }
+
+    /**
+     * Get the number of aliases.
+     *
+     * @return the number of aliases
+     */
+    public int size() {
+        return aliases.size();
+    }
+
+    /**
+     * Get the certificate of an alias.
+     *
+     * @param alias the alias
+     * @return the certificate, or null if the alias is unknown
+     */
+    public Certificate getCertificate(String alias) {
+        IndexEntry entry = alias == null ? null : entries.get(alias);
+        return entry == null ? null : entry.certificate;
+    }
+
+    /**
+     * Get the certificate chain of an alias.
+     *
+     * @param alias the alias
+     * @return the chain, leaf first, shared by every caller, or null if the alias has no certificate
+     */
+    public Certificate[] getCertificateChain(String alias) {
+        IndexEntry entry = alias == null ? null : entries.get(alias);
+        return entry == null ? null : entry.chain;
+    }
+
+    /**
+     * Get the key of an alias.
+     *
+     * @param alias the alias
+     * @return the key, or null if the alias is unknown
+     */
+    public Key getKey(String alias) {
+        IndexEntry entry = alias == null ? null : entries.get(alias);
+        return entry == null ? null : entry.key;
+    }
+
+    /**
+     * Get the alias of a certificate.
+     *
+     * @param certificate the certificate
+     * @return the alias of the first entry holding the certificate, or null if there is none
+     */
+    public String getAlias(Certificate certificate) {
+        ByteBuffer fingerprint = fingerprint(certificate);
+        String alias = fingerprint == null ? null : fingerprints.get(fingerprint);
+        if (alias != null && certificate.equals(getCertificate(alias))) {
+            return alias;
+        }
+        return null;
+    }
+
+    private static ByteBuffer fingerprint(Certificate certificate) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+        } catch (CertificateEncodingException cee) {
+            LOGGER.log(WARNING, "OCIAliasIndex: cannot encode certificate: {0}", cee.getMessage());
+            return null;
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new ProviderException(nsae);
+        }
+    }
+
+    private static final class IndexEntry {
+        private final Certificate certificate;
+        private final Certificate[] chain;
+        private final Key key;
+
+        IndexEntry(Certificate certificate, Certificate[] chain, Key key) {
+            this.certificate = certificate;
+            this.chain = chain;
+            this.key = key;
+        }
+    }
+}
@@ -5,10 +5,12 @@ import java.security.cert.Certificate;
 import java.util.List;
 import java.util.Map;
 
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
+
 /**
  * Store OCI Certificates
  */
-public interface OCICertificates {
+public interface OCICertificates extends AutoCloseable {
 
     /**
      * Get certificate aliases.
@@ -40,6 +42,13 @@ public interface OCICertificates {
      * @return 
      */
     Certificate getCertificate(String alias);
+
+    /**
+     * Get the certificate chain by alias if exits, leaf first. The array is shared and must not be modified.
+     * @param alias certificate alias
+     * @return the certificate chain, or null if the alias has no certificate
+     */
+    Certificate[] getCertificateChain(String alias);
     
     /**
      * Get Key by alias if exits
@@ -47,4 +56,30 @@ public interface OCICertificates {
      * @return 
      */
     Key getKey(String alias);
-}
\ No newline at end of file
+
+    /**
+     * Get a counter which changes whenever the entries of this store change.
+     * @return the modification count
+     */
+    long getModificationCount();
+
+    /**
+     * Get the entries to write in a keystore snapshot.
+     * @return the snapshot entries
+     */
+    List<OCIKeyStoreSnapshot.Entry> getSnapshotEntries();
+
+    /**
+     * Restore the entries of a keystore snapshot which belong to this store. Entries the store already
+     * loaded are newer than the snapshot and are kept.
+     * @param entries the snapshot entries
+     */
+    void restore(List<OCIKeyStoreSnapshot.Entry> entries);
+
+    /**
+     * Stop the background work of this store and release its OCI clients. The keys of the store no
+     * longer sign afterwards.
+     */
+    @Override
+    void close();
+}
@@ -3,49 +3,144 @@ package com.oci.security.keyvault.jca.implementation.certificates;
 import java.security.Key;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
 
+import com.oci.security.keyvault.jca.implementation.OCIBackgroundRefresher;
+import com.oci.security.keyvault.jca.implementation.OCIExecutors;
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
 import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+import com.oci.security.keyvault.jca.implementation.OCIKeyVersionCache;
+import com.oci.security.keyvault.jca.implementation.OCIMetrics;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCIProperties;
 
 /**
  * Store certificates loaded from KeyVault.
+ *
+ * Several certificate authorities can be loaded into one store; they are loaded concurrently and each
+ * alias is indexed to its certificate authority and KMS key. The certificate chain of each alias is
+ * parsed once from the bundle of its certificate authority and shared by every reader.
+ *
+ * The store is loaded once on first use and then refreshed in the background every
+ * {@code oci.refreshIntervalSeconds} seconds (3600 by default, 0 disables it) with
+ * {@code oci.refreshJitterPercent} percent jitter (10 by default). Readers never wait for a refresh,
+ * and a failed refresh keeps the last loaded contents.
+ *
+ * A refresh only reads the metadata of each certificate authority and of its KMS key. The bundle is
+ * downloaded and parsed again only when the current version number of the certificate authority
+ * changed, and the key is rebuilt only when the ETag or current key version of its metadata changed.
+ * A refresh which changes nothing publishes nothing, so the indexes built on the store are kept.
  */
 public final class OCIKeyVaultCertificates implements OCICertificates {
-	/**
-     * Stores the list of aliases.
+
+    /**
+     * Stores the aliases, certificates and certificate keys. Replaced as a whole on refresh.
      */
-    private List<String> aliases = new ArrayList<>();
+    private volatile Entries entries = Entries.EMPTY;
 
     /**
-     * Stores the certificates by alias.
+     * Whether a load was attempted, so an empty store does not reload on every read.
      */
-    private final Map<String, Certificate> certificates = new HashMap<>();
+    private volatile boolean loaded;
+
+    private volatile long modificationCount;
 
     /**
-     * Stores the certificate keys by alias.
+     * The reload in progress, shared by every caller asking for one meanwhile.
      */
-    private final Map<String, Key> certificateKeys = new HashMap<>();
+    private CompletableFuture<Integer> reloading;
+
+    private OCIBackgroundRefresher<OCIKeyVaultCertificates> refresher;
+
+    private List<String> certificateAuthorityIds = Collections.emptyList();
 
     private OCIKeyVaultClient keyVaultClient;
-    
+
+    /**
+     * The crypto endpoint the store was created for, used to create the client when a snapshot is
+     * restored onto a store without certificate authorities.
+     */
+    private String cryptoEndpoint;
+
+    private static final OCIMetrics.Operation REFRESH_METRICS = OCIMetrics.getInstance().operation(OCIMetrics.REFRESH);
+
+    private static final OCIMetrics.Cache BUNDLE_CACHE_METRICS = OCIMetrics.getInstance().cache("certificateAuthorityBundle");
+
     private static final Logger LOGGER = Logger.getLogger(OCIKeyVaultCertificates.class.getName());
 
     public OCIKeyVaultCertificates(String certificateAuthorityId,String cryptoEndpoint) {
-    	LOGGER.log(INFO,"OCIKeyVaultCertificates Constructor is invoked with arguments");
-        updateKeyVaultClient(certificateAuthorityId, cryptoEndpoint);
+    	this(certificateAuthorityId == null ? Collections.<String>emptyList()
+    			: Collections.singletonList(certificateAuthorityId), cryptoEndpoint);
+    }
+
+    public OCIKeyVaultCertificates(List<String> certificateAuthorityIds, String cryptoEndpoint) {
+    	LOGGER.log(INFO,"OCIKeyVaultCertificates Constructor is invoked with arguments {0}", certificateAuthorityIds);
+        updateKeyVaultClient(certificateAuthorityIds, cryptoEndpoint);
+    }
+
+    /**
+     * Constructor with the client reading the certificate authorities.
+     *
+     * @param certificateAuthorityIds the certificate authority ids
+     * @param keyVaultClient          the client
+     */
+    OCIKeyVaultCertificates(List<String> certificateAuthorityIds, OCIKeyVaultClient keyVaultClient) {
+    	LOGGER.log(INFO,"OCIKeyVaultCertificates Constructor is invoked with a client for {0}", certificateAuthorityIds);
+    	this.certificateAuthorityIds = Collections.unmodifiableList(new ArrayList<>(certificateAuthorityIds));
+    	this.keyVaultClient = keyVaultClient;
+    	startRefresher();
     }
 
     public void updateKeyVaultClient(String certificateAuthorityId, String cryptoEndpoint) {
-    	if(keyVaultClient==null && certificateAuthorityId!=null) {
-    		keyVaultClient = new OCIKeyVaultClient(certificateAuthorityId, cryptoEndpoint);
+    	updateKeyVaultClient(certificateAuthorityId == null ? Collections.<String>emptyList()
+    			: Collections.singletonList(certificateAuthorityId), cryptoEndpoint);
+    }
+
+    public synchronized void updateKeyVaultClient(List<String> certificateAuthorityIds, String cryptoEndpoint) {
+    	if (keyVaultClient == null) {
+    		this.cryptoEndpoint = cryptoEndpoint;
+    	}
+    	if(keyVaultClient==null && certificateAuthorityIds!=null && !certificateAuthorityIds.isEmpty()) {
+    		this.certificateAuthorityIds = Collections.unmodifiableList(new ArrayList<>(certificateAuthorityIds));
+    		keyVaultClient = new OCIKeyVaultClient(certificateAuthorityIds.get(0), cryptoEndpoint);
+    		startRefresher();
     	}
     }
 
+    private void startRefresher() {
+    	long interval = OCIProperties.getLong("oci.refreshIntervalSeconds", 3600);
+    	if (interval <= 0) {
+    		return;
+    	}
+    	refresher = OCIBackgroundRefresher.ofAsync("OCIKeyVaultCertificates " + certificateAuthorityIds, this,
+    			OCIKeyVaultCertificates::refreshOrFail, TimeUnit.SECONDS.toMillis(interval),
+    			OCIProperties.getInt("oci.refreshJitterPercent", 10));
+    	refresher.start();
+    }
+
+    /**
+     * Get the background refresher.
+     *
+     * @return the refresher, or null if background refresh is disabled
+     */
+    public OCIBackgroundRefresher<OCIKeyVaultCertificates> getRefresher() {
+    	return refresher;
+    }
+
     /**
      * Get certificate aliases.
      *
@@ -54,9 +149,8 @@ public final class OCIKeyVaultCertificates implements OCICertificates {
     @Override
     public List<String> getAliases() {
     	LOGGER.log(INFO,"OCIKeyVaultCertificates getAliases is invoked");
-    	if(aliases.isEmpty())
-    		refreshCertificates();
-        return aliases;
+    	load();
+        return entries.aliases;
     }
 
     /**
@@ -67,21 +161,47 @@ public final class OCIKeyVaultCertificates implements OCICertificates {
     @Override
     public Map<String, Certificate> getCertificates() {
     	LOGGER.log(INFO,"OCIKeyVaultCertificates getCertificates is invoked");
-    	if(certificates.isEmpty()) {
-    		refreshCertificates();
-    	}
-        return certificates;
+    	load();
+        return entries.certificates;
     }
 
     @Override
     public Certificate getCertificate(String alias) {
-    	return certificates.get(alias);
+    	return entries.certificates.get(alias);
+    }
+
+    @Override
+    public Certificate[] getCertificateChain(String alias) {
+    	return entries.chains.get(alias);
     }
-    
+
     @Override
     public Key getKey(String alias) {
-    	return certificateKeys.get(alias);
+    	return entries.certificateKeys.get(alias);
+    }
+
+    /**
+     * Get the certificate authority an alias was loaded from.
+     *
+     * @param alias certificate alias
+     * @return the certificate authority id, or null if the alias is unknown
+     */
+    public String getCertificateAuthorityId(String alias) {
+    	AliasEntry entry = entries.index.get(alias);
+    	return entry == null ? null : entry.certificateAuthorityId;
+    }
+
+    /**
+     * Get the KMS key of the certificate authority behind an alias.
+     *
+     * @param alias certificate alias
+     * @return the KMS key id, or null if the alias is unknown
+     */
+    public String getKmsKeyId(String alias) {
+    	AliasEntry entry = entries.index.get(alias);
+    	return entry == null ? null : entry.kmsKeyId;
     }
+
     /**
      * Get certificates.
      *
@@ -90,31 +210,236 @@ public final class OCIKeyVaultCertificates implements OCICertificates {
     @Override
     public Map<String, Key> getCertificateKeys() {
     	LOGGER.log(INFO,"OCIKeyVaultCertificates getCertificateKeys is invoked");
-    	if(certificateKeys.isEmpty()) {
-    		refreshCertificates();
+    	load();
+        return entries.certificateKeys;
+    }
+
+    /**
+     * Load the store unless it was already loaded or restored.
+     */
+    public void load() {
+    	if (!loaded) {
+    		reloadAsync().join();
     	}
-        return certificateKeys;
+    }
+
+    /**
+     * Load the store in the background unless it was already loaded or restored.
+     *
+     * @return future completed when the store is loaded
+     */
+    public CompletableFuture<Void> loadAsync() {
+    	return loaded ? CompletableFuture.completedFuture(null) : reloadAsync().thenApply(failed -> null);
     }
 
     /**
      * Refresh certificates. Including certificates, aliases, certificate keys.
      *
+     * Every certificate authority is loaded concurrently: its metadata is read once, then its KMS key
+     * and its bundle are loaded in parallel. The result is published in one step so readers never see
+     * a partially refreshed store, and a load takes as long as the slowest certificate authority.
      */
-    public synchronized void refreshCertificates() {
+    public void refreshCertificates() {
+    	reloadAsync().join();
+    }
+
+    private static CompletableFuture<Integer> refreshOrFail(OCIKeyVaultCertificates certificates) {
+    	return certificates.reloadAsync().thenApply(failed -> {
+    		if (failed > 0) {
+    			throw new IllegalStateException(failed + " of " + certificates.certificateAuthorityIds.size()
+    					+ " certificate authorities could not be loaded");
+    		}
+    		return failed;
+    	});
+    }
+
+    /**
+     * Reload every certificate authority and publish the result. No thread waits while the certificate
+     * authorities load: the result is published by the completion of the last one.
+     *
+     * @return future completed with the number of certificate authorities which could not be loaded
+     */
+    private synchronized CompletableFuture<Integer> reloadAsync() {
+    	if (reloading != null && !reloading.isDone()) {
+    		return reloading;
+    	}
     	LOGGER.log(INFO,"OCIKeyVaultCertificates refreshCertificates is invoked");
-        aliases = keyVaultClient.getAliases();
-	    for(int i=0;i<aliases.size();i++) {
-	    	String alias = aliases.get(i);
-	        Key key = keyVaultClient.getKey(alias, null);
-	        if(!Objects.isNull(key)) {
-	        	certificateKeys.put(alias, key);
-	        }
-	        Certificate cert = keyVaultClient.getCertificate(alias);
-	        if(!Objects.isNull(cert)) {
-	        	certificates.put(alias, cert);
-	        }
-	    }
-	    LOGGER.log(INFO,"OCIKeyVaultCertificates refreshCertificates is completed {0}", aliases);
+    	if (keyVaultClient == null) {
+    		loaded = true;
+    		return CompletableFuture.completedFuture(0);
+    	}
+    	long start = REFRESH_METRICS.start();
+    	Entries current = entries;
+    	List<CompletableFuture<LoadedAuthority>> loads = new ArrayList<>(certificateAuthorityIds.size());
+    	for (String certificateAuthorityId : certificateAuthorityIds) {
+    		loads.add(loadCertificateAuthority(certificateAuthorityId, current.authority(certificateAuthorityId)));
+    	}
+    	reloading = CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+    			.thenApply(v -> publishReload(current, loads, start));
+    	return reloading;
+    }
+
+    /**
+     * Publish the certificate authorities once they are all loaded.
+     *
+     * @return the number of certificate authorities which could not be loaded
+     */
+    private synchronized int publishReload(Entries current, List<CompletableFuture<LoadedAuthority>> loads,
+    		long start) {
+    	Entries.Builder refreshed = new Entries.Builder();
+    	int failed = 0;
+    	for (int i = 0; i < loads.size(); i++) {
+    		LoadedAuthority authority = loads.get(i).join();
+    		if (authority == LoadedAuthority.FAILED) {
+    			// Keep serving what was last loaded for this certificate authority.
+    			refreshed.addAll(current, certificateAuthorityIds.get(i));
+    			failed++;
+    		} else {
+    			refreshed.add(authority);
+    		}
+    	}
+        Entries published = refreshed.build();
+        if (published.sameAs(current)) {
+        	LOGGER.log(INFO, "OCIKeyVaultCertificates refreshCertificates found no change");
+        } else {
+        	publish(published);
+        }
+        loaded = true;
+        if (failed > 0) {
+        	REFRESH_METRICS.failure(start, 0);
+        } else {
+        	REFRESH_METRICS.success(start);
+        }
+	    LOGGER.log(INFO,"OCIKeyVaultCertificates refreshCertificates is completed {0}", published.aliases);
+	    return failed;
+    }
+
+    /**
+     * Load a certificate authority, reusing the chain and key loaded before when they did not change.
+     *
+     * @param previous the certificate authority as loaded before, or null
+     */
+    private CompletableFuture<LoadedAuthority> loadCertificateAuthority(String certificateAuthorityId,
+    		LoadedAuthority previous) {
+    	Executor executor = OCIExecutors.blockingExecutor();
+    	return CompletableFuture.supplyAsync(() -> keyVaultClient.getCertificateAuthority(certificateAuthorityId),
+    			executor).thenCompose(certificateAuthority -> {
+    		if (certificateAuthority == null) {
+    			// Not readable right now: fail it so the last loaded contents are kept.
+    			LOGGER.log(SEVERE, "OCIKeyVaultCertificates no metadata for the certificate authority {0}",
+    					certificateAuthorityId);
+    			return CompletableFuture.completedFuture(LoadedAuthority.FAILED);
+    		}
+    		String kmsKeyId = certificateAuthority.getKmsKeyId();
+    		Long versionNumber = certificateAuthority.getCurrentVersion() == null ? null
+    				: certificateAuthority.getCurrentVersion().getVersionNumber();
+    		Key previousKey = previous != null && Objects.equals(kmsKeyId, previous.kmsKeyId) ? previous.key : null;
+    		CompletableFuture<Key> key = kmsKeyId == null ? CompletableFuture.completedFuture(null)
+    				: CompletableFuture.supplyAsync(() -> keyVaultClient.revalidatePrivateKey(kmsKeyId, previousKey),
+    						executor);
+    		CompletableFuture<Certificate[]> chain;
+    		if (previous != null && previous.chain != null && versionNumber != null
+    				&& versionNumber.equals(previous.versionNumber)) {
+    			BUNDLE_CACHE_METRICS.hit();
+    			chain = CompletableFuture.completedFuture(previous.chain);
+    		} else {
+    			if (previous != null) {
+    				BUNDLE_CACHE_METRICS.miss();
+    			}
+    			chain = CompletableFuture.supplyAsync(() -> keyVaultClient
+    					.getCertificateAuthorityCertificateChain(certificateAuthorityId, versionNumber), executor);
+    		}
+    		return key.thenCombine(chain, (k, c) -> {
+    			if (c == null || k == null) {
+    				// A missing bundle or key is a failed read: keep the last loaded contents.
+    				LOGGER.log(SEVERE, "OCIKeyVaultCertificates no {0} for the certificate authority {1}",
+    						new Object[] { c == null ? "certificate chain" : "key", certificateAuthorityId });
+    				return LoadedAuthority.FAILED;
+    			}
+    			return new LoadedAuthority(certificateAuthority.getName(), certificateAuthorityId, kmsKeyId,
+    					versionNumber, c, k);
+    		});
+    	}).exceptionally(e -> {
+    		LOGGER.log(SEVERE, "OCIKeyVaultCertificates failed to load the certificate authority {0}: {1}",
+    				new Object[] { certificateAuthorityId, e.getMessage() });
+    		return LoadedAuthority.FAILED;
+    	});
+    }
+
+    /**
+     * Refresh certificates in the background.
+     *
+     * @return future completed when the refresh is done
+     */
+    public CompletableFuture<Void> refreshCertificatesAsync() {
+    	return reloadAsync().thenApply(failed -> null);
+    }
+
+    @Override
+    public List<OCIKeyStoreSnapshot.Entry> getSnapshotEntries() {
+    	Entries current = entries;
+    	List<OCIKeyStoreSnapshot.Entry> snapshot = new ArrayList<>(current.aliases.size());
+    	for (String alias : current.aliases) {
+    		Certificate[] chain = current.chains.get(alias);
+    		Key key = current.certificateKeys.get(alias);
+    		AliasEntry entry = current.index.get(alias);
+    		if (chain == null || !(key instanceof OCIPrivateKey)) {
+    			continue;
+    		}
+    		OCIPrivateKey privateKey = (OCIPrivateKey) key;
+    		snapshot.add(new OCIKeyStoreSnapshot.Entry(OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT, alias,
+    				entry.certificateAuthorityId, privateKey.getKid(), privateKey.getKeyName(),
+    				privateKey.getAlgorithm(), privateKey.getKeyLength(),
+    				OCIKeyVersionCache.getInstance().get(privateKey.getKid()), Arrays.asList(chain)));
+    	}
+    	return snapshot;
+    }
+
+    @Override
+    public synchronized void restore(List<OCIKeyStoreSnapshot.Entry> snapshot) {
+    	LOGGER.log(INFO,"OCIKeyVaultCertificates restore is invoked with {0} entries", snapshot.size());
+    	if (keyVaultClient == null) {
+    		// No certificate authority was configured: sign with those the snapshot was stored with.
+    		if (cryptoEndpoint != null) {
+    			updateKeyVaultClient(getCertificateAuthorityIds(snapshot), cryptoEndpoint);
+    		}
+    		if (keyVaultClient == null) {
+    			LOGGER.log(WARNING, "OCIKeyVaultCertificates restore skipped, no crypto endpoint to sign with");
+    			return;
+    		}
+    	}
+    	Entries current = entries;
+    	Entries.Builder restored = new Entries.Builder(current);
+    	for (OCIKeyStoreSnapshot.Entry entry : snapshot) {
+    		if (!OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT.equals(entry.getSource())) {
+    			continue;
+    		}
+    		if (entry.getCertificateAuthorityId() != null
+    				&& current.authority(entry.getCertificateAuthorityId()) != null) {
+    			// Already loaded from OCI, which is newer than the snapshot.
+    			continue;
+    		}
+    		OCIKeyVersionCache.getInstance().put(entry.getKeyId(), entry.getKeyVersionId());
+    		Key key = new OCIPrivateKey(entry.getAlgorithm(), entry.getKeyId(), entry.getKeyName(),
+    				entry.getKeyLength(), keyVaultClient);
+    		Certificate[] chain = entry.getCertificateChain().isEmpty() ? null
+    				: entry.getCertificateChain().toArray(new Certificate[0]);
+    		restored.add(new LoadedAuthority(entry.getAlias(), entry.getCertificateAuthorityId(), entry.getKeyId(),
+    				null, chain, key));
+    	}
+    	publish(restored.build());
+    	loaded = true;
+    }
+
+    private static List<String> getCertificateAuthorityIds(List<OCIKeyStoreSnapshot.Entry> snapshot) {
+    	Set<String> ids = new LinkedHashSet<>();
+    	for (OCIKeyStoreSnapshot.Entry entry : snapshot) {
+    		if (OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT.equals(entry.getSource())
+    				&& entry.getCertificateAuthorityId() != null) {
+    			ids.add(entry.getCertificateAuthorityId());
+    		}
+    	}
+    	return new ArrayList<>(ids);
     }
 
     /**
@@ -123,12 +448,199 @@ public final class OCIKeyVaultCertificates implements OCICertificates {
      * @param alias deleted certificate
      */
     @Override
-    public void deleteEntry(String alias) {
+    public synchronized void deleteEntry(String alias) {
     	LOGGER.log(INFO,"OCIKeyVaultCertificates deleteEntry is invoked for alias {0}", alias);
-        if (aliases != null) {
-            aliases.remove(alias);
-            certificates.remove(alias);
-            certificateKeys.remove(alias);
+        publish(entries.without(alias));
+    }
+
+    @Override
+    public synchronized void close() {
+    	LOGGER.log(INFO,"OCIKeyVaultCertificates close is invoked for {0}", certificateAuthorityIds);
+    	if (refresher != null) {
+    		refresher.stop();
+    	}
+    	if (keyVaultClient != null) {
+    		keyVaultClient.close();
+    	}
+    }
+
+    private void publish(Entries published) {
+    	entries = published;
+    	modificationCount = OCIModificationCounter.next();
+    }
+
+    @Override
+    public long getModificationCount() {
+    	return modificationCount;
+    }
+
+    /**
+     * One certificate authority as loaded from OCI.
+     */
+    private static final class LoadedAuthority {
+
+        /**
+         * Marks a certificate authority which could not be loaded.
+         */
+        private static final LoadedAuthority FAILED = new LoadedAuthority(null, null, null, null, null, null);
+
+        private final String alias;
+        private final String certificateAuthorityId;
+        private final String kmsKeyId;
+        private final Long versionNumber;
+        private final Certificate[] chain;
+        private final Key key;
+
+        LoadedAuthority(String alias, String certificateAuthorityId, String kmsKeyId, Long versionNumber,
+                Certificate[] chain, Key key) {
+            this.alias = alias;
+            this.certificateAuthorityId = certificateAuthorityId;
+            this.kmsKeyId = kmsKeyId;
+            this.versionNumber = versionNumber;
+            this.chain = chain;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Index entry from an alias to its certificate authority, the version it was loaded at, and KMS key.
+     */
+    private static final class AliasEntry {
+        private final String certificateAuthorityId;
+        private final String kmsKeyId;
+        private final Long versionNumber;
+
+        AliasEntry(String certificateAuthorityId, String kmsKeyId, Long versionNumber) {
+            this.certificateAuthorityId = certificateAuthorityId;
+            this.kmsKeyId = kmsKeyId;
+            this.versionNumber = versionNumber;
+        }
+
+        private boolean sameAs(AliasEntry other) {
+            return other != null && Objects.equals(certificateAuthorityId, other.certificateAuthorityId)
+                    && Objects.equals(kmsKeyId, other.kmsKeyId) && Objects.equals(versionNumber, other.versionNumber);
+        }
+    }
+
+    /**
+     * Immutable view of the loaded aliases, certificates, certificate chains and keys.
+     */
+    private static final class Entries {
+
+        private static final Entries EMPTY = new Builder().build();
+
+        private final List<String> aliases;
+        private final Map<String, Certificate> certificates;
+        private final Map<String, Certificate[]> chains;
+        private final Map<String, Key> certificateKeys;
+        private final Map<String, AliasEntry> index;
+
+        private Entries(Builder builder) {
+            this.aliases = Collections.unmodifiableList(builder.aliases);
+            this.certificates = Collections.unmodifiableMap(builder.certificates);
+            this.chains = Collections.unmodifiableMap(builder.chains);
+            this.certificateKeys = Collections.unmodifiableMap(builder.certificateKeys);
+            this.index = Collections.unmodifiableMap(builder.index);
+        }
+
+        /**
+         * Get a certificate authority as loaded in these entries.
+         *
+         * @return the certificate authority, or null if none of the aliases was loaded from it
+         */
+        private LoadedAuthority authority(String certificateAuthorityId) {
+            for (String alias : aliases) {
+                AliasEntry entry = index.get(alias);
+                if (certificateAuthorityId.equals(entry.certificateAuthorityId)) {
+                    return new LoadedAuthority(alias, certificateAuthorityId, entry.kmsKeyId, entry.versionNumber,
+                            chains.get(alias), certificateKeys.get(alias));
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Check whether these entries hold the same aliases, chains and keys as other entries.
+         */
+        private boolean sameAs(Entries other) {
+            if (!aliases.equals(other.aliases)) {
+                return false;
+            }
+            for (String alias : aliases) {
+                if (chains.get(alias) != other.chains.get(alias)
+                        || certificateKeys.get(alias) != other.certificateKeys.get(alias)
+                        || !index.get(alias).sameAs(other.index.get(alias))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Entries without(String alias) {
+            Builder builder = new Builder(this);
+            builder.aliases.remove(alias);
+            builder.certificates.remove(alias);
+            builder.chains.remove(alias);
+            builder.certificateKeys.remove(alias);
+            builder.index.remove(alias);
+            return builder.build();
+        }
+
+        private static final class Builder {
+            private final List<String> aliases;
+            private final Map<String, Certificate> certificates;
+            private final Map<String, Certificate[]> chains;
+            private final Map<String, Key> certificateKeys;
+            private final Map<String, AliasEntry> index;
+
+            Builder() {
+                aliases = new ArrayList<>();
+                certificates = new HashMap<>();
+                chains = new HashMap<>();
+                certificateKeys = new HashMap<>();
+                index = new HashMap<>();
+            }
+
+            Builder(Entries entries) {
+                aliases = new ArrayList<>(entries.aliases);
+                certificates = new HashMap<>(entries.certificates);
+                chains = new HashMap<>(entries.chains);
+                certificateKeys = new HashMap<>(entries.certificateKeys);
+                index = new HashMap<>(entries.index);
+            }
+
+            void add(LoadedAuthority loaded) {
+                if (index.containsKey(loaded.alias)) {
+                    LOGGER.log(WARNING, "OCIKeyVaultCertificates: alias {0} of {1} is already used by {2}",
+                            new Object[] { loaded.alias, loaded.certificateAuthorityId,
+                                    index.get(loaded.alias).certificateAuthorityId });
+                    return;
+                }
+                aliases.add(loaded.alias);
+                index.put(loaded.alias, new AliasEntry(loaded.certificateAuthorityId, loaded.kmsKeyId,
+                        loaded.versionNumber));
+                if (!Objects.isNull(loaded.chain)) {
+                    certificates.put(loaded.alias, loaded.chain[0]);
+                    chains.put(loaded.alias, loaded.chain);
+                }
+                if (!Objects.isNull(loaded.key)) {
+                    certificateKeys.put(loaded.alias, loaded.key);
+                }
+            }
+
+            void addAll(Entries entries, String certificateAuthorityId) {
+                for (String alias : entries.aliases) {
+                    AliasEntry entry = entries.index.get(alias);
+                    if (entry != null && certificateAuthorityId.equals(entry.certificateAuthorityId)) {
+                        add(new LoadedAuthority(alias, entry.certificateAuthorityId, entry.kmsKeyId,
+                                entry.versionNumber, entries.chains.get(alias), entries.certificateKeys.get(alias)));
+                    }
+                }
+            }
+
+            Entries build() {
+                return new Entries(this);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.oci.security.keyvault.jca.implementation.certificates;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide counter of changes to the certificate stores.
+ *
+ * Every store takes its modification count from this counter, so the current value changes whenever
+ * any store changes. Consumers which only see a {@link java.security.KeyStore}, such as the key manager,
+ * compare it to detect that a snapshot they built is out of date.
+ */
+public final class OCIModificationCounter {
+
+    private static final AtomicLong COUNT = new AtomicLong();
+
+    private OCIModificationCounter() {
+    }
+
+    /**
+     * Get the current value.
+     *
+     * @return the current value
+     */
+    public static long current() {
+        return COUNT.get();
+    }
+
+    static long next() {
+        return COUNT.incrementAndGet();
+    }
+}
@@ -5,47 +5,123 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.security.Key;
+import java.security.PublicKey;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
 import java.util.logging.Logger;
 
+import com.oci.security.keyvault.jca.implementation.OCIExecutors;
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
 import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+import com.oci.security.keyvault.jca.implementation.OCIKeyVersionCache;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCIProperties;
 
+/**
+ * Store of certificates signed from CSRs of KMS keys, read from a file or a directory.
+ *
+ * A file is paired with the first configured KMS key. In a directory, every {@code .pem},
+ * {@code .crt}, {@code .cer} and {@code .der} file is a certificate whose alias is the file name
+ * without its extension. Its KMS key is read from the sidecar file {@code <alias>.keyid} when there is
+ * one, and otherwise is the configured KMS key with the same public key as the certificate. The files
+ * are parsed in parallel on {@link OCIExecutors#blockingExecutor()}. A PEM file may hold the whole
+ * certificate chain, leaf first.
+ *
+ * A directory is watched for changes unless {@code oci.certWatch=false}: an added or changed file
+ * replaces its alias and a deleted one removes it, without reloading the other certificates. After a
+ * keystore snapshot is restored, the file or directory is read again in the background to pick up the
+ * changes made meanwhile.
+ */
 public class OCISignedCSRCertificates implements OCICertificates{
-	
+
+    private static final Set<String> CERTIFICATE_EXTENSIONS = new HashSet<>(Arrays.asList("pem", "crt", "cer", "der"));
+    private static final String KEY_ID_EXTENSION = "keyid";
+
 	private final String certificatePath;
-	private final String keyId;
+	private final List<String> keyIds;
 	private final OCIKeyVaultClient ociClient;
-	/**
-     * Stores the list of aliases.
-     */
-	 /**
+
+    /**
      * Stores the specific path aliases.
      */
-    private final List<String> aliases = new ArrayList<>();
+    private final List<String> aliases = new CopyOnWriteArrayList<>();
 
     /**
      * Stores the specific path certificates by alias.
      */
-    private final Map<String, Certificate> certificates = new HashMap<>();
+    private final Map<String, Certificate> certificates = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the specific path certificate chains by alias.
+     */
+    private final Map<String, Certificate[]> chains = new ConcurrentHashMap<>();
 
     /**
      * Stores the specific path certificate keys by alias.
      */
-    private final Map<String, Key> certificateKeys = new HashMap<>();
-    
+    private final Map<String, Key> certificateKeys = new ConcurrentHashMap<>();
+
+    /**
+     * The KMS keys loaded so far, by key id.
+     */
+    private final Map<String, Key> keysById = new ConcurrentHashMap<>();
+
+    /**
+     * The configured KMS keys by Base64 encoded public key, loaded on the first public key comparison.
+     */
+    private volatile Map<String, String> keyIdsByPublicKey;
+
+    private volatile long modificationCount;
+
+    /**
+     * Whether the certificates were loaded or a snapshot restored.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * The load in progress, shared by every caller asking for one meanwhile.
+     */
+    private CompletableFuture<Void> loading;
+
+    private WatchService watchService;
+
+    private boolean closed;
+
     private static final Logger LOGGER = Logger.getLogger(OCISignedCSRCertificates.class.getName());
 
     @Override
     public List<String> getAliases() {
+    	loadOnce();
     	LOGGER.log(INFO, "OCISignedCSRCertificates getAliases is invoked with aliases {0}", aliases);
         return aliases;
     }
@@ -53,37 +129,98 @@ public class OCISignedCSRCertificates implements OCICertificates{
     @Override
     public Map<String, Certificate> getCertificates() {
     	LOGGER.log(INFO, "OCISignedCSRCertificates getCertificates is invoked");
+    	loadOnce();
         return certificates;
     }
 
     @Override
     public Map<String, Key> getCertificateKeys() {
     	LOGGER.log(INFO, "OCISignedCSRCertificates getCertificateKeys is invoked");
+    	loadOnce();
         return certificateKeys;
     }
 
     @Override
-    public void deleteEntry(String alias) {
+    public synchronized void deleteEntry(String alias) {
     	LOGGER.log(INFO, "OCISignedCSRCertificates deleteEntry is invoked for the alias {0}", alias);
         aliases.remove(alias);
         certificates.remove(alias);
+        chains.remove(alias);
         certificateKeys.remove(alias);
+        modificationCount = OCIModificationCounter.next();
     }
-    
+
     @Override
     public Certificate getCertificate(String alias) {
     	LOGGER.log(INFO, "OCISignedCSRCertificates getCertificate is invoked for the alias {0}", alias);
     	return certificates.get(alias);
     }
-    
+
+    @Override
+    public Certificate[] getCertificateChain(String alias) {
+    	return chains.get(alias);
+    }
+
     @Override
     public Key getKey(String alias) {
     	LOGGER.log(INFO, "OCISignedCSRCertificates getKey is invoked for the alias {0}", alias);
     	return certificateKeys.get(alias);
     }
 
+    @Override
+    public long getModificationCount() {
+    	return modificationCount;
+    }
+
+    @Override
+    public List<OCIKeyStoreSnapshot.Entry> getSnapshotEntries() {
+    	List<OCIKeyStoreSnapshot.Entry> snapshot = new ArrayList<>(aliases.size());
+    	for (String alias : aliases) {
+    		Certificate[] chain = chains.get(alias);
+    		Key key = certificateKeys.get(alias);
+    		if (chain == null || !(key instanceof OCIPrivateKey)) {
+    			continue;
+    		}
+    		OCIPrivateKey privateKey = (OCIPrivateKey) key;
+    		snapshot.add(new OCIKeyStoreSnapshot.Entry(OCIKeyStoreSnapshot.Entry.SOURCE_CSR, alias, null,
+    				privateKey.getKid(), privateKey.getKeyName(), privateKey.getAlgorithm(), privateKey.getKeyLength(),
+    				OCIKeyVersionCache.getInstance().get(privateKey.getKid()), Arrays.asList(chain)));
+    	}
+    	return snapshot;
+    }
+
+    @Override
+    public synchronized void restore(List<OCIKeyStoreSnapshot.Entry> snapshot) {
+    	LOGGER.log(INFO, "OCISignedCSRCertificates restore is invoked with {0} entries", snapshot.size());
+    	if (loaded) {
+    		LOGGER.log(INFO, "OCISignedCSRCertificates restore skipped, the files are already loaded");
+    		return;
+    	}
+    	aliases.clear();
+    	certificates.clear();
+    	chains.clear();
+    	certificateKeys.clear();
+    	for (OCIKeyStoreSnapshot.Entry entry : snapshot) {
+    		if (!OCIKeyStoreSnapshot.Entry.SOURCE_CSR.equals(entry.getSource())
+    				|| entry.getCertificateChain().isEmpty()) {
+    			continue;
+    		}
+    		OCIKeyVersionCache.getInstance().put(entry.getKeyId(), entry.getKeyVersionId());
+    		aliases.add(entry.getAlias());
+    		certificates.put(entry.getAlias(), entry.getCertificateChain().get(0));
+    		chains.put(entry.getAlias(), entry.getCertificateChain().toArray(new Certificate[0]));
+    		certificateKeys.put(entry.getAlias(), new OCIPrivateKey(entry.getAlgorithm(), entry.getKeyId(),
+    				entry.getKeyName(), entry.getKeyLength(), ociClient));
+    	}
+    	modificationCount = OCIModificationCounter.next();
+    	loaded = true;
+    	startWatching();
+    	// Files may have changed while the snapshot was stored: pick the changes up in the background.
+    	CompletableFuture.runAsync(this::revalidate, OCIExecutors.blockingExecutor());
+    }
+
     /**
-     * Constructor.
+     * Constructor. Nothing is read until {@link #load()} or the first read of the store.
      *
      * @param certificatePath Store the file path where certificates are placed
      * @param keyId
@@ -91,65 +228,372 @@ public class OCISignedCSRCertificates implements OCICertificates{
      * @param cryptoEndpoint
      */
     public OCISignedCSRCertificates(String certificatePath, String keyId, String certificateAuthorityId,String cryptoEndpoint) {
+    	this(certificatePath, keyId == null ? Collections.<String>emptyList() : Collections.singletonList(keyId),
+    			certificateAuthorityId, cryptoEndpoint);
+    }
+
+    /**
+     * Constructor. Nothing is read until {@link #load()} or the first read of the store.
+     *
+     * @param certificatePath        the certificate file, or the directory of certificates
+     * @param keyIds                 the KMS keys the certificates were issued for
+     * @param certificateAuthorityId the certificate authority id
+     * @param cryptoEndpoint         the vault crypto endpoint
+     */
+    public OCISignedCSRCertificates(String certificatePath, List<String> keyIds, String certificateAuthorityId,
+    		String cryptoEndpoint) {
     	LOGGER.log(INFO, "OCISignedCSRCertificates Constructor is invoked for the Certificate {0}", certificatePath);
         this.certificatePath = certificatePath;
-        this.keyId = keyId;
+        this.keyIds = Collections.unmodifiableList(new ArrayList<>(keyIds));
         ociClient = new OCIKeyVaultClient(certificateAuthorityId, cryptoEndpoint);
-        loadCertificatesFromSpecificPath(this.certificatePath);
     }
 
     /**
-     * Add alias and certificate
+     * Load the certificates and their KMS keys, unless the store was already loaded or restored.
+     */
+    public void load() {
+    	loadAsync().join();
+    }
+
+    /**
+     * Load the certificates and their KMS keys in the background, unless the store was already loaded
+     * or restored. No thread waits while the files load.
+     *
+     * @return future completed when the store is loaded
+     */
+    public synchronized CompletableFuture<Void> loadAsync() {
+    	if (loaded) {
+    		return CompletableFuture.completedFuture(null);
+    	}
+    	if (loading == null) {
+    		loading = loadCertificatesFromSpecificPath(certificatePath).thenRun(this::loadDone);
+    	}
+    	return loading;
+    }
+
+    private synchronized void loadDone() {
+    	loaded = true;
+    	loading = null;
+    	startWatching();
+    }
+
+    private void loadOnce() {
+    	if (!loaded) {
+    		load();
+    	}
+    }
+
+    /**
+     * Add alias and certificate, paired with the first configured KMS key like a single certificate
+     * file.
      *
      * @param alias       certificate alias
      * @param certificate certificate value
      */
-    public void setCertificateEntry(String alias, Certificate certificate) {
+    public synchronized void setCertificateEntry(String alias, Certificate certificate) {
         if (aliases.contains(alias)) {
             LOGGER.log(INFO, "Cannot load certificates with the same alias in specific path {0}", alias);
             return;
         }
-        aliases.add(alias);
-        certificates.put(alias, certificate);
-        certificateKeys.put(alias, ociClient.getPrivateKey(keyId));
+        put(alias, new Certificate[] { certificate }, getKeyById(keyIds.isEmpty() ? null : keyIds.get(0)));
+    }
+
+    /**
+     * Add or replace an entry.
+     */
+    private synchronized void put(String alias, Certificate[] chain, Key key) {
+        if (!aliases.contains(alias)) {
+            aliases.add(alias);
+        }
+        certificates.put(alias, chain[0]);
+        chains.put(alias, chain);
+        if (key != null) {
+            certificateKeys.put(alias, key);
+        } else {
+            certificateKeys.remove(alias);
+        }
+        modificationCount = OCIModificationCounter.next();
     }
 
     /**
-     * If the file can be parsed into a certificate, add it to the list
+     * Parse a certificate file, DER or PEM with one or more certificates.
      *
-     * @param file file which try to parsed into a certificate
+     * @param file file which try to parsed into a certificate chain
+     * @return the certificate chain, leaf first, or null if the file is not a certificate
      * @throws IOException Exception thrown when there is an error in reading all the bytes from the File.
      */
-    private void setCertificateByFile(File file) throws IOException {
-    	LOGGER.log(INFO, "OCISignedCSRCertificates setCertificateByFile is invoked");
-        X509Certificate certificate;
+    private static X509Certificate[] readCertificateChain(File file) throws IOException {
+    	LOGGER.log(INFO, "OCISignedCSRCertificates readCertificate is invoked for {0}", file.getName());
         try (InputStream inputStream = new FileInputStream(file);
             BufferedInputStream bytes = new BufferedInputStream(inputStream)) {
-            String alias = getCertificateAlias(file);
             CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            certificate = (X509Certificate) cf.generateCertificate(bytes);
-            if (certificate != null) {
-                setCertificateEntry(alias, certificate);
-                LOGGER.log(INFO, "Load certificate for the alias {0}",alias);
-            }
+            X509Certificate[] chain = cf.generateCertificates(bytes).toArray(new X509Certificate[0]);
+            return chain.length == 0 ? null : chain;
         } catch (CertificateException e) {
-            LOGGER.log(INFO, "OCISignedCSRCertificates setCertificateByFile Unable to load certificate from: {0}", file.getName());
-            LOGGER.log(INFO,"OCISignedCSRCertificates setCertificateByFile Exception: {0}", e.getMessage());
+            LOGGER.log(INFO, "OCISignedCSRCertificates readCertificate Unable to load certificate from: {0}", file.getName());
+            LOGGER.log(INFO,"OCISignedCSRCertificates readCertificate Exception: {0}", e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Load certificates in the file directory
-     * @param certificatePath certificate path 
+     * Load the certificate file, or every certificate of the directory in parallel.
+     * @param certificatePath certificate path
+     * @return future completed when every certificate is loaded
      */
-    private void loadCertificatesFromSpecificPath(String certificatePath) {
+    private CompletableFuture<Void> loadCertificatesFromSpecificPath(String certificatePath) {
     	LOGGER.log(INFO, "OCISignedCSRCertificates loadCertificatesFromSpecificPath is invoked");
-        try {
-        	File file = new File(certificatePath);
-        	setCertificateByFile(file);
-        } catch (IOException ioe) {
-            LOGGER.log(INFO, "Unable to determine certificates to specific path", ioe);
-        }
+    	File path = new File(certificatePath);
+    	if (!path.isDirectory()) {
+    		return CompletableFuture.runAsync(() -> loadCertificateFile(path), OCIExecutors.blockingExecutor());
+    	}
+    	File[] files = path.listFiles(OCISignedCSRCertificates::isCertificateFile);
+    	if (files == null) {
+    		LOGGER.log(WARNING, "OCISignedCSRCertificates unable to list the directory {0}", certificatePath);
+    		return CompletableFuture.completedFuture(null);
+    	}
+    	Arrays.sort(files);
+    	List<CompletableFuture<LoadedFile>> loads = new ArrayList<>(files.length);
+    	for (File file : files) {
+    		loads.add(CompletableFuture.supplyAsync(() -> loadFile(file), OCIExecutors.blockingExecutor()));
+    	}
+    	return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+    		Set<String> seen = new HashSet<>();
+    		for (CompletableFuture<LoadedFile> load : loads) {
+    			LoadedFile loadedFile = load.join();
+    			if (loadedFile == null) {
+    				continue;
+    			}
+    			if (!seen.add(loadedFile.alias)) {
+    				LOGGER.log(INFO, "Cannot load certificates with the same alias in specific path {0}", loadedFile.alias);
+    				continue;
+    			}
+    			put(loadedFile.alias, loadedFile.chain, loadedFile.key);
+    		}
+    		LOGGER.log(INFO, "OCISignedCSRCertificates loaded {0} certificates from {1}",
+    				new Object[] { seen.size(), certificatePath });
+    	});
+    }
+
+    /**
+     * Load a single certificate file, paired with the first configured KMS key.
+     */
+    private void loadCertificateFile(File path) {
+    	try {
+    		X509Certificate[] chain = readCertificateChain(path);
+    		if (chain != null) {
+    			String alias = getCertificateAlias(path);
+    			put(alias, chain, getKeyById(keyIds.isEmpty() ? null : keyIds.get(0)));
+    			LOGGER.log(INFO, "Load certificate for the alias {0}",alias);
+    		}
+    	} catch (IOException ioe) {
+    		LOGGER.log(INFO, "Unable to determine certificates to specific path", ioe);
+    	}
+    }
+
+    /**
+     * Read a certificate of the directory and find its KMS key.
+     *
+     * @return the loaded file, or null if it is not a certificate
+     */
+    private LoadedFile loadFile(File file) {
+    	try {
+    		X509Certificate[] chain = readCertificateChain(file);
+    		if (chain == null) {
+    			return null;
+    		}
+    		String alias = getCertificateAlias(file);
+    		String keyId = readSidecarKeyId(file, alias);
+    		if (keyId == null) {
+    			keyId = matchKeyId(chain[0]);
+    		}
+    		if (keyId == null) {
+    			LOGGER.log(WARNING, "OCISignedCSRCertificates no KMS key found for the certificate {0}", file.getName());
+    		}
+    		return new LoadedFile(alias, chain, getKeyById(keyId));
+    	} catch (IOException | RuntimeException e) {
+    		LOGGER.log(WARNING, "OCISignedCSRCertificates unable to load {0}: {1}",
+    				new Object[] { file.getName(), e.getMessage() });
+    		return null;
+    	}
+    }
+
+    private static String readSidecarKeyId(File file, String alias) throws IOException {
+    	Path sidecar = file.toPath().resolveSibling(alias + "." + KEY_ID_EXTENSION);
+    	if (!Files.isRegularFile(sidecar)) {
+    		return null;
+    	}
+    	String keyId = new String(Files.readAllBytes(sidecar), StandardCharsets.UTF_8).trim();
+    	return keyId.isEmpty() ? null : keyId;
+    }
+
+    /**
+     * Find the configured KMS key with the public key of a certificate. The public keys of the
+     * configured KMS keys are kept once all of them were loaded; until then, the next certificate
+     * loads the missing ones again.
+     */
+    private String matchKeyId(Certificate certificate) {
+    	Map<String, String> byPublicKey = keyIdsByPublicKey;
+    	if (byPublicKey == null) {
+    		synchronized (keysById) {
+    			byPublicKey = keyIdsByPublicKey;
+    			if (byPublicKey == null) {
+    				byPublicKey = new HashMap<>();
+    				boolean complete = true;
+    				for (String keyId : keyIds) {
+    					PublicKey publicKey = loadPublicKey(keyId);
+    					if (publicKey != null) {
+    						byPublicKey.put(Base64.getEncoder().encodeToString(publicKey.getEncoded()), keyId);
+    					} else {
+    						complete = false;
+    					}
+    				}
+    				if (complete) {
+    					keyIdsByPublicKey = byPublicKey;
+    				}
+    			}
+    		}
+    	}
+    	return byPublicKey.get(Base64.getEncoder().encodeToString(certificate.getPublicKey().getEncoded()));
+    }
+
+    private PublicKey loadPublicKey(String keyId) {
+    	try {
+    		return ociClient.getPublicKey(keyId);
+    	} catch (RuntimeException e) {
+    		LOGGER.log(WARNING, "OCISignedCSRCertificates unable to load the public key of {0}: {1}",
+    				new Object[] { keyId, e.getMessage() });
+    		return null;
+    	}
+    }
+
+    private Key getKeyById(String keyId) {
+    	if (keyId == null) {
+    		return null;
+    	}
+    	Key key = keysById.get(keyId);
+    	if (key == null) {
+    		key = ociClient.getPrivateKey(keyId);
+    		if (key != null) {
+    			keysById.put(keyId, key);
+    		}
+    	}
+    	return key;
+    }
+
+    @Override
+    public synchronized void close() {
+    	LOGGER.log(INFO, "OCISignedCSRCertificates close is invoked for {0}", certificatePath);
+    	closed = true;
+    	if (watchService != null) {
+    		try {
+    			watchService.close();
+    		} catch (IOException ioe) {
+    			LOGGER.log(WARNING, "OCISignedCSRCertificates unable to close the watch service {0}", ioe.getMessage());
+    		}
+    	}
+    	ociClient.close();
+    }
+
+    /**
+     * Watch the certificate directory, unless the store is a single file or {@code oci.certWatch=false}.
+     * The watcher holds the store weakly and stops once the store is no longer used.
+     */
+    private synchronized void startWatching() {
+    	File path = new File(certificatePath);
+    	if (closed || watchService != null || !path.isDirectory() || !OCIProperties.getBoolean("oci.certWatch", true)) {
+    		return;
+    	}
+    	try {
+    		watchService = FileSystems.getDefault().newWatchService();
+    		path.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+    				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    	} catch (IOException ioe) {
+    		LOGGER.log(WARNING, "OCISignedCSRCertificates unable to watch {0}: {1}",
+    				new Object[] { certificatePath, ioe.getMessage() });
+    		return;
+    	}
+    	LOGGER.log(INFO, "OCISignedCSRCertificates watching {0} for changes", certificatePath);
+    	OCIExecutors.daemonThreadFactory("oci-cert-watch")
+    			.newThread(new Watcher(this, watchService, path.toPath())).start();
+    }
+
+    /**
+     * Apply a change of a file of the directory.
+     */
+    private void onChange(Path file) {
+    	String name = file.getFileName().toString();
+    	String extension = extensionOf(name);
+    	String alias = getCertificateAlias(file.toFile());
+    	if (KEY_ID_EXTENSION.equals(extension)) {
+    		// The KMS key of a certificate changed: reload the certificate of the same alias.
+    		File[] certificateFiles = file.getParent().toFile()
+    				.listFiles(f -> isCertificateFile(f) && alias.equals(getCertificateAlias(f)));
+    		if (certificateFiles != null && certificateFiles.length > 0) {
+    			Arrays.sort(certificateFiles);
+    			onChange(certificateFiles[0].toPath());
+    		}
+    		return;
+    	}
+    	if (!CERTIFICATE_EXTENSIONS.contains(extension)) {
+    		return;
+    	}
+    	LoadedFile loadedFile = Files.isRegularFile(file) ? loadFile(file.toFile()) : null;
+    	if (loadedFile != null) {
+    		LOGGER.log(INFO, "OCISignedCSRCertificates reloaded the certificate {0}", alias);
+    		put(alias, loadedFile.chain, loadedFile.key);
+    	} else if (!Files.exists(file) && aliases.contains(alias)) {
+    		LOGGER.log(INFO, "OCISignedCSRCertificates removed the certificate {0}", alias);
+    		deleteEntry(alias);
+    	}
+    }
+
+    /**
+     * Apply the current contents of the certificate file or directory, keeping the unchanged entries.
+     */
+    private void revalidate() {
+    	File path = new File(certificatePath);
+    	if (path.isDirectory()) {
+    		rescan();
+    		return;
+    	}
+    	String alias = getCertificateAlias(path);
+    	if (path.isFile()) {
+    		loadCertificateFile(path);
+    	} else if (aliases.contains(alias)) {
+    		LOGGER.log(INFO, "OCISignedCSRCertificates removed the certificate {0}", alias);
+    		deleteEntry(alias);
+    	}
+    }
+
+    /**
+     * Apply every file of the directory when some changes were lost.
+     */
+    private void rescan() {
+    	LOGGER.log(INFO, "OCISignedCSRCertificates rescanning {0}", certificatePath);
+    	File[] files = new File(certificatePath).listFiles(OCISignedCSRCertificates::isCertificateFile);
+    	if (files == null) {
+    		return;
+    	}
+    	Set<String> present = new HashSet<>();
+    	for (File file : files) {
+    		present.add(getCertificateAlias(file));
+    		onChange(file.toPath());
+    	}
+    	for (String alias : aliases) {
+    		if (!present.contains(alias)) {
+    			deleteEntry(alias);
+    		}
+    	}
+    }
+
+    private static boolean isCertificateFile(File file) {
+    	return file.isFile() && CERTIFICATE_EXTENSIONS.contains(extensionOf(file.getName()));
+    }
+
+    private static String extensionOf(String fileName) {
+    	int lastIndexOfDot = fileName.lastIndexOf('.');
+    	return lastIndexOfDot == -1 ? "" : fileName.substring(lastIndexOfDot + 1).toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -167,4 +611,78 @@ public class OCISignedCSRCertificates implements OCICertificates{
         return fileName.substring(0, lastIndexOfDot);
     }
 
+    /**
+     * A certificate file as loaded, with its KMS key if one was found.
+     */
+    private static final class LoadedFile {
+        private final String alias;
+        private final Certificate[] chain;
+        private final Key key;
+
+        LoadedFile(String alias, Certificate[] chain, Key key) {
+            this.alias = alias;
+            this.chain = chain;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Applies the changes of the certificate directory to a store, one file at a time.
+     */
+    private static final class Watcher implements Runnable {
+        private final WeakReference<OCISignedCSRCertificates> store;
+        private final WatchService watchService;
+        private final Path directory;
+
+        Watcher(OCISignedCSRCertificates store, WatchService watchService, Path directory) {
+            this.store = new WeakReference<>(store);
+            this.watchService = watchService;
+            this.directory = directory;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    WatchKey key = watchService.poll(1, TimeUnit.SECONDS);
+                    if (store.get() == null) {
+                        LOGGER.log(INFO, "OCISignedCSRCertificates store is no longer used, stop watching {0}", directory);
+                        return;
+                    }
+                    if (key == null) {
+                        continue;
+                    }
+                    // A file written in several steps raises several events, apply it once.
+                    Set<Path> changed = new LinkedHashSet<>();
+                    boolean overflow = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            changed.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                    OCISignedCSRCertificates current = store.get();
+                    if (current != null && overflow) {
+                        current.rescan();
+                    } else if (current != null) {
+                        for (Path file : changed) {
+                            current.onChange(file);
+                        }
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException cwse) {
+                // Closed, nothing more to watch.
+            } finally {
+                try {
+                    watchService.close();
+                } catch (IOException ioe) {
+                    LOGGER.log(WARNING, "OCISignedCSRCertificates unable to close the watch service {0}", ioe.getMessage());
+                }
+            }
+        }
+    }
 }
@@ -3,16 +3,26 @@ package com.oci.security.keyvault.jca.implementation.signature;
 import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
 import java.security.InvalidParameterException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.ProviderException;
 import java.security.PublicKey;
 import java.security.SecureRandom;
+import java.security.Security;
+import java.security.Signature;
+import java.security.SignatureException;
 import java.security.SignatureSpi;
 import java.security.spec.AlgorithmParameterSpec;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
 import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCISignPriority;
 import com.oracle.bmc.keymanagement.model.SignDataDetails.SigningAlgorithm;
 
 /**
@@ -27,6 +37,15 @@ public abstract class AbstractKeyVaultKeylessSignature extends SignatureSpi {
 
     protected String keyId;
 
+    // priority class of the signatures, from setParameter or else from the key
+    private OCISignPriority parameterPriority;
+    private OCISignPriority keyPriority;
+
+    // JDK signature engine used when initialized for verification
+    protected Signature verifier;
+
+    private static final Map<String, Provider> VERIFICATION_PROVIDERS = new ConcurrentHashMap<>();
+
     /**
      * The default algorithm for certificate sign when the certificate is stored in Key Vault.
      * @return the default algorithm.
@@ -34,18 +53,53 @@ public abstract class AbstractKeyVaultKeylessSignature extends SignatureSpi {
     public abstract String getAlgorithmName();
     public abstract SigningAlgorithm getOCIAlgorithm();
 
-    // After throw UnsupportedOperationException, other methods will be called.
-    // such as RSAPSSSignature#engineInitVerify.
-    @Override
-    protected void engineInitVerify(PublicKey publicKey) {
-        throw new UnsupportedOperationException("engineInitVerify() not supported");
+    /**
+     * Verification is done locally by a JDK signature engine, so it costs no KMS call. Vault keys can
+     * be verified with the public key returned by {@link OCIKeyVaultClient#getPublicKey(String)},
+     * which is fetched once per key version and cached.
+     *
+     * @param publicKey the public key
+     * @throws InvalidKeyException if the key cannot be used by the JDK engine
+     */
+    protected void initVerifier(PublicKey publicKey) throws InvalidKeyException {
+        Provider provider = getVerificationProvider(getAlgorithmName());
+        if (provider == null) {
+            throw new InvalidKeyException("No signature engine available to verify " + getAlgorithmName());
+        }
+        try {
+            Signature signature = Signature.getInstance(getAlgorithmName(), provider);
+            signature.initVerify(publicKey);
+            verifier = signature;
+        } catch (NoSuchAlgorithmException e) {
+            throw new ProviderException(e);
+        }
     }
 
-    // After throw UnsupportedOperationException, other methods will be called.
-    // such as RSAPSSSignature#engineVerify.
     @Override
-    protected boolean engineVerify(byte[] signature) {
-        throw new UnsupportedOperationException("getParameter() not supported");
+    protected boolean engineVerify(byte[] signature) throws SignatureException {
+        if (verifier == null) {
+            throw new SignatureException("Signature object is not initialized for verification");
+        }
+        return verifier.verify(signature);
+    }
+
+    /**
+     * Get the first installed provider, other than this one, implementing the signature algorithm.
+     */
+    private static Provider getVerificationProvider(String algorithm) {
+        return VERIFICATION_PROVIDERS.computeIfAbsent(algorithm, a -> {
+            String ownPackage = AbstractKeyVaultKeylessSignature.class.getPackage().getName();
+            Provider[] providers = Security.getProviders("Signature." + a);
+            if (providers != null) {
+                for (Provider provider : providers) {
+                    Provider.Service service = provider.getService("Signature", a);
+                    if (service != null && !service.getClassName().startsWith(ownPackage)) {
+                        return provider;
+                    }
+                }
+            }
+            return null;
+        });
     }
 
     // After throw UnsupportedOperationException, other methods will be called.
@@ -70,9 +124,14 @@ public abstract class AbstractKeyVaultKeylessSignature extends SignatureSpi {
     // such as RSAPSSSignature#engineInitSign.
     @Override
     protected void engineInitSign(PrivateKey privateKey, SecureRandom random) {
+        verifier = null;
+        if (messageDigest != null) {
+            messageDigest.reset();
+        }
         if (privateKey instanceof OCIPrivateKey) {
             keyId = ((OCIPrivateKey) privateKey).getKid();
             keyVaultClient = ((OCIPrivateKey) privateKey).getKeyVaultClient();
+            keyPriority = ((OCIPrivateKey) privateKey).getPriority();
         } else {
             throw new UnsupportedOperationException("engineInitSign() not supported which private key is not instance of OCIPrivateKey");
         }
@@ -92,23 +151,51 @@ public abstract class AbstractKeyVaultKeylessSignature extends SignatureSpi {
     }
 
     @Override
-    protected void engineUpdate(byte b) {
-        this.messageDigest.update(b);
+    protected void engineUpdate(byte b) throws SignatureException {
+        if (verifier != null) {
+            verifier.update(b);
+        } else {
+            this.messageDigest.update(b);
+        }
     }
 
     @Override
-    protected void engineUpdate(byte[] b, int off, int len) {
-        this.messageDigest.update(b, off, len);
+    protected void engineUpdate(byte[] b, int off, int len) throws SignatureException {
+        if (verifier != null) {
+            verifier.update(b, off, len);
+        } else {
+            this.messageDigest.update(b, off, len);
+        }
     }
 
     @Override
     protected void engineUpdate(ByteBuffer b) {
-        this.messageDigest.update(b);
+        if (verifier != null) {
+            try {
+                verifier.update(b);
+            } catch (SignatureException e) {
+                throw new ProviderException(e);
+            }
+        } else {
+            this.messageDigest.update(b);
+        }
     }
 
-    //Override this method just do not throw an exception to enable this signature
+    // Accept an OCISignPriority to choose the priority class of the signatures; other parameters are
+    // ignored so that this signature stays enabled.
     @Override
     protected void engineSetParameter(AlgorithmParameterSpec params) throws InvalidAlgorithmParameterException {
+        if (params instanceof OCISignPriority) {
+            parameterPriority = (OCISignPriority) params;
+        }
+    }
+
+    /**
+     * Get the priority class of the signature being made on the calling thread.
+     * @return the priority class, or null for the default
+     */
+    protected OCISignPriority getPriority() {
+        return OCISignPriority.resolve(parameterPriority, keyPriority);
     }
 
     /**
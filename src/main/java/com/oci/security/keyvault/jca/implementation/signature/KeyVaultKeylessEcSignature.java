@@ -1,8 +1,12 @@
 package com.oci.security.keyvault.jca.implementation.signature;
 
+import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.ProviderException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
 import java.util.Base64;
 import java.util.logging.Logger;
 import static java.util.logging.Level.INFO;
@@ -30,14 +34,28 @@ abstract class KeyVaultKeylessEcSignature extends AbstractKeyVaultKeylessSignatu
     }
 
     @Override
-    protected byte[] engineSign() {
+    protected void engineInitVerify(PublicKey publicKey) throws InvalidKeyException {
+    	LOGGER.log(INFO,"KeyVaultKeylessEcSignature engineInitVerify is invoked");
+        if (!(publicKey instanceof ECPublicKey)) {
+            throw new InvalidKeyException("EC public key expected for " + getAlgorithmName());
+        }
+        initVerifier(publicKey);
+    }
+
+    @Override
+    protected byte[] engineSign() throws SignatureException {
     	LOGGER.log(INFO,"KeyVaultKeylessEcSignature engineSign is invoked");
         byte[] mHash = getDigestValue();
         String encode = Base64.getEncoder().encodeToString(mHash);
         if (keyVaultClient != null) {
-        	return keyVaultClient.getSignedWithPrivateKey(keyVaultDigestName, encode, this.getOCIAlgorithm(), keyId);
+            try {
+                return keyVaultClient.getSignedWithPrivateKey(keyVaultDigestName, encode, this.getOCIAlgorithm(), keyId,
+                        getPriority());
+            } catch (RuntimeException e) {
+                throw new SignatureException("OCI Key Vault signing failed: " + e.getMessage(), e);
+            }
         }
-        return new byte[0];
+        throw new SignatureException("Signature object is not initialized for signing");
     }
 
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.oci.security.keyvault.jca.implementation.signature;
 
+import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.ProviderException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.interfaces.RSAPublicKey;
 import java.util.Base64;
 import java.util.logging.Logger;
 import static java.util.logging.Level.INFO;
@@ -31,14 +35,28 @@ abstract class KeyVaultKeylessRsaSignature extends AbstractKeyVaultKeylessSignat
     }
 
     @Override
-    protected byte[] engineSign() {
+    protected void engineInitVerify(PublicKey publicKey) throws InvalidKeyException {
+    	LOGGER.log(INFO,"KeyVaultKeylessRsaSignature engineInitVerify is invoked");
+        if (!(publicKey instanceof RSAPublicKey)) {
+            throw new InvalidKeyException("RSA public key expected for " + getAlgorithmName());
+        }
+        initVerifier(publicKey);
+    }
+
+    @Override
+    protected byte[] engineSign() throws SignatureException {
     	LOGGER.log(INFO,"KeyVaultKeylessRsaSignature engineSign is invoked");
         byte[] mHash = getDigestValue();
         String encode = Base64.getEncoder().encodeToString(mHash);
         if (keyVaultClient != null) {
-            return keyVaultClient.getSignedWithPrivateKey(this.keyVaultDigestName, encode, this.getOCIAlgorithm(), keyId);
+            try {
+                return keyVaultClient.getSignedWithPrivateKey(this.keyVaultDigestName, encode, this.getOCIAlgorithm(), keyId,
+                        getPriority());
+            } catch (RuntimeException e) {
+                throw new SignatureException("OCI Key Vault signing failed: " + e.getMessage(), e);
+            }
         }
-        return new byte[0];
+        throw new SignatureException("Signature object is not initialized for signing");
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import static java.util.logging.Level.INFO;
+import java.util.logging.Logger;
+
+/**
+ * Virtual thread support on Java 21 and later. A blocking OCI call parks its virtual thread instead of
+ * holding a platform thread, so thousands of outstanding calls cost a few kilobytes of heap each.
+ * Virtual threads are disabled with {@code oci.executor.virtualThreads=false}.
+ */
+final class OCIVirtualThreads {
+
+	private static final Logger LOGGER = Logger.getLogger(OCIVirtualThreads.class.getName());
+
+	private OCIVirtualThreads() {
+	}
+
+	/**
+	 * Create an executor starting a virtual thread per task.
+	 *
+	 * @param prefix the thread name prefix
+	 * @return the executor, or null if virtual threads are disabled
+	 */
+	static ExecutorService newExecutor(String prefix) {
+		if (!OCIProperties.getBoolean("oci.executor.virtualThreads", true)) {
+			return null;
+		}
+		LongAdder active = new LongAdder();
+		ThreadFactory virtual = Thread.ofVirtual().name(prefix + "-", 1).factory();
+		ThreadFactory counting = runnable -> virtual.newThread(() -> {
+			active.increment();
+			try {
+				runnable.run();
+			} finally {
+				active.decrement();
+			}
+		});
+		OCIMetrics.getInstance().registerGauge("executor_active_threads", active::sum);
+		// Every task gets its own thread, nothing waits in a queue.
+		OCIMetrics.getInstance().registerGauge("executor_queued_tasks", () -> 0);
+		LOGGER.log(INFO, "OCIVirtualThreads: running blocking OCI calls on virtual threads");
+		return Executors.newThreadPerTaskExecutor(counting);
+	}
+}
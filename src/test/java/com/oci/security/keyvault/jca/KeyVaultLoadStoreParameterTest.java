@@ -0,0 +1,40 @@
+package com.oci.security.keyvault.jca;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class KeyVaultLoadStoreParameterTest {
+
+	@Test
+	public void nullAuthoritiesAreEmpty() {
+		KeyVaultLoadStoreParameter fromList = new KeyVaultLoadStoreParameter((List<String>) null, "https://crypto");
+		assertTrue(fromList.getCertAuthorityIds().isEmpty());
+		assertNull(fromList.getCertAuthorityId());
+
+		KeyVaultLoadStoreParameter fromId = new KeyVaultLoadStoreParameter((String) null, "https://crypto");
+		assertTrue(fromId.getCertAuthorityIds().isEmpty());
+		assertEquals("https://crypto", fromId.getCryptoEndpoint());
+	}
+
+	@Test
+	public void authoritiesAreCopied() {
+		List<String> ids = new ArrayList<>(Arrays.asList("ocid1.certificateauthority.a", "ocid1.certificateauthority.b"));
+		KeyVaultLoadStoreParameter parameter = new KeyVaultLoadStoreParameter(ids, "https://crypto");
+		ids.clear();
+		assertEquals(Arrays.asList("ocid1.certificateauthority.a", "ocid1.certificateauthority.b"),
+				parameter.getCertAuthorityIds());
+		assertEquals("ocid1.certificateauthority.a", parameter.getCertAuthorityId());
+		assertThrows(UnsupportedOperationException.class, () -> parameter.getCertAuthorityIds().add("other"));
+		assertEquals(Collections.singletonList("ocid1.certificateauthority.c"),
+				new KeyVaultLoadStoreParameter("ocid1.certificateauthority.c", null).getCertAuthorityIds());
+	}
+}
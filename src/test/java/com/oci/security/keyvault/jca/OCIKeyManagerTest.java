@@ -0,0 +1,272 @@
+package com.oci.security.keyvault.jca;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OCIKeyManagerTest {
+
+	private static final char[] PASSWORD = "changeit".toCharArray();
+
+	private KeyStore keyStore;
+	private OCIKeyManager keyManager;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		keyStore = KeyStore.getInstance("PKCS12");
+		keyStore.load(null, null);
+		add("default");
+		add("www");
+		add("wildcard");
+		add("rsa");
+		keyManager = new OCIKeyManager(keyStore, PASSWORD);
+	}
+
+	@Test
+	public void aliasIsChosenByKeyTypeAndIssuer() throws Exception {
+		assertEquals("default", keyManager.chooseServerAlias("EC", null, null));
+		assertEquals("default", keyManager.chooseServerAlias("EC_EC", null, null));
+		assertEquals("rsa", keyManager.chooseServerAlias("RSA", null, null));
+		assertNull(keyManager.chooseServerAlias("DSA", null, null));
+		assertEquals("rsa", keyManager.chooseClientAlias(new String[] { "DSA", "RSA", "EC" }, null, null));
+
+		Principal[] rsaIssuer = { certificate("rsa").getIssuerX500Principal() };
+		assertEquals("rsa", keyManager.chooseClientAlias(new String[] { "EC", "RSA" }, rsaIssuer, null));
+		assertNull(keyManager.chooseServerAlias("EC", rsaIssuer, null));
+		assertArrayEquals(new String[] { "default", "www", "wildcard" }, keyManager.getServerAliases("EC", null));
+		assertArrayEquals(new String[] { "rsa" }, keyManager.getClientAliases("RSA", rsaIssuer));
+		assertNull(keyManager.getClientAliases("EC", rsaIssuer));
+	}
+
+	@Test
+	public void chainAndKeyAreServedFromTheSnapshot() throws Exception {
+		X509Certificate[] chain = keyManager.getCertificateChain("rsa");
+		assertArrayEquals(new X509Certificate[] { certificate("rsa") }, chain);
+		chain[0] = null;
+		assertEquals(certificate("rsa"), keyManager.getCertificateChain("rsa")[0]);
+		assertSame(keyManager.getPrivateKey("rsa"), keyManager.getPrivateKey("rsa"));
+		assertEquals(keyStore.getKey("rsa", PASSWORD), keyManager.getPrivateKey("rsa"));
+
+		assertEquals(0, keyManager.getCertificateChain("missing").length);
+		assertEquals(0, keyManager.getCertificateChain(null).length);
+		assertNull(keyManager.getPrivateKey("missing"));
+	}
+
+	@Test
+	public void snapshotFollowsKeyStoreChanges() throws Exception {
+		assertEquals("rsa", keyManager.chooseServerAlias("RSA", null, null));
+		keyStore.deleteEntry("rsa");
+		assertNull(keyManager.chooseServerAlias("RSA", null, null));
+		assertNull(keyManager.getPrivateKey("rsa"));
+
+		add("rsa");
+		assertEquals("rsa", keyManager.chooseServerAlias("RSA", null, null));
+	}
+
+	@Test
+	public void engineServerAliasIsChosenByHostName() throws Exception {
+		assertEquals("www", serverAlias("www.example.com"));
+		assertEquals("www", serverAlias("WWW.Example.COM"));
+		assertEquals("wildcard", serverAlias("api.example.com"));
+		// A wildcard covers a single label.
+		assertEquals("default", serverAlias("a.b.example.com"));
+		assertEquals("default", serverAlias("unknown.test"));
+		assertEquals("default", serverAlias(null));
+	}
+
+	@Test
+	public void hostNameMatchMustHaveTheRequestedKeyType() throws Exception {
+		// Restricted to an RSA suite, the server asks for an RSA key, held for www.example.com by "rsa" only.
+		assertEquals("rsa", serverAlias("www.example.com", "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256"));
+	}
+
+	@Test
+	public void socketServerAliasIsChosenByHostName() throws Exception {
+		SSLContext serverContext = SSLContext.getInstance("TLS");
+		serverContext.init(new KeyManager[] { keyManager }, null, null);
+		try (SSLServerSocket serverSocket = (SSLServerSocket) serverContext.getServerSocketFactory().createServerSocket(0,
+				1, InetAddress.getLoopbackAddress())) {
+			CompletableFuture<Void> server = CompletableFuture.runAsync(() -> {
+				try (SSLSocket accepted = (SSLSocket) serverSocket.accept()) {
+					accepted.startHandshake();
+				} catch (IOException ioe) {
+					throw new UncheckedIOException(ioe);
+				}
+			});
+			try (SSLSocket client = (SSLSocket) clientContext().getSocketFactory()
+					.createSocket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+				client.setSSLParameters(parameters(client.getSSLParameters(), "api.example.com", null));
+				client.startHandshake();
+				assertEquals(certificate("wildcard"), client.getSession().getPeerCertificates()[0]);
+			}
+			server.get(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private String serverAlias(String hostName) throws Exception {
+		return serverAlias(hostName, null);
+	}
+
+	/**
+	 * Run a handshake between two engines, and return the alias whose certificate the server presented.
+	 */
+	private String serverAlias(String hostName, String cipherSuite) throws Exception {
+		SSLContext serverContext = SSLContext.getInstance("TLS");
+		serverContext.init(new KeyManager[] { keyManager }, null, null);
+		SSLEngine server = serverContext.createSSLEngine();
+		server.setUseClientMode(false);
+		SSLEngine client = clientContext().createSSLEngine();
+		client.setUseClientMode(true);
+		client.setSSLParameters(parameters(client.getSSLParameters(), hostName, cipherSuite));
+
+		int packetSize = Math.max(client.getSession().getPacketBufferSize(), server.getSession().getPacketBufferSize());
+		int applicationSize = Math.max(client.getSession().getApplicationBufferSize(),
+				server.getSession().getApplicationBufferSize());
+		ByteBuffer toServer = ByteBuffer.allocate(packetSize);
+		ByteBuffer toClient = ByteBuffer.allocate(packetSize);
+		ByteBuffer clientApplication = ByteBuffer.allocate(applicationSize);
+		ByteBuffer serverApplication = ByteBuffer.allocate(applicationSize);
+		client.beginHandshake();
+		server.beginHandshake();
+		for (int i = 0; i < 100 && !(isHandshakeDone(client) && isHandshakeDone(server)); i++) {
+			exchange(client, toServer, toClient, clientApplication);
+			exchange(server, toClient, toServer, serverApplication);
+		}
+		assertTrue(isHandshakeDone(client) && isHandshakeDone(server));
+
+		Certificate presented = client.getSession().getPeerCertificates()[0];
+		for (String alias : Collections.list(keyStore.aliases())) {
+			if (presented.equals(keyStore.getCertificate(alias))) {
+				return alias;
+			}
+		}
+		return null;
+	}
+
+	private static void exchange(SSLEngine engine, ByteBuffer out, ByteBuffer in, ByteBuffer application)
+			throws SSLException {
+		engine.wrap(ByteBuffer.allocate(0), out);
+		runDelegatedTasks(engine);
+		in.flip();
+		engine.unwrap(in, application);
+		in.compact();
+		runDelegatedTasks(engine);
+	}
+
+	private static void runDelegatedTasks(SSLEngine engine) {
+		Runnable task;
+		while ((task = engine.getDelegatedTask()) != null) {
+			task.run();
+		}
+	}
+
+	private static boolean isHandshakeDone(SSLEngine engine) {
+		return engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING;
+	}
+
+	private static SSLParameters parameters(SSLParameters parameters, String hostName, String cipherSuite) {
+		if (hostName != null) {
+			parameters.setServerNames(Collections.<SNIServerName>singletonList(new SNIHostName(hostName)));
+		}
+		if (cipherSuite != null) {
+			parameters.setProtocols(new String[] { "TLSv1.2" });
+			parameters.setCipherSuites(new String[] { cipherSuite });
+		}
+		return parameters;
+	}
+
+	/**
+	 * A client context trusting any server, as the test only looks at which certificate was presented.
+	 */
+	private static SSLContext clientContext() throws GeneralSecurityException {
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(null, new TrustManager[] { new X509TrustManager() {
+			@Override
+			public void checkClientTrusted(X509Certificate[] chain, String authType) {
+			}
+
+			@Override
+			public void checkServerTrusted(X509Certificate[] chain, String authType) {
+			}
+
+			@Override
+			public X509Certificate[] getAcceptedIssuers() {
+				return new X509Certificate[0];
+			}
+		} }, null);
+		return context;
+	}
+
+	/**
+	 * Add a key entry read from a PEM resource holding the private key and its self-signed certificate.
+	 */
+	private void add(String alias) throws GeneralSecurityException {
+		X509Certificate certificate = certificate(alias);
+		String key = section(pem(alias), "PRIVATE KEY");
+		PrivateKey privateKey = KeyFactory.getInstance(certificate.getPublicKey().getAlgorithm())
+				.generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(key)));
+		keyStore.setKeyEntry(alias, privateKey, PASSWORD, new Certificate[] { certificate });
+	}
+
+	private static X509Certificate certificate(String alias) throws GeneralSecurityException {
+		String certificate = "-----BEGIN CERTIFICATE-----\n" + section(pem(alias), "CERTIFICATE")
+				+ "-----END CERTIFICATE-----\n";
+		return (X509Certificate) CertificateFactory.getInstance("X.509")
+				.generateCertificate(new ByteArrayInputStream(certificate.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private static String section(String pem, String type) {
+		int begin = pem.indexOf("-----BEGIN " + type + "-----");
+		int end = pem.indexOf("-----END " + type + "-----");
+		return pem.substring(pem.indexOf('\n', begin) + 1, end);
+	}
+
+	private static String pem(String alias) {
+		try (InputStream in = OCIKeyManagerTest.class.getResourceAsStream(alias + ".pem");
+				Scanner scanner = new Scanner(in, "US-ASCII")) {
+			return scanner.useDelimiter("\\A").next();
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
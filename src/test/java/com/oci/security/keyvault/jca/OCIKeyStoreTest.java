@@ -0,0 +1,124 @@
+package com.oci.security.keyvault.jca;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCITestTransport;
+import com.oracle.bmc.keymanagement.model.SignDataDetails.SigningAlgorithm;
+import com.oracle.bmc.keymanagement.model.SignedData;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+
+public class OCIKeyStoreTest {
+
+	private static final char[] PASSWORD = "changeit".toCharArray();
+	private static final String[] PROPERTIES = { "oci.transport", "oci.refreshIntervalSeconds", "oci.configFile",
+			"oci.region", "oci.cryptoEndpoint" };
+
+	private List<Certificate> chain;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		System.setProperty("oci.transport", OCITestTransport.NAME);
+		System.setProperty("oci.refreshIntervalSeconds", "0");
+		System.setProperty("oci.configFile", "/nonexistent/oci/config");
+		System.setProperty("oci.region", "us-ashburn-1");
+		CertificateFactory cf = CertificateFactory.getInstance("X.509");
+		try (InputStream leaf = resource("leaf.pem"); InputStream ca = resource("ca.pem")) {
+			chain = Arrays.asList(cf.generateCertificate(leaf), cf.generateCertificate(ca));
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		for (String property : PROPERTIES) {
+			System.clearProperty(property);
+		}
+	}
+
+	@Test
+	public void snapshotIsServedByFreshKeyStore() throws Exception {
+		OCIKeyStore keyStore = new OCIKeyStore();
+		keyStore.engineLoad(new ByteArrayInputStream(snapshot("https://crypto.snapshot")), PASSWORD);
+
+		assertEquals(Collections.singletonList("leaf"), Collections.list(keyStore.engineAliases()));
+		assertArrayEquals(chain.toArray(new Certificate[0]), keyStore.engineGetCertificateChain("leaf"));
+		Key key = keyStore.engineGetKey("leaf", null);
+		assertTrue(key instanceof OCIPrivateKey);
+		assertEquals("ocid1.key.leaf", ((OCIPrivateKey) key).getKid());
+	}
+
+	@Test
+	public void reloadClosesPreviousStores() throws Exception {
+		OCITestTransport.vault("https://crypto.reload").sign = r -> SignResponse.builder()
+				.signedData(SignedData.builder().signature("c2lnbmVk").build()).build();
+		byte[] snapshot = snapshot("https://crypto.reload");
+		OCIKeyStore keyStore = new OCIKeyStore();
+		keyStore.engineLoad(new ByteArrayInputStream(snapshot), PASSWORD);
+		OCIPrivateKey previous = (OCIPrivateKey) keyStore.engineGetKey("leaf", null);
+
+		keyStore.engineLoad(new ByteArrayInputStream(snapshot), PASSWORD);
+		OCIPrivateKey current = (OCIPrivateKey) keyStore.engineGetKey("leaf", null);
+		assertEquals("signed", new String(sign(current), StandardCharsets.UTF_8));
+		assertThrows(IllegalStateException.class, () -> sign(previous));
+	}
+
+	@Test
+	public void constructionReadsNothing() {
+		OCIKeyStore keyStore = new OCIKeyStore();
+		assertEquals(0, keyStore.engineSize());
+		assertFalse(keyStore.engineAliases().hasMoreElements());
+	}
+
+	@Test
+	public void loadParameterWinsOverSystemProperties() throws Exception {
+		System.setProperty("oci.cryptoEndpoint", "https://crypto.properties");
+		OCIKeyStore keyStore = new OCIKeyStore();
+		keyStore.engineLoad(new KeyVaultLoadStoreParameter(Collections.<String>emptyList(), "https://crypto.parameter"));
+
+		ByteArrayOutputStream stored = new ByteArrayOutputStream();
+		keyStore.engineStore(stored, PASSWORD);
+		OCIKeyStoreSnapshot.Contents contents = OCIKeyStoreSnapshot
+				.read(new ByteArrayInputStream(stored.toByteArray()), PASSWORD);
+		assertEquals("https://crypto.parameter", contents.getCryptoEndpoint());
+		assertTrue(contents.getCertificateAuthorityIds().isEmpty());
+	}
+
+	private byte[] snapshot(String cryptoEndpoint) throws IOException {
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		OCIKeyStoreSnapshot.write(snapshot, PASSWORD, Collections.singletonList("ocid1.certificateauthority.a"),
+				cryptoEndpoint, Collections.singletonList(new OCIKeyStoreSnapshot.Entry(
+						OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT, "leaf", "ocid1.certificateauthority.a",
+						"ocid1.key.leaf", null, "EC", 256, "ocid1.keyversion.leaf", chain)));
+		return snapshot.toByteArray();
+	}
+
+	private static byte[] sign(OCIPrivateKey key) {
+		return key.getKeyVaultClient().getSignedWithPrivateKey("SHA-256", "ZGlnZXN0", SigningAlgorithm.EcdsaSha256,
+				key.getKid());
+	}
+
+	private static InputStream resource(String name) {
+		return OCIKeyStoreTest.class.getResourceAsStream("/com/oci/security/keyvault/jca/implementation/" + name);
+	}
+}
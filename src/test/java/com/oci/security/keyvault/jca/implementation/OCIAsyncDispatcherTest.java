@@ -0,0 +1,94 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static com.oci.security.keyvault.jca.implementation.OCIConcurrencyLimiterTest.await;
+import static com.oci.security.keyvault.jca.implementation.OCIConcurrencyLimiterTest.waitFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class OCIAsyncDispatcherTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void tasksOverTheCapWaitWithoutBlockingTheCaller() throws Exception {
+		OCIAsyncDispatcher dispatcher = new OCIAsyncDispatcher(executor, 2);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<CompletableFuture<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			int n = i;
+			results.add(dispatcher.submit(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				await(release);
+				running.decrementAndGet();
+				return n;
+			}));
+		}
+		waitFor(() -> running.get() == 2 && dispatcher.getQueued() == 8);
+		assertEquals(2, dispatcher.getInFlight());
+
+		release.countDown();
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(2, maxRunning.get());
+		// A future completes right before its task gives the slot back.
+		waitFor(() -> dispatcher.getInFlight() == 0);
+		assertEquals(0, dispatcher.getQueued());
+	}
+
+	@Test
+	public void failedTaskFreesItsSlot() throws Exception {
+		OCIAsyncDispatcher dispatcher = new OCIAsyncDispatcher(executor, 1);
+		IllegalStateException failure = new IllegalStateException("sign failed");
+		CompletableFuture<Object> failed = dispatcher.submit(() -> {
+			throw failure;
+		});
+		ExecutionException ee = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+		assertSame(failure, ee.getCause());
+		assertEquals("next", dispatcher.submit(() -> "next").get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void rejectedTaskFailsAndFreesItsSlot() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		OCIAsyncDispatcher dispatcher = new OCIAsyncDispatcher(task -> {
+			if (executions.incrementAndGet() == 1) {
+				throw new RejectedExecutionException("saturated");
+			}
+			task.run();
+		}, 1);
+		CompletableFuture<String> rejected = dispatcher.submit(() -> "rejected");
+		assertTrue(rejected.isCompletedExceptionally());
+		assertEquals(0, dispatcher.getInFlight());
+		assertEquals("accepted", dispatcher.submit(() -> "accepted").get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void invalidSettingsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new OCIAsyncDispatcher(null, 1));
+		assertThrows(IllegalArgumentException.class, () -> new OCIAsyncDispatcher(executor, 0));
+	}
+}
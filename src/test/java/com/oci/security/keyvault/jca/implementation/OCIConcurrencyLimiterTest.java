@@ -0,0 +1,159 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.oracle.bmc.model.BmcException;
+
+public class OCIConcurrencyLimiterTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+		System.clearProperty("oci.limiter.initialLimit");
+		System.clearProperty("oci.limiter.maxWaitMillis");
+		System.clearProperty("oci.limiter.maxQueue");
+		System.clearProperty("oci.limiter.enabled");
+	}
+
+	@Test
+	public void throttledBurstDecreasesLimitOnce() throws Exception {
+		System.setProperty("oci.limiter.initialLimit", "10");
+		OCIConcurrencyLimiter limiter = new OCIConcurrencyLimiter("burst");
+		CountDownLatch throttle = new CountDownLatch(1);
+		List<Future<?>> calls = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			calls.add(executor.submit(() -> limiter.call(() -> {
+				await(throttle);
+				throw new BmcException(429, "TooManyRequests", "throttled", null);
+			})));
+		}
+		waitFor(() -> limiter.getInFlight() == 5);
+		throttle.countDown();
+		for (Future<?> call : calls) {
+			try {
+				call.get(5, TimeUnit.SECONDS);
+			} catch (ExecutionException ee) {
+				assertTrue(ee.getCause() instanceof BmcException);
+			}
+		}
+		assertEquals(9, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+
+		// A request started after the decrease shrinks the limit again.
+		assertThrows(BmcException.class, () -> limiter.call(() -> {
+			throw new BmcException(503, "ServiceUnavailable", "unavailable", null);
+		}));
+		assertEquals(8, limiter.getLimit());
+	}
+
+	@Test
+	public void clientErrorKeepsLimit() {
+		System.setProperty("oci.limiter.initialLimit", "10");
+		OCIConcurrencyLimiter limiter = new OCIConcurrencyLimiter("client-error");
+		assertThrows(BmcException.class, () -> limiter.call(() -> {
+			throw new BmcException(404, "NotFound", "not found", null);
+		}));
+		assertEquals(10, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void requestAboveLimitIsRejectedAfterMaxWait() throws Exception {
+		System.setProperty("oci.limiter.initialLimit", "1");
+		System.setProperty("oci.limiter.maxWaitMillis", "50");
+		OCIConcurrencyLimiter limiter = new OCIConcurrencyLimiter("wait");
+		CountDownLatch done = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> limiter.call(() -> {
+			await(done);
+			return null;
+		}));
+		waitFor(() -> limiter.getInFlight() == 1);
+		long start = System.nanoTime();
+		assertThrows(OCIConcurrencyLimiter.RejectedException.class, () -> limiter.call(() -> "late"));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertEquals(0, limiter.getQueued());
+		done.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		assertEquals("now", limiter.call(() -> "now"));
+	}
+
+	@Test
+	public void waitingRequestRunsWhenPermitIsReleased() throws Exception {
+		System.setProperty("oci.limiter.initialLimit", "1");
+		OCIConcurrencyLimiter limiter = new OCIConcurrencyLimiter("queue");
+		CountDownLatch done = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> limiter.call(() -> {
+			await(done);
+			return null;
+		}));
+		waitFor(() -> limiter.getInFlight() == 1);
+		Future<String> waiter = executor.submit(() -> limiter.call(() -> "queued"));
+		waitFor(() -> limiter.getQueued() == 1);
+		done.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		assertEquals("queued", waiter.get(5, TimeUnit.SECONDS));
+		assertEquals(0, limiter.getQueued());
+	}
+
+	@Test
+	public void fullQueueRejectsAtOnce() throws Exception {
+		System.setProperty("oci.limiter.initialLimit", "1");
+		System.setProperty("oci.limiter.maxQueue", "0");
+		OCIConcurrencyLimiter limiter = new OCIConcurrencyLimiter("full");
+		CountDownLatch done = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> limiter.call(() -> {
+			await(done);
+			return null;
+		}));
+		waitFor(() -> limiter.getInFlight() == 1);
+		assertThrows(OCIConcurrencyLimiter.RejectedException.class, () -> limiter.call(() -> "late"));
+		done.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void disabledLimiterRunsCallsDirectly() {
+		System.setProperty("oci.limiter.enabled", "false");
+		OCIConcurrencyLimiter limiter = new OCIConcurrencyLimiter("disabled");
+		Object response = new Object();
+		assertSame(response, limiter.call(() -> response));
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Latch not released");
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ie);
+		}
+	}
+
+	static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oracle.bmc.model.BmcException;
+
+public class OCIEndpointRouterTest {
+
+	private static final String[] PROPERTIES = { "oci.transport", "oci.routing.probePercent" };
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.transport", OCITestTransport.NAME);
+		System.setProperty("oci.routing.probePercent", "0");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		for (String property : PROPERTIES) {
+			System.clearProperty(property);
+		}
+	}
+
+	@Test
+	public void serverErrorFailsOverAndPenalizesEndpoint() {
+		try (OCIEndpointRouter router = router("failover")) {
+			OCIEndpointRouter.Route primary = router.getRoutes().get(0);
+			OCIEndpointRouter.Route replica = router.getRoutes().get(1);
+			List<String> tried = new ArrayList<>();
+			String response = router.call(route -> {
+				tried.add(route.getEndpoint());
+				if (route == primary) {
+					throw new BmcException(503, "ServiceUnavailable", "unavailable", null);
+				}
+				return "signed";
+			});
+			assertEquals("signed", response);
+			assertEquals(Arrays.asList(primary.getEndpoint(), replica.getEndpoint()), tried);
+			assertTrue(primary.getLatencyMicros() > replica.getLatencyMicros());
+
+			// The penalized primary now ranks after the replica.
+			tried.clear();
+			router.call(route -> tried.add(route.getEndpoint()));
+			assertEquals(Collections.singletonList(replica.getEndpoint()), tried);
+		}
+	}
+
+	@Test
+	public void clientErrorIsNotFailedOver() {
+		try (OCIEndpointRouter router = router("client-error")) {
+			List<String> tried = new ArrayList<>();
+			BmcException be = assertThrows(BmcException.class, () -> router.call(route -> {
+				tried.add(route.getEndpoint());
+				throw new BmcException(404, "NotFound", "no such key", null);
+			}));
+			assertEquals(404, be.getStatusCode());
+			assertEquals(Collections.singletonList("https://crypto.client-error-primary"), tried);
+			assertEquals(0, router.getRoutes().get(0).getLatencyMicros());
+		}
+	}
+
+	@Test
+	public void everyEndpointFailingThrowsLastError() {
+		try (OCIEndpointRouter router = router("all-failing")) {
+			BmcException be = assertThrows(BmcException.class, () -> router.call(route -> {
+				throw new BmcException(route == router.getRoutes().get(0) ? 503 : 429, "Error", "failed", null);
+			}));
+			assertEquals(429, be.getStatusCode());
+		}
+	}
+
+	@Test
+	public void firstSuccessAfterPenaltyReplacesAverage() {
+		try (OCIEndpointRouter router = router("recovered")) {
+			OCIEndpointRouter.Route route = router.getRoutes().get(0);
+			route.record(1000, 0.2);
+			route.penalize(5000);
+			assertEquals(10000, route.getLatencyMicros());
+
+			route.record(100, 0.2);
+			assertEquals(100, route.getLatencyMicros());
+			route.record(200, 0.2);
+			assertEquals(120, route.getLatencyMicros(), 0.001);
+		}
+	}
+
+	@Test
+	public void penaltyIsCappedAtOneMinute() {
+		try (OCIEndpointRouter router = router("capped")) {
+			OCIEndpointRouter.Route route = router.getRoutes().get(0);
+			route.penalize(45_000_000);
+			route.penalize(45_000_000);
+			assertEquals(60_000_000, route.getLatencyMicros());
+		}
+	}
+
+	private static OCIEndpointRouter router(String name) {
+		List<OCIEndpointRouter.Route> routes = new ArrayList<>();
+		for (String role : new String[] { "primary", "replica" }) {
+			String endpoint = "https://crypto." + name + "-" + role;
+			routes.add(new OCIEndpointRouter.Route(endpoint, OCIServiceClients.acquire("us-ashburn-1", endpoint,
+					"https://management." + name + "-" + role, null)));
+		}
+		return new OCIEndpointRouter(routes);
+	}
+}
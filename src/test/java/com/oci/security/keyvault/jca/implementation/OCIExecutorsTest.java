@@ -0,0 +1,71 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static com.oci.security.keyvault.jca.implementation.OCIConcurrencyLimiterTest.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class OCIExecutorsTest {
+
+	@Test
+	public void blockingCallsRunOnDaemonThreads() throws Exception {
+		Thread thread = OCIExecutors.blockingExecutor().submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+		assertTrue(thread.isDaemon());
+		assertTrue(thread.getName().startsWith("oci-kms-"), thread.getName());
+		if (!OCIExecutors.usesVirtualThreads()) {
+			// Without virtual threads the pool must not keep idle platform threads alive.
+			assertTrue(((ThreadPoolExecutor) OCIExecutors.blockingExecutor()).allowsCoreThreadTimeOut());
+		}
+	}
+
+	@Test
+	public void attemptsNeverQueue() throws Exception {
+		if (OCIExecutors.usesVirtualThreads()) {
+			assertSame(OCIExecutors.blockingExecutor(), OCIExecutors.attemptExecutor());
+		} else {
+			assertNotSame(OCIExecutors.blockingExecutor(), OCIExecutors.attemptExecutor());
+		}
+		int attempts = 40;
+		CountDownLatch started = new CountDownLatch(attempts);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < attempts; i++) {
+				futures.add(OCIExecutors.attemptExecutor().submit(() -> {
+					started.countDown();
+					await(release);
+				}));
+			}
+			// More attempts than blocking threads all run at once.
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+		}
+		for (Future<?> future : futures) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void daemonThreadsAreNumbered() {
+		ThreadFactory factory = OCIExecutors.daemonThreadFactory("oci-test");
+		Thread first = factory.newThread(() -> {
+		});
+		Thread second = factory.newThread(() -> {
+		});
+		assertEquals("oci-test-1", first.getName());
+		assertEquals("oci-test-2", second.getName());
+		assertTrue(first.isDaemon() && second.isDaemon());
+	}
+}
@@ -0,0 +1,152 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OCIKeyStoreSnapshotTest {
+
+	private static final char[] PASSWORD = "changeit".toCharArray();
+	private static final int SALT_OFFSET = 8;
+	private static final int BODY_OFFSET = SALT_OFFSET + 4 + 16;
+	private static final int DIGEST_LENGTH = 32;
+
+	private List<Certificate> chain;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		CertificateFactory cf = CertificateFactory.getInstance("X.509");
+		try (InputStream leaf = getClass().getResourceAsStream("leaf.pem");
+				InputStream ca = getClass().getResourceAsStream("ca.pem")) {
+			chain = Arrays.asList(cf.generateCertificate(leaf), cf.generateCertificate(ca));
+		}
+	}
+
+	@Test
+	public void roundTripKeepsEntriesAndConfiguration() throws Exception {
+		byte[] snapshot = write(PASSWORD, Arrays.asList("ocid1.certificateauthority.a",
+				"ocid1.certificateauthority.b"), "https://crypto.example.com");
+		OCIKeyStoreSnapshot.Contents contents = OCIKeyStoreSnapshot.read(new ByteArrayInputStream(snapshot),
+				PASSWORD);
+
+		assertEquals(Arrays.asList("ocid1.certificateauthority.a", "ocid1.certificateauthority.b"),
+				contents.getCertificateAuthorityIds());
+		assertEquals("https://crypto.example.com", contents.getCryptoEndpoint());
+		assertEquals(1, contents.getEntries().size());
+		OCIKeyStoreSnapshot.Entry entry = contents.getEntries().get(0);
+		assertEquals(OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT, entry.getSource());
+		assertEquals("leaf", entry.getAlias());
+		assertEquals("ocid1.certificateauthority.a", entry.getCertificateAuthorityId());
+		assertEquals("ocid1.key.leaf", entry.getKeyId());
+		assertNull(entry.getKeyName());
+		assertEquals("EC", entry.getAlgorithm());
+		assertEquals(256, entry.getKeyLength());
+		assertEquals("ocid1.keyversion.leaf", entry.getKeyVersionId());
+		assertEquals(chain, entry.getCertificateChain());
+	}
+
+	@Test
+	public void snapshotWithoutPasswordIsChecksummed() throws Exception {
+		byte[] snapshot = write(null, null, null);
+		OCIKeyStoreSnapshot.Contents contents = OCIKeyStoreSnapshot.read(new ByteArrayInputStream(snapshot), null);
+		assertNull(contents.getCertificateAuthorityIds());
+		assertNull(contents.getCryptoEndpoint());
+		assertEquals(chain, contents.getEntries().get(0).getCertificateChain());
+
+		assertFails("not password protected", snapshot, PASSWORD);
+	}
+
+	@Test
+	public void tamperedSnapshotIsRejected() throws Exception {
+		byte[] snapshot = write(PASSWORD, Collections.singletonList("ocid1.certificateauthority.a"),
+				"https://crypto.example.com");
+		// Last byte of the body, right before the length and value of the HMAC.
+		snapshot[snapshot.length - DIGEST_LENGTH - 5] ^= 1;
+		assertFails("integrity check failed", snapshot, PASSWORD);
+	}
+
+	@Test
+	public void tamperedChecksumIsRejected() throws Exception {
+		byte[] snapshot = write(null, null, null);
+		snapshot[snapshot.length - 1] ^= 1;
+		assertFails("integrity check failed", snapshot, null);
+	}
+
+	@Test
+	public void wrongPasswordIsRejected() throws Exception {
+		byte[] snapshot = write(PASSWORD, null, null);
+		assertFails("integrity check failed", snapshot, "wrong".toCharArray());
+	}
+
+	@Test
+	public void oversizedLengthIsRejectedBeforeAllocation() throws Exception {
+		byte[] snapshot = write(PASSWORD, null, null);
+		ByteBuffer.wrap(snapshot).putInt(BODY_OFFSET, Integer.MAX_VALUE);
+		assertFails("Invalid length " + Integer.MAX_VALUE, snapshot, PASSWORD);
+
+		snapshot = write(PASSWORD, null, null);
+		ByteBuffer.wrap(snapshot).putInt(SALT_OFFSET, -1);
+		assertFails("Invalid length -1", snapshot, PASSWORD);
+	}
+
+	@Test
+	public void truncatedSnapshotIsRejected() throws Exception {
+		byte[] snapshot = write(PASSWORD, null, null);
+		assertThrows(IOException.class, () -> OCIKeyStoreSnapshot.read(
+				new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length / 2)), PASSWORD));
+	}
+
+	@Test
+	public void foreignStreamIsRejected() {
+		assertFails("Not an OCI keystore snapshot", new byte[] { 'P', 'K', 3, 4, 0, 0, 0, 0 }, null);
+	}
+
+	@Test
+	public void otherVersionIsRejected() throws Exception {
+		byte[] snapshot = write(PASSWORD, null, null);
+		ByteBuffer.wrap(snapshot).putInt(4, 1);
+		assertFails("Unsupported OCI keystore snapshot version 1", snapshot, PASSWORD);
+	}
+
+	@Test
+	public void snapshotsDifferBySalt() throws Exception {
+		byte[] first = write(PASSWORD, null, null);
+		byte[] second = write(PASSWORD, null, null);
+		byte[] firstSalt = Arrays.copyOfRange(first, SALT_OFFSET + 4, SALT_OFFSET + 4 + 16);
+		byte[] secondSalt = Arrays.copyOfRange(second, SALT_OFFSET + 4, SALT_OFFSET + 4 + 16);
+		assertFalse(Arrays.equals(firstSalt, secondSalt));
+	}
+
+	private byte[] write(char[] password, List<String> certificateAuthorityIds, String cryptoEndpoint)
+			throws IOException {
+		OCIKeyStoreSnapshot.Entry entry = new OCIKeyStoreSnapshot.Entry(OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT,
+				"leaf", "ocid1.certificateauthority.a", "ocid1.key.leaf", null, "EC", 256, "ocid1.keyversion.leaf",
+				chain);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		OCIKeyStoreSnapshot.write(out, password, certificateAuthorityIds, cryptoEndpoint,
+				Collections.singletonList(entry));
+		return out.toByteArray();
+	}
+
+	private static void assertFails(String message, byte[] snapshot, char[] password) {
+		IOException ioe = assertThrows(IOException.class,
+				() -> OCIKeyStoreSnapshot.read(new ByteArrayInputStream(snapshot), password));
+		assertTrue(ioe.getMessage().contains(message), ioe.getMessage());
+	}
+}
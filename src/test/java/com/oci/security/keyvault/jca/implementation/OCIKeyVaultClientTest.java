@@ -0,0 +1,234 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oracle.bmc.keymanagement.model.Key;
+import com.oracle.bmc.keymanagement.model.KeyShape;
+import com.oracle.bmc.keymanagement.model.KeyVersion;
+import com.oracle.bmc.keymanagement.model.SignDataDetails.SigningAlgorithm;
+import com.oracle.bmc.keymanagement.model.SignedData;
+import com.oracle.bmc.keymanagement.requests.GetKeyRequest;
+import com.oracle.bmc.keymanagement.requests.GetKeyVersionRequest;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+import com.oracle.bmc.model.BmcException;
+
+public class OCIKeyVaultClientTest {
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.transport", OCITestTransport.NAME);
+		System.setProperty("oci.limiter.initialLimit", "10");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty("oci.transport");
+		System.clearProperty("oci.limiter.initialLimit");
+	}
+
+	@Test
+	public void managementThrottlingLeavesSigningLimit() {
+		OCITestTransport.vault("https://crypto.throttled").getKey = r -> {
+			throw new BmcException(429, "TooManyRequests", "throttled", null);
+		};
+		try (OCIKeyVaultClient client = client("throttled")) {
+			assertThrows(BmcException.class, () -> client.revalidatePrivateKey("ocid1.key.a", null));
+		}
+		assertEquals(10, OCIConcurrencyLimiter.forEndpoint("https://crypto.throttled").getLimit());
+		assertEquals(9, OCIConcurrencyLimiter.forEndpoint("https://management.throttled").getLimit());
+	}
+
+	@Test
+	public void closedClientFailsWithIllegalState() {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.closed");
+		OCIKeyVaultClient client = client("closed");
+		client.close();
+		client.close();
+		assertEquals(1, vault.closed.get());
+		assertEquals(1, OCISignScheduler.forEndpoint("https://crypto.closed").getCapacity());
+		assertThrows(IllegalStateException.class, () -> client.revalidatePrivateKey("ocid1.key.a", null));
+		assertThrows(IllegalStateException.class, () -> client.getPublicKey("ocid1.key.a", "ocid1.keyversion.closed"));
+		assertThrows(IllegalStateException.class, () -> client.getCertificateAuthority("ocid1.certificateauthority.a"));
+	}
+
+	@Test
+	public void unchangedKeyMetadataKeepsPreviousKey() {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.metadata");
+		String[] etag = { "etag-1" };
+		String[] version = { "ocid1.keyversion.1" };
+		vault.getKey = r -> GetKeyResponse.builder().etag(etag[0])
+				.key(Key.builder().id(r.getKeyId()).currentKeyVersion(version[0]).displayName("metadata")
+						.keyShape(KeyShape.builder().algorithm(KeyShape.Algorithm.Ecdsa).length(256).build()).build())
+				.build();
+		try (OCIKeyVaultClient client = client("metadata")) {
+			java.security.Key key = client.revalidatePrivateKey("ocid1.key.metadata", null);
+			assertSame(key, client.revalidatePrivateKey("ocid1.key.metadata", key));
+
+			version[0] = "ocid1.keyversion.2";
+			java.security.Key rotated = client.revalidatePrivateKey("ocid1.key.metadata", key);
+			assertNotSame(key, rotated);
+			assertEquals("ocid1.keyversion.2", OCIKeyVersionCache.getInstance().get("ocid1.key.metadata"));
+
+			etag[0] = "etag-2";
+			assertNotSame(rotated, client.revalidatePrivateKey("ocid1.key.metadata", rotated));
+		}
+	}
+
+	@Test
+	public void cachedKeyVersionSignsWithoutGetKey() {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.cached-version");
+		vault.getKey = currentVersion("ocid1.keyversion.cached");
+		vault.sign = r -> signed(r.getSignDataDetails().getKeyVersionId());
+		try (OCIKeyVaultClient client = client("cached-version")) {
+			for (int i = 0; i < 3; i++) {
+				assertArrayEquals(bytes("ocid1.keyversion.cached"), sign(client, "ocid1.key.cached"));
+			}
+		}
+		assertEquals(1, vault.getKeys.get());
+		assertEquals(3, vault.signs.get());
+	}
+
+	@Test
+	public void staleKeyVersionIsReloadedAndRetriedOnce() {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.stale-version");
+		OCIKeyVersionCache.getInstance().put("ocid1.key.stale", "ocid1.keyversion.old");
+		vault.getKey = currentVersion("ocid1.keyversion.new");
+		vault.sign = r -> {
+			if (r.getSignDataDetails().getKeyVersionId().equals("ocid1.keyversion.old")) {
+				throw new BmcException(400, "InvalidParameter", "key version is disabled", null);
+			}
+			return signed(r.getSignDataDetails().getKeyVersionId());
+		};
+		try (OCIKeyVaultClient client = client("stale-version")) {
+			assertArrayEquals(bytes("ocid1.keyversion.new"), sign(client, "ocid1.key.stale"));
+		}
+		assertEquals(1, vault.getKeys.get());
+		assertEquals(2, vault.signs.get());
+		assertEquals("ocid1.keyversion.new", OCIKeyVersionCache.getInstance().get("ocid1.key.stale"));
+	}
+
+	@Test
+	public void pinnedKeyVersionIsNotRetried() {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.pinned-version");
+		vault.getKey = currentVersion("ocid1.keyversion.new");
+		vault.sign = r -> {
+			throw new BmcException(404, "NotFound", "no such key version", null);
+		};
+		try (OCIKeyVaultClient client = client("pinned-version")) {
+			client.pinKeyVersion("ocid1.key.pinned", "ocid1.keyversion.pinned");
+			BmcException be = assertThrows(BmcException.class, () -> sign(client, "ocid1.key.pinned"));
+			assertEquals(404, be.getStatusCode());
+		} finally {
+			OCIKeyVersionCache.getInstance().unpin("ocid1.key.pinned");
+		}
+		assertEquals(0, vault.getKeys.get());
+		assertEquals(1, vault.signs.get());
+	}
+
+	@Test
+	public void asyncSignaturesRunOnTheClientExecutor() throws Exception {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.async");
+		vault.getKey = currentVersion("ocid1.keyversion.async");
+		vault.sign = r -> signed(Thread.currentThread().getName());
+		ExecutorService executor = Executors.newFixedThreadPool(2, r -> new Thread(r, "async-sign"));
+		try (OCIKeyVaultClient client = client("async")) {
+			client.setAsyncExecutor(executor, 1);
+			List<CompletableFuture<byte[]>> signatures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				signatures.add(client.getSignedWithPrivateKeyAsync("SHA-256", "ZGlnZXN0", SigningAlgorithm.EcdsaSha256,
+						"ocid1.key.async"));
+			}
+			for (CompletableFuture<byte[]> signature : signatures) {
+				assertArrayEquals(bytes("async-sign"), signature.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(4, vault.signs.get());
+	}
+
+	@Test
+	public void publicKeyIsFetchedOnceAndMetered() throws Exception {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.publickey");
+		vault.getKeyVersion = publicKeyVersion(KeyPairGenerator.getInstance("EC").generateKeyPair().getPublic());
+		OCIMetrics metrics = OCIMetrics.getInstance();
+		long calls = metrics.getCallCounts().getOrDefault(OCIMetrics.GET_KEY_VERSION, 0L);
+		try (OCIKeyVaultClient client = client("publickey")) {
+			PublicKey publicKey = client.getPublicKey("ocid1.key.a", "ocid1.keyversion.publickey");
+			assertNotNull(publicKey);
+			assertEquals(publicKey, client.getPublicKey("ocid1.key.a", "ocid1.keyversion.publickey"));
+		}
+		assertEquals(1, vault.getKeyVersions.get());
+		assertEquals(calls + 1, (long) metrics.getCallCounts().get(OCIMetrics.GET_KEY_VERSION));
+	}
+
+	@Test
+	public void publicKeyCacheEvictsLeastRecentlyUsed() throws Exception {
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.evicted");
+		vault.getKeyVersion = publicKeyVersion(KeyPairGenerator.getInstance("EC").generateKeyPair().getPublic());
+		try (OCIKeyVaultClient client = client("evicted")) {
+			client.getPublicKey("ocid1.key.a", "ocid1.keyversion.evicted");
+			for (int i = 0; i < 1000; i++) {
+				client.getPublicKey("ocid1.key.a", "ocid1.keyversion.evicted." + i);
+			}
+			assertEquals(1001, vault.getKeyVersions.get());
+			client.getPublicKey("ocid1.key.a", "ocid1.keyversion.evicted.999");
+			assertEquals(1001, vault.getKeyVersions.get());
+			client.getPublicKey("ocid1.key.a", "ocid1.keyversion.evicted");
+			assertEquals(1002, vault.getKeyVersions.get());
+		}
+	}
+
+	private static Function<GetKeyVersionRequest, GetKeyVersionResponse> publicKeyVersion(PublicKey publicKey) {
+		String pem = "-----BEGIN PUBLIC KEY-----\n" + Base64.getMimeEncoder().encodeToString(publicKey.getEncoded())
+				+ "\n-----END PUBLIC KEY-----\n";
+		return r -> GetKeyVersionResponse.builder()
+				.keyVersion(KeyVersion.builder().id(r.getKeyVersionId()).publicKey(pem).build()).build();
+	}
+
+	private static Function<GetKeyRequest, GetKeyResponse> currentVersion(String keyVersionId) {
+		return r -> GetKeyResponse.builder()
+				.key(Key.builder().id(r.getKeyId()).currentKeyVersion(keyVersionId).build()).build();
+	}
+
+	private static SignResponse signed(String signature) {
+		return SignResponse.builder().signedData(SignedData.builder()
+				.signature(Base64.getEncoder().encodeToString(bytes(signature))).build()).build();
+	}
+
+	private static byte[] sign(OCIKeyVaultClient client, String keyId) {
+		return client.getSignedWithPrivateKey("SHA-256", "ZGlnZXN0", SigningAlgorithm.EcdsaSha256, keyId);
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	static OCIKeyVaultClient client(String vault) {
+		return new OCIKeyVaultClient(null, "us-ashburn-1", "https://crypto." + vault, "https://management." + vault,
+				null, null, null);
+	}
+}
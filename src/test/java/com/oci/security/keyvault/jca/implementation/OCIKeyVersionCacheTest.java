@@ -0,0 +1,62 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class OCIKeyVersionCacheTest {
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty("oci.keyVersionPins");
+	}
+
+	@Test
+	public void versionIsCachedUntilInvalidated() {
+		OCIKeyVersionCache cache = new OCIKeyVersionCache(TimeUnit.MINUTES.toNanos(5));
+		assertNull(cache.get("ocid1.key.a"));
+		cache.put("ocid1.key.a", "ocid1.keyversion.1");
+		assertEquals("ocid1.keyversion.1", cache.get("ocid1.key.a"));
+
+		cache.invalidate("ocid1.key.a");
+		assertNull(cache.get("ocid1.key.a"));
+	}
+
+	@Test
+	public void expiredVersionIsForgotten() throws InterruptedException {
+		OCIKeyVersionCache cache = new OCIKeyVersionCache(TimeUnit.MILLISECONDS.toNanos(1));
+		cache.put("ocid1.key.a", "ocid1.keyversion.1");
+		Thread.sleep(5);
+		assertNull(cache.get("ocid1.key.a"));
+	}
+
+	@Test
+	public void pinnedVersionWinsAndNeverExpires() throws InterruptedException {
+		OCIKeyVersionCache cache = new OCIKeyVersionCache(TimeUnit.MILLISECONDS.toNanos(1));
+		cache.put("ocid1.key.a", "ocid1.keyversion.2");
+		cache.pin("ocid1.key.a", "ocid1.keyversion.1");
+		Thread.sleep(5);
+		cache.invalidate("ocid1.key.a");
+		assertTrue(cache.isPinned("ocid1.key.a"));
+		assertEquals("ocid1.keyversion.1", cache.get("ocid1.key.a"));
+
+		cache.unpin("ocid1.key.a");
+		assertFalse(cache.isPinned("ocid1.key.a"));
+		assertNull(cache.get("ocid1.key.a"));
+	}
+
+	@Test
+	public void pinsAreReadFromProperty() {
+		System.setProperty("oci.keyVersionPins", "ocid1.key.a=ocid1.keyversion.1, invalid,=x,ocid1.key.b=");
+		OCIKeyVersionCache cache = new OCIKeyVersionCache(TimeUnit.MINUTES.toNanos(5));
+		assertEquals("ocid1.keyversion.1", cache.get("ocid1.key.a"));
+		assertFalse(cache.isPinned("ocid1.key.b"));
+		assertFalse(cache.isPinned("invalid"));
+	}
+}
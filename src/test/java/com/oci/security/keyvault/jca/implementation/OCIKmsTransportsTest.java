@@ -0,0 +1,77 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.security.ProviderException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.oracle.bmc.keymanagement.model.SignedData;
+import com.oracle.bmc.keymanagement.requests.SignRequest;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+
+public class OCIKmsTransportsTest {
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty("oci.transport");
+		Thread.interrupted();
+	}
+
+	@Test
+	public void installedTransportIsSelectedByName() {
+		System.setProperty("oci.transport", "TEST");
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.transports");
+		vault.sign = r -> SignResponse.builder().signedData(SignedData.builder().signature("c2lnbmF0dXJl").build())
+				.build();
+		try (OCIServiceClients clients = OCIServiceClients.acquire("us-ashburn-1", "https://crypto.transports",
+				"https://management.transports", null);
+				OCIKmsTransport transport = OCIKmsTransports.create(clients)) {
+			SignResponse response = OCIKmsTransports.await(transport.sign(SignRequest.builder().build()));
+			assertEquals("c2lnbmF0dXJl", response.getSignedData().getSignature());
+		}
+		assertEquals(1, vault.signs.get());
+		assertEquals(1, vault.closed.get());
+	}
+
+	@Test
+	public void missingTransportFallsBackToTheSdkClients() {
+		System.setProperty("oci.transport", "missing");
+		try (OCIServiceClients clients = OCIServiceClients.acquire("us-ashburn-1", "https://crypto.missing",
+				"https://management.missing", null);
+				OCIKmsTransport transport = OCIKmsTransports.create(clients)) {
+			assertSame(OCIKmsTransports.class, transport.getClass().getEnclosingClass());
+		}
+	}
+
+	@Test
+	public void awaitRethrowsTheFailureOfTheCall() {
+		assertEquals("done", OCIKmsTransports.await(CompletableFuture.completedFuture("done")));
+
+		IllegalStateException failure = new IllegalStateException("sign failed");
+		CompletableFuture<String> failed = new CompletableFuture<>();
+		failed.completeExceptionally(failure);
+		assertSame(failure, assertThrows(IllegalStateException.class, () -> OCIKmsTransports.await(failed)));
+
+		IOException checked = new IOException("connection reset");
+		CompletableFuture<String> failedChecked = new CompletableFuture<>();
+		failedChecked.completeExceptionally(checked);
+		assertSame(checked, assertThrows(ProviderException.class, () -> OCIKmsTransports.await(failedChecked))
+				.getCause());
+	}
+
+	@Test
+	public void interruptedWaitCancelsTheCall() {
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		Thread.currentThread().interrupt();
+		assertThrows(ProviderException.class, () -> OCIKmsTransports.await(pending));
+		assertTrue(pending.isCancelled());
+		assertTrue(Thread.interrupted());
+	}
+}
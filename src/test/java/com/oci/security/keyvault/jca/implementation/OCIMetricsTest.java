@@ -0,0 +1,113 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+public class OCIMetricsTest {
+
+	@Test
+	public void countersAreExportedWithTotalSuffix() {
+		OCIMetrics metrics = new OCIMetrics(true);
+		AtomicLong retries = new AtomicLong(3);
+		metrics.registerCounter("sign_retries", retries::get);
+		metrics.registerGauge("limiter_limit", () -> 32);
+
+		String text = metrics.getPrometheusText();
+		assertTrue(text.contains("# TYPE oci_jca_sign_retries_total counter\noci_jca_sign_retries_total 3\n"), text);
+		assertTrue(text.contains("# TYPE oci_jca_limiter_limit gauge\noci_jca_limiter_limit 32\n"), text);
+		assertFalse(text.contains("oci_jca_sign_retries "), text);
+
+		retries.incrementAndGet();
+		assertEquals(Collections.singletonMap("sign_retries", 4L), metrics.getCounters());
+		assertEquals(Collections.singletonMap("limiter_limit", 32L), metrics.getGauges());
+	}
+
+	@Test
+	public void operationsRecordCallsAndErrorsByStatus() {
+		OCIMetrics metrics = new OCIMetrics(true);
+		OCIMetrics.Operation sign = metrics.operation("sign");
+		sign.success(sign.start());
+		sign.failure(sign.start(), 429);
+		sign.failure(sign.start(), 0);
+
+		assertEquals(Collections.singletonMap("sign", 3L), metrics.getCallCounts());
+		assertEquals(1L, metrics.getErrorCounts().get("sign.429"));
+		assertEquals(1L, metrics.getErrorCounts().get("sign.other"));
+		assertEquals(0L, metrics.getInFlight().get("sign"));
+		String text = metrics.getPrometheusText();
+		assertTrue(text.contains("oci_jca_operation_errors_total{operation=\"sign\",status=\"429\"} 1\n"), text);
+	}
+
+	@Test
+	public void latencyHistogramIsCumulative() {
+		OCIMetrics metrics = new OCIMetrics(true);
+		OCIMetrics.Operation getKey = metrics.operation("getKey");
+		getKey.start();
+		getKey.success(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(3));
+
+		String text = metrics.getPrometheusText();
+		assertTrue(text.contains("oci_jca_operation_duration_seconds_bucket{operation=\"getKey\",le=\"0.0025\"} 0\n"),
+				text);
+		assertTrue(text.contains("oci_jca_operation_duration_seconds_bucket{operation=\"getKey\",le=\"0.005\"} 1\n"),
+				text);
+		assertTrue(text.contains("oci_jca_operation_duration_seconds_bucket{operation=\"getKey\",le=\"+Inf\"} 1\n"),
+				text);
+		assertTrue(text.contains("oci_jca_operation_duration_seconds_count{operation=\"getKey\"} 1\n"), text);
+		assertEquals(5000d, metrics.getLatencyMicros().get("getKey.p99"));
+	}
+
+	@Test
+	public void cacheHitRatioAndReset() {
+		OCIMetrics metrics = new OCIMetrics(true);
+		OCIMetrics.Cache publicKeys = metrics.cache("publicKey");
+		publicKeys.hit();
+		publicKeys.hit();
+		publicKeys.hit();
+		publicKeys.miss();
+		OCIMetrics.Operation sign = metrics.operation("sign");
+		sign.success(sign.start());
+
+		assertEquals(Collections.singletonMap("publicKey", 0.75), metrics.getCacheHitRatios());
+		assertTrue(metrics.getPrometheusText()
+				.contains("oci_jca_cache_requests_total{cache=\"publicKey\",result=\"miss\"} 1\n"));
+
+		metrics.reset();
+		assertEquals(Collections.singletonMap("publicKey", 0d), metrics.getCacheHitRatios());
+		assertEquals(Collections.singletonMap("sign", 0L), metrics.getCallCounts());
+	}
+
+	@Test
+	public void disabledMetricsRecordNothing() {
+		OCIMetrics metrics = new OCIMetrics(false);
+		OCIMetrics.Operation sign = metrics.operation("sign");
+		sign.failure(sign.start(), 500);
+		metrics.cache("publicKey").hit();
+
+		assertEquals(Collections.singletonMap("sign", 0L), metrics.getCallCounts());
+		assertEquals(Collections.singletonMap("sign", 0L), metrics.getInFlight());
+		assertTrue(metrics.getErrorCounts().isEmpty());
+		assertEquals(Collections.singletonMap("publicKey", 0d), metrics.getCacheHitRatios());
+	}
+
+	@Test
+	public void sharedMetricsAreRegisteredOnce() throws Exception {
+		OCIMetrics.registerMBean();
+		OCIMetrics.registerMBean();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OCIMetrics.OBJECT_NAME);
+		assertTrue(server.isRegistered(name));
+		assertTrue(((String) server.getAttribute(name, "PrometheusText"))
+				.contains("# TYPE oci_jca_operation_duration_seconds histogram\n"));
+	}
+}
@@ -0,0 +1,90 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OCIPemCertificatesTest {
+
+	private String leaf;
+	private String ca;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		leaf = resource("leaf.pem");
+		ca = resource("ca.pem");
+	}
+
+	@Test
+	public void chainIsParsedLeafFirst() throws Exception {
+		X509Certificate[] chain = OCIPemCertificates.parseChain(leaf + ca);
+		assertEquals(2, chain.length);
+		assertEquals("CN=leaf", chain[0].getSubjectX500Principal().getName());
+		assertEquals("CN=Test CA", chain[1].getSubjectX500Principal().getName());
+	}
+
+	@Test
+	public void certificateRepeatedInChainIsKeptOnce() throws Exception {
+		X509Certificate[] chain = OCIPemCertificates.parseChain(leaf, leaf + ca, ca);
+		assertEquals(2, chain.length);
+		assertEquals("CN=leaf", chain[0].getSubjectX500Principal().getName());
+		assertEquals("CN=Test CA", chain[1].getSubjectX500Principal().getName());
+	}
+
+	@Test
+	public void nullAndEmptyStringsGiveEmptyChain() throws Exception {
+		assertEquals(0, OCIPemCertificates.parseChain().length);
+		assertEquals(0, OCIPemCertificates.parseChain(null, "", "no certificate here").length);
+		assertEquals(1, OCIPemCertificates.parseChain(null, leaf).length);
+	}
+
+	@Test
+	public void lineBreaksAndSurroundingTextAreIgnored() throws Exception {
+		String pem = "Bag Attributes\r\n" + leaf.replace("\n", "\r\n  ") + "\r\ntrailer\r\n" + ca;
+		X509Certificate[] chain = OCIPemCertificates.parseChain(pem);
+		assertEquals(OCIPemCertificates.parseChain(leaf + ca)[0], chain[0]);
+		assertEquals(2, chain.length);
+	}
+
+	@Test
+	public void unterminatedCertificateIsRejected() {
+		String pem = leaf + ca.substring(0, ca.indexOf("-----END"));
+		CertificateException ce = assertThrows(CertificateException.class, () -> OCIPemCertificates.parseChain(pem));
+		assertTrue(ce.getMessage().startsWith("Unterminated PEM certificate at offset " + leaf.length()),
+				ce.getMessage());
+	}
+
+	@Test
+	public void invalidBase64IsRejected() {
+		String pem = "-----BEGIN CERTIFICATE-----\nMIIB*XTCC\n-----END CERTIFICATE-----\n";
+		CertificateException ce = assertThrows(CertificateException.class, () -> OCIPemCertificates.parseChain(pem));
+		assertTrue(ce.getMessage().startsWith("Invalid Base64"), ce.getMessage());
+	}
+
+	@Test
+	public void invalidCertificateIsRejected() {
+		String pem = "-----BEGIN CERTIFICATE-----\nAAECAwQF\n-----END CERTIFICATE-----\n";
+		assertThrows(CertificateException.class, () -> OCIPemCertificates.parseChain(pem));
+	}
+
+	private String resource(String name) throws IOException {
+		try (InputStream in = getClass().getResourceAsStream(name)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int read; (read = in.read(buffer)) > 0;) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oracle.bmc.model.BmcException;
+
+public class OCIResilienceTest {
+
+	private static final String[] PROPERTIES = { "oci.sign.maxAttempts", "oci.sign.attemptTimeoutMillis",
+			"oci.sign.backoffBaseMillis", "oci.sign.backoffMaxMillis", "oci.sign.hedge", "oci.sign.hedgeDelayMillis",
+			"oci.sign.hedgeMaxPercent", "oci.sign.breaker.failures", "oci.sign.breaker.openMillis" };
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.sign.backoffBaseMillis", "1");
+		System.setProperty("oci.sign.backoffMaxMillis", "1");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+		for (String property : PROPERTIES) {
+			System.clearProperty(property);
+		}
+	}
+
+	@Test
+	public void transientErrorsAreRetried() {
+		OCIResilience resilience = new OCIResilience("retry", executor);
+		AtomicInteger attempts = new AtomicInteger();
+		assertEquals("signed", resilience.call(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new BmcException(429, "TooManyRequests", "throttled", null);
+			}
+			return "signed";
+		}));
+		assertEquals(3, attempts.get());
+	}
+
+	@Test
+	public void lastErrorIsThrownOnceAttemptsAreExhausted() {
+		OCIResilience resilience = new OCIResilience("exhausted", executor);
+		AtomicInteger attempts = new AtomicInteger();
+		BmcException be = assertThrows(BmcException.class, () -> resilience.call(() -> {
+			throw new BmcException(500, "InternalServerError", "attempt " + attempts.incrementAndGet(), null);
+		}));
+		assertEquals(3, attempts.get());
+		assertTrue(be.getMessage().contains("attempt 3"));
+	}
+
+	@Test
+	public void clientErrorIsNotRetried() {
+		System.setProperty("oci.sign.breaker.failures", "1");
+		OCIResilience resilience = new OCIResilience("client-error", executor);
+		AtomicInteger attempts = new AtomicInteger();
+		BmcException be = assertThrows(BmcException.class, () -> resilience.call(() -> {
+			attempts.incrementAndGet();
+			throw new BmcException(404, "NotAuthorizedOrNotFound", "not found", null);
+		}));
+		assertEquals(404, be.getStatusCode());
+		assertEquals(1, attempts.get());
+		assertFalse(resilience.isOpen());
+	}
+
+	@Test
+	public void circuitOpensAndClosesAfterTrialCall() throws Exception {
+		System.setProperty("oci.sign.maxAttempts", "1");
+		System.setProperty("oci.sign.breaker.failures", "2");
+		System.setProperty("oci.sign.breaker.openMillis", "100");
+		OCIResilience resilience = new OCIResilience("breaker", executor);
+		AtomicInteger attempts = new AtomicInteger();
+		for (int i = 0; i < 2; i++) {
+			assertThrows(BmcException.class, () -> resilience.call(() -> {
+				attempts.incrementAndGet();
+				throw new BmcException(503, "ServiceUnavailable", "unavailable", null);
+			}));
+		}
+		assertTrue(resilience.isOpen());
+		assertThrows(OCIResilience.CircuitOpenException.class, () -> resilience.call(attempts::incrementAndGet));
+		assertEquals(2, attempts.get());
+
+		Thread.sleep(150);
+		assertEquals("signed", resilience.call(() -> "signed"));
+		assertFalse(resilience.isOpen());
+	}
+
+	@Test
+	public void failedTrialCallReopensCircuit() throws Exception {
+		System.setProperty("oci.sign.maxAttempts", "1");
+		System.setProperty("oci.sign.breaker.failures", "1");
+		System.setProperty("oci.sign.breaker.openMillis", "100");
+		OCIResilience resilience = new OCIResilience("trial", executor);
+		assertThrows(BmcException.class, () -> resilience.call(() -> {
+			throw new BmcException(503, "ServiceUnavailable", "unavailable", null);
+		}));
+		Thread.sleep(150);
+		assertThrows(BmcException.class, () -> resilience.call(() -> {
+			throw new BmcException(503, "ServiceUnavailable", "still unavailable", null);
+		}));
+		assertTrue(resilience.isOpen());
+	}
+
+	@Test
+	public void timedOutAttemptIsInterrupted() throws Exception {
+		System.setProperty("oci.sign.maxAttempts", "1");
+		System.setProperty("oci.sign.attemptTimeoutMillis", "50");
+		OCIResilience resilience = new OCIResilience("timeout", executor);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		BmcException be = assertThrows(BmcException.class,
+				() -> resilience.call(() -> sleepUntilInterrupted(interrupted)));
+		assertTrue(be.isTimeout());
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void hedgedAttemptWinsAndSlowAttemptIsInterrupted() throws Exception {
+		System.setProperty("oci.sign.maxAttempts", "1");
+		System.setProperty("oci.sign.hedge", "true");
+		System.setProperty("oci.sign.hedgeDelayMillis", "20");
+		System.setProperty("oci.sign.hedgeMaxPercent", "100");
+		OCIResilience resilience = new OCIResilience("hedge", executor);
+		AtomicInteger attempts = new AtomicInteger();
+		CountDownLatch interrupted = new CountDownLatch(1);
+		assertEquals("hedged", resilience.call(() -> attempts.incrementAndGet() == 1
+				? sleepUntilInterrupted(interrupted) : "hedged"));
+		assertEquals(2, attempts.get());
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	private static String sleepUntilInterrupted(CountDownLatch interrupted) {
+		try {
+			Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+			return "slow";
+		} catch (InterruptedException ie) {
+			interrupted.countDown();
+			throw new IllegalStateException(ie);
+		}
+	}
+}
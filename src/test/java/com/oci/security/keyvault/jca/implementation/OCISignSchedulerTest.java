@@ -0,0 +1,162 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import static com.oci.security.keyvault.jca.implementation.OCIConcurrencyLimiterTest.await;
+import static com.oci.security.keyvault.jca.implementation.OCIConcurrencyLimiterTest.waitFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.ProviderException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class OCISignSchedulerTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+		System.clearProperty("oci.scheduler.maxWaitMillis");
+	}
+
+	@Test
+	public void capacityFollowsRegisteredLimiters() {
+		OCISignScheduler scheduler = OCISignScheduler.forEndpoint("https://crypto.registered");
+		OCIConcurrencyLimiter primary = new OCIConcurrencyLimiter("registered-primary");
+		OCIConcurrencyLimiter replica = new OCIConcurrencyLimiter("registered-replica");
+		OCISignScheduler.Registration first = scheduler.register(Collections.singletonList(primary));
+		OCISignScheduler.Registration second = scheduler.register(Arrays.asList(primary, replica));
+		// A limiter shared by two clients is counted once.
+		assertEquals(primary.getLimit() + replica.getLimit(), scheduler.getCapacity());
+
+		second.close();
+		assertEquals(primary.getLimit(), scheduler.getCapacity());
+		first.close();
+		assertEquals(1, scheduler.getCapacity());
+	}
+
+	@Test
+	public void interactiveReserveSurvivesBulkFlood() throws Exception {
+		OCISignScheduler scheduler = new OCISignScheduler("flood", () -> 4);
+		CountDownLatch done = new CountDownLatch(1);
+		List<Future<?>> bulk = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			bulk.add(executor.submit(() -> scheduler.call(OCISignPriority.BULK, () -> {
+				await(done);
+				return null;
+			})));
+		}
+		// 25% of 4 slots is kept for interactive signatures.
+		waitFor(() -> scheduler.getInFlight(OCISignPriority.BULK) == 3
+				&& scheduler.getQueued(OCISignPriority.BULK) == 7);
+		assertEquals("handshake", scheduler.call(OCISignPriority.INTERACTIVE, () -> "handshake"));
+		assertEquals(3, scheduler.getInFlight(OCISignPriority.BULK));
+
+		done.countDown();
+		for (Future<?> call : bulk) {
+			call.get(5, TimeUnit.SECONDS);
+		}
+		assertEquals(0, scheduler.getInFlight(OCISignPriority.BULK));
+		assertEquals(0, scheduler.getQueued(OCISignPriority.BULK));
+	}
+
+	@Test
+	public void waitingSignatureTimesOut() throws Exception {
+		System.setProperty("oci.scheduler.maxWaitMillis", "50");
+		OCISignScheduler scheduler = new OCISignScheduler("timeout", () -> 1);
+		CountDownLatch done = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> scheduler.call(OCISignPriority.INTERACTIVE, () -> {
+			await(done);
+			return null;
+		}));
+		waitFor(() -> scheduler.getInFlight(OCISignPriority.INTERACTIVE) == 1);
+		assertThrows(OCIConcurrencyLimiter.RejectedException.class,
+				() -> scheduler.call(OCISignPriority.INTERACTIVE, () -> "late"));
+		assertEquals(0, scheduler.getQueued(OCISignPriority.INTERACTIVE));
+
+		done.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		assertEquals("now", scheduler.call(OCISignPriority.INTERACTIVE, () -> "now"));
+		assertEquals(0, scheduler.getInFlight(OCISignPriority.INTERACTIVE));
+	}
+
+	@Test
+	public void interruptedWaiterLeavesQueue() throws Exception {
+		OCISignScheduler scheduler = new OCISignScheduler("interrupt", () -> 1);
+		CountDownLatch done = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> scheduler.call(OCISignPriority.BULK, () -> {
+			await(done);
+			return null;
+		}));
+		waitFor(() -> scheduler.getInFlight(OCISignPriority.BULK) == 1);
+		Future<?> waiter = executor.submit(() -> scheduler.call(OCISignPriority.BULK, () -> "never"));
+		waitFor(() -> scheduler.getQueued(OCISignPriority.BULK) == 1);
+		waiter.cancel(true);
+		waitFor(() -> scheduler.getQueued(OCISignPriority.BULK) == 0);
+
+		done.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		assertEquals(0, scheduler.getInFlight(OCISignPriority.BULK));
+	}
+
+	@Test
+	public void slotGrantedToInterruptedWaiterIsHandedOver() throws Exception {
+		AtomicBoolean armed = new AtomicBoolean();
+		AtomicReference<Thread> first = new AtomicReference<>();
+		// The capacity is read under the scheduler lock right before granting: the first waiter is
+		// interrupted there, and granted once it has left the condition queue to wait for the lock.
+		OCISignScheduler scheduler = new OCISignScheduler("handover", () -> {
+			if (armed.getAndSet(false)) {
+				Thread thread = first.get();
+				thread.interrupt();
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+				while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+					Thread.yield();
+				}
+			}
+			return 1;
+		});
+		CountDownLatch done = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> scheduler.call(OCISignPriority.INTERACTIVE, () -> {
+			await(done);
+			return null;
+		}));
+		waitFor(() -> scheduler.getInFlight(OCISignPriority.INTERACTIVE) == 1);
+		AtomicBoolean firstRan = new AtomicBoolean();
+		Future<?> interrupted = executor.submit(() -> {
+			first.set(Thread.currentThread());
+			return scheduler.call(OCISignPriority.INTERACTIVE, () -> firstRan.getAndSet(true));
+		});
+		waitFor(() -> scheduler.getQueued(OCISignPriority.INTERACTIVE) == 1);
+		Future<String> second = executor.submit(() -> scheduler.call(OCISignPriority.INTERACTIVE,
+				() -> "second"));
+		waitFor(() -> scheduler.getQueued(OCISignPriority.INTERACTIVE) == 2);
+
+		armed.set(true);
+		done.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		ExecutionException ee = assertThrows(ExecutionException.class,
+				() -> interrupted.get(5, TimeUnit.SECONDS));
+		assertTrue(ee.getCause() instanceof ProviderException);
+		assertTrue(ee.getCause().getCause() instanceof InterruptedException);
+		assertEquals("second", second.get(5, TimeUnit.SECONDS));
+		assertFalse(firstRan.get());
+		assertEquals(0, scheduler.getInFlight(OCISignPriority.INTERACTIVE));
+		assertEquals(0, scheduler.getQueued(OCISignPriority.INTERACTIVE));
+	}
+}
@@ -0,0 +1,100 @@
+package com.oci.security.keyvault.jca.implementation;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.oracle.bmc.auth.AbstractAuthenticationDetailsProvider;
+import com.oracle.bmc.keymanagement.requests.GetKeyRequest;
+import com.oracle.bmc.keymanagement.requests.GetKeyVersionRequest;
+import com.oracle.bmc.keymanagement.requests.SignRequest;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+import com.oracle.bmc.model.BmcException;
+
+/**
+ * Transport selected with {@code oci.transport=test}, answering the KMS calls of each crypto endpoint
+ * with the handlers of its {@link Vault}.
+ */
+public class OCITestTransport implements OCIKmsTransport.Factory {
+
+	public static final String NAME = "test";
+
+	private static final Map<String, Vault> VAULTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the vault of a crypto endpoint, failing every call until its handlers are set.
+	 */
+	public static Vault vault(String cryptoEndpoint) {
+		return VAULTS.computeIfAbsent(cryptoEndpoint, Vault::new);
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public OCIKmsTransport create(String cryptoEndpoint, String managementEndpoint,
+			AbstractAuthenticationDetailsProvider provider) {
+		Vault vault = vault(cryptoEndpoint);
+		return new OCIKmsTransport() {
+
+			@Override
+			public CompletableFuture<SignResponse> sign(SignRequest request) {
+				vault.signs.incrementAndGet();
+				return complete(vault.sign, request);
+			}
+
+			@Override
+			public CompletableFuture<GetKeyResponse> getKey(GetKeyRequest request) {
+				vault.getKeys.incrementAndGet();
+				return complete(vault.getKey, request);
+			}
+
+			@Override
+			public CompletableFuture<GetKeyVersionResponse> getKeyVersion(GetKeyVersionRequest request) {
+				vault.getKeyVersions.incrementAndGet();
+				return complete(vault.getKeyVersion, request);
+			}
+
+			@Override
+			public void close() {
+				vault.closed.incrementAndGet();
+			}
+		};
+	}
+
+	private static <Q, R> CompletableFuture<R> complete(Function<Q, R> handler, Q request) {
+		CompletableFuture<R> future = new CompletableFuture<>();
+		try {
+			future.complete(handler.apply(request));
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	public static final class Vault {
+
+		private final String endpoint;
+		public volatile Function<SignRequest, SignResponse> sign = r -> unavailable();
+		public volatile Function<GetKeyRequest, GetKeyResponse> getKey = r -> unavailable();
+		public volatile Function<GetKeyVersionRequest, GetKeyVersionResponse> getKeyVersion = r -> unavailable();
+		public final AtomicInteger signs = new AtomicInteger();
+		public final AtomicInteger getKeys = new AtomicInteger();
+		public final AtomicInteger getKeyVersions = new AtomicInteger();
+		public final AtomicInteger closed = new AtomicInteger();
+
+		private Vault(String endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		private <T> T unavailable() {
+			throw new BmcException(503, "ServiceUnavailable", endpoint + " is not set up", null);
+		}
+	}
+}
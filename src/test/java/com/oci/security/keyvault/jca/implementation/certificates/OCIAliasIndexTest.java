@@ -0,0 +1,91 @@
+package com.oci.security.keyvault.jca.implementation.certificates;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OCIAliasIndexTest {
+
+	private static final String CA_A = "ocid1.certificateauthority.a";
+	private static final String CA_B = "ocid1.certificateauthority.b";
+	private static final String CA_C = "ocid1.certificateauthority.c";
+
+	private X509Certificate[] chain;
+	private OCITestKeyVaultClient firstClient;
+	private OCIKeyVaultCertificates first;
+	private OCIKeyVaultCertificates second;
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.refreshIntervalSeconds", "0");
+		chain = OCITestKeyVaultClient.chain();
+		firstClient = new OCITestKeyVaultClient("index-first");
+		firstClient.put(CA_A, "shared", 1, chain);
+		first = new OCIKeyVaultCertificates(Collections.singletonList(CA_A), firstClient);
+		first.load();
+
+		OCITestKeyVaultClient secondClient = new OCITestKeyVaultClient("index-second");
+		secondClient.put(CA_B, "shared", 1, new X509Certificate[] { chain[1] });
+		secondClient.put(CA_C, "ca", 1, new X509Certificate[] { chain[1] });
+		second = new OCIKeyVaultCertificates(Arrays.asList(CA_B, CA_C), secondClient);
+		second.load();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty("oci.refreshIntervalSeconds");
+	}
+
+	@Test
+	public void aliasesAreMergedInStoreOrder() {
+		OCIAliasIndex index = OCIAliasIndex.build(Arrays.<OCICertificates>asList(first, second));
+		assertEquals(Arrays.asList("shared", "ca"), index.getAliases());
+		assertEquals(2, index.size());
+		assertTrue(index.contains("ca"));
+		assertFalse(index.contains("missing"));
+		assertFalse(index.contains(null));
+
+		// The certificate comes from the first store holding one, the key from the last.
+		assertSame(chain[0], index.getCertificate("shared"));
+		assertArrayEquals(chain, index.getCertificateChain("shared"));
+		assertSame(second.getKey("shared"), index.getKey("shared"));
+		assertNull(index.getCertificate("missing"));
+		assertNull(index.getKey(null));
+	}
+
+	@Test
+	public void certificatesAreFoundByFingerprint() {
+		OCIAliasIndex index = OCIAliasIndex.build(Arrays.<OCICertificates>asList(first, second));
+		assertEquals("shared", index.getAlias(chain[0]));
+		assertEquals("ca", index.getAlias(chain[1]));
+
+		// The issuer is in the chain of the first store, but no alias holds it as its certificate.
+		OCIAliasIndex firstOnly = OCIAliasIndex.build(Collections.<OCICertificates>singletonList(first));
+		assertNull(firstOnly.getAlias(chain[1]));
+	}
+
+	@Test
+	public void changedStoreMakesIndexStale() {
+		List<OCICertificates> stores = Arrays.<OCICertificates>asList(first, second);
+		OCIAliasIndex index = OCIAliasIndex.build(stores);
+		assertTrue(index.isCurrent(stores));
+		assertFalse(index.isCurrent(Collections.<OCICertificates>singletonList(first)));
+
+		firstClient.put(CA_A, "renamed", 2, chain);
+		first.refreshCertificates();
+		assertFalse(index.isCurrent(stores));
+		assertEquals(Arrays.asList("renamed", "shared", "ca"), OCIAliasIndex.build(stores).getAliases());
+	}
+}
@@ -0,0 +1,187 @@
+package com.oci.security.keyvault.jca.implementation.certificates;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyStoreSnapshot;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCITestTransport;
+import com.oracle.bmc.certificatesmanagement.model.CertificateAuthority;
+import com.oracle.bmc.keymanagement.model.SignDataDetails.SigningAlgorithm;
+import com.oracle.bmc.keymanagement.model.SignedData;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+
+public class OCIKeyVaultCertificatesTest {
+
+	private static final String CA_A = "ocid1.certificateauthority.a";
+	private static final String CA_B = "ocid1.certificateauthority.b";
+	private static final String[] PROPERTIES = { "oci.transport", "oci.refreshIntervalSeconds", "oci.configFile",
+			"oci.region" };
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.transport", OCITestTransport.NAME);
+		System.setProperty("oci.refreshIntervalSeconds", "0");
+		// Clients created by the store find no configuration file and sign through the test transport.
+		System.setProperty("oci.configFile", "/nonexistent/oci/config");
+		System.setProperty("oci.region", "us-ashburn-1");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		for (String property : PROPERTIES) {
+			System.clearProperty(property);
+		}
+	}
+
+	@Test
+	public void authoritiesLoadInParallel() {
+		String[] ids = { CA_A, CA_B, "ocid1.certificateauthority.c" };
+		CountDownLatch arrived = new CountDownLatch(ids.length);
+		OCITestKeyVaultClient client = new OCITestKeyVaultClient("parallel") {
+
+			@Override
+			public CertificateAuthority getCertificateAuthority(String certificateAuthorityId) {
+				// Each read waits for the others, so a sequential load finds no authority.
+				arrived.countDown();
+				try {
+					arrived.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				return arrived.getCount() == 0 ? super.getCertificateAuthority(certificateAuthorityId) : null;
+			}
+		};
+		for (int i = 0; i < ids.length; i++) {
+			client.put(ids[i], "ca" + i, 1, OCITestKeyVaultClient.chain());
+		}
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Arrays.asList(ids), client);
+		certificates.load();
+		assertEquals(Arrays.asList("ca0", "ca1", "ca2"), certificates.getAliases());
+		// One bundle read per certificate authority gives its whole chain.
+		assertEquals(ids.length, client.bundleReads.get());
+		assertArrayEquals(OCITestKeyVaultClient.chain(), certificates.getCertificateChain("ca1"));
+	}
+
+	@Test
+	public void unchangedVersionIsNotReadAgain() {
+		OCITestKeyVaultClient client = new OCITestKeyVaultClient("unchanged");
+		client.put(CA_A, "a", 1, OCITestKeyVaultClient.chain());
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Collections.singletonList(CA_A), client);
+		certificates.load();
+		Certificate[] chain = certificates.getCertificateChain("a");
+		Key key = certificates.getKey("a");
+		long modificationCount = certificates.getModificationCount();
+
+		certificates.refreshCertificates();
+		assertEquals(1, client.bundleReads.get());
+		assertSame(key, certificates.getKey("a"));
+		assertArrayEquals(chain, certificates.getCertificateChain("a"));
+		assertEquals(modificationCount, certificates.getModificationCount());
+	}
+
+	@Test
+	public void newVersionIsReadAndPublished() {
+		OCITestKeyVaultClient client = new OCITestKeyVaultClient("new-version");
+		X509Certificate[] chain = OCITestKeyVaultClient.chain();
+		client.put(CA_A, "a", 1, chain);
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Collections.singletonList(CA_A), client);
+		certificates.load();
+		long modificationCount = certificates.getModificationCount();
+
+		X509Certificate[] renewed = { chain[0] };
+		client.put(CA_A, "a", 2, renewed);
+		certificates.refreshCertificates();
+		assertEquals(2, client.bundleReads.get());
+		assertArrayEquals(renewed, certificates.getCertificateChain("a"));
+		assertTrue(certificates.getModificationCount() > modificationCount);
+	}
+
+	@Test
+	public void restoreKeepsAuthoritiesLoadedFromOCI() {
+		OCITestKeyVaultClient client = new OCITestKeyVaultClient("restore");
+		client.put(CA_A, "a", 1, OCITestKeyVaultClient.chain());
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Arrays.asList(CA_A, CA_B), client);
+		certificates.load();
+		assertEquals(Collections.singletonList("a"), certificates.getAliases());
+
+		certificates.restore(Arrays.asList(entry("stale-a", CA_A), entry("b", CA_B)));
+		assertEquals(Arrays.asList("a", "b"), certificates.getAliases());
+		assertNull(certificates.getCertificate("stale-a"));
+		assertArrayEquals(OCITestKeyVaultClient.chain(), certificates.getCertificateChain("b"));
+	}
+
+	@Test
+	public void missingChainKeepsPreviousEntries() {
+		OCITestKeyVaultClient client = new OCITestKeyVaultClient("missing-chain");
+		X509Certificate[] chain = OCITestKeyVaultClient.chain();
+		client.put(CA_A, "a", 1, chain);
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Collections.singletonList(CA_A), client);
+		certificates.load();
+		long modificationCount = certificates.getModificationCount();
+
+		// A new version whose bundle cannot be read.
+		client.put(CA_A, "a", 2, chain);
+		client.chains.remove(CA_A);
+		certificates.refreshCertificates();
+		assertEquals(Collections.singletonList("a"), certificates.getAliases());
+		assertSame(chain, certificates.getCertificateChain("a"));
+		assertEquals(modificationCount, certificates.getModificationCount());
+	}
+
+	@Test
+	public void unavailableAuthorityKeepsPreviousEntries() {
+		OCITestKeyVaultClient client = new OCITestKeyVaultClient("unavailable");
+		client.put(CA_A, "a", 1, OCITestKeyVaultClient.chain());
+		client.put(CA_B, "b", 1, OCITestKeyVaultClient.chain());
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Arrays.asList(CA_A, CA_B), client);
+		certificates.load();
+		Key key = certificates.getKey("a");
+
+		client.authorities.remove(CA_A);
+		client.put(CA_B, "b2", 2, OCITestKeyVaultClient.chain());
+		certificates.refreshCertificates();
+		assertEquals(Arrays.asList("a", "b2"), certificates.getAliases());
+		assertSame(key, certificates.getKey("a"));
+	}
+
+	@Test
+	public void restoredKeysSignWithoutConfiguredAuthorities() {
+		OCITestTransport.vault("https://crypto.unconfigured").sign = r -> SignResponse.builder()
+				.signedData(SignedData.builder().signature(Base64.getEncoder()
+						.encodeToString(r.getSignDataDetails().getKeyVersionId().getBytes(StandardCharsets.UTF_8)))
+						.build())
+				.build();
+		OCIKeyVaultCertificates certificates = new OCIKeyVaultCertificates(Collections.<String>emptyList(),
+				"https://crypto.unconfigured");
+		certificates.restore(Collections.singletonList(entry("b", CA_B)));
+
+		OCIPrivateKey key = (OCIPrivateKey) certificates.getKey("b");
+		byte[] signature = key.getKeyVaultClient().getSignedWithPrivateKey("SHA-256", "ZGlnZXN0",
+				SigningAlgorithm.EcdsaSha256, key.getKid());
+		assertEquals("ocid1.keyversion.b", new String(signature, StandardCharsets.UTF_8));
+	}
+
+	static OCIKeyStoreSnapshot.Entry entry(String alias, String certificateAuthorityId) {
+		return new OCIKeyStoreSnapshot.Entry(OCIKeyStoreSnapshot.Entry.SOURCE_KEY_VAULT, alias,
+				certificateAuthorityId, "ocid1.key." + alias, null, "EC", 256, "ocid1.keyversion." + alias,
+				Arrays.<Certificate>asList(OCITestKeyVaultClient.chain()));
+	}
+}
@@ -0,0 +1,153 @@
+package com.oci.security.keyvault.jca.implementation.certificates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCITestTransport;
+import com.oracle.bmc.keymanagement.model.KeyShape;
+import com.oracle.bmc.keymanagement.model.KeyVersion;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+
+public class OCISignedCSRCertificatesTest {
+
+	private static final String[] PROPERTIES = { "oci.transport", "oci.configFile", "oci.region" };
+
+	@TempDir
+	Path directory;
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.transport", OCITestTransport.NAME);
+		System.setProperty("oci.configFile", "/nonexistent/oci/config");
+		System.setProperty("oci.region", "us-ashburn-1");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		for (String property : PROPERTIES) {
+			System.clearProperty(property);
+		}
+	}
+
+	@Test
+	public void certificateEntryIsPairedWithFirstConfiguredKey() throws Exception {
+		OCITestTransport.Vault vault = vault("https://crypto.csr-entry", "entry");
+		try (OCISignedCSRCertificates certificates = new OCISignedCSRCertificates(directory.toString(),
+				Arrays.asList("ocid1.key.first", "ocid1.key.second"), null, "https://crypto.csr-entry")) {
+			certificates.load();
+			certificates.setCertificateEntry("added", OCITestKeyVaultClient.chain()[0]);
+			Key key = certificates.getKey("added");
+			assertEquals("ocid1.key.first", ((OCIPrivateKey) key).getKid());
+			assertEquals(0, vault.getKeyVersions.get());
+		}
+	}
+
+	@Test
+	public void failedPublicKeyIsLoadedAgainForNextCertificate() throws Exception {
+		OCITestTransport.Vault vault = vault("https://crypto.csr-retry", "retry");
+		GetKeyVersionResponse found = publicKeyVersion(OCITestKeyVaultClient.chain()[0].getPublicKey());
+		vault.getKeyVersion = r -> GetKeyVersionResponse.builder().__httpStatusCode__(500).build();
+		copyLeaf("leaf.pem");
+		try (OCISignedCSRCertificates certificates = new OCISignedCSRCertificates(directory.toString(),
+				Collections.singletonList("ocid1.key.retry"), null, "https://crypto.csr-retry")) {
+			certificates.load();
+			assertEquals(Collections.singletonList("leaf"), certificates.getAliases());
+			assertNull(certificates.getKey("leaf"));
+
+			vault.getKeyVersion = r -> found;
+			copyLeaf("renewed.pem");
+			waitFor(() -> certificates.getKey("renewed") != null);
+			assertEquals("ocid1.key.retry", ((OCIPrivateKey) certificates.getKey("renewed")).getKid());
+			assertEquals(2, vault.getKeyVersions.get());
+		}
+	}
+
+	@Test
+	public void directoryCertificatesArePairedWithTheirKeys() throws Exception {
+		OCITestTransport.Vault vault = vault("https://crypto.csr-directory", "directory");
+		vault.getKeyVersion = r -> publicKeyVersion(OCITestKeyVaultClient.chain()[0].getPublicKey());
+		copyLeaf("matched.pem");
+		copyLeaf("sidecar.crt");
+		Files.write(directory.resolve("sidecar.keyid"), "ocid1.key.sidecar\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("notes.txt"), "not a certificate".getBytes(StandardCharsets.UTF_8));
+		try (OCISignedCSRCertificates certificates = new OCISignedCSRCertificates(directory.toString(),
+				Collections.singletonList("ocid1.key.matched"), null, "https://crypto.csr-directory")) {
+			certificates.load();
+			assertEquals(Arrays.asList("matched", "sidecar"), certificates.getAliases());
+			assertEquals("ocid1.key.matched", ((OCIPrivateKey) certificates.getKey("matched")).getKid());
+			assertEquals("ocid1.key.sidecar", ((OCIPrivateKey) certificates.getKey("sidecar")).getKid());
+			// The sidecar spares the public key lookup of its certificate.
+			assertEquals(1, vault.getKeyVersions.get());
+		}
+	}
+
+	@Test
+	public void deletedCertificateIsRemoved() throws Exception {
+		vault("https://crypto.csr-delete", "delete");
+		copyLeaf("kept.pem");
+		copyLeaf("deleted.pem");
+		try (OCISignedCSRCertificates certificates = new OCISignedCSRCertificates(directory.toString(),
+				Collections.<String>emptyList(), null, "https://crypto.csr-delete")) {
+			certificates.load();
+			assertEquals(Arrays.asList("deleted", "kept"), certificates.getAliases());
+
+			Files.delete(directory.resolve("deleted.pem"));
+			waitFor(() -> certificates.getAliases().equals(Collections.singletonList("kept")));
+			assertNull(certificates.getCertificate("deleted"));
+		}
+	}
+
+	private static OCITestTransport.Vault vault(String cryptoEndpoint, String version) {
+		OCITestTransport.Vault vault = OCITestTransport.vault(cryptoEndpoint);
+		vault.getKey = r -> GetKeyResponse.builder()
+				.key(com.oracle.bmc.keymanagement.model.Key.builder().id(r.getKeyId())
+						.currentKeyVersion("ocid1.keyversion." + version)
+						.keyShape(KeyShape.builder().algorithm(KeyShape.Algorithm.Ecdsa).length(256).build()).build())
+				.build();
+		return vault;
+	}
+
+	private static GetKeyVersionResponse publicKeyVersion(PublicKey publicKey) {
+		String pem = "-----BEGIN PUBLIC KEY-----\n" + Base64.getMimeEncoder().encodeToString(publicKey.getEncoded())
+				+ "\n-----END PUBLIC KEY-----\n";
+		return GetKeyVersionResponse.builder().keyVersion(KeyVersion.builder().publicKey(pem).build()).build();
+	}
+
+	private void copyLeaf(String name) throws Exception {
+		Path temporary = directory.resolveSibling(directory.getFileName() + "-" + name);
+		try (InputStream in = OCISignedCSRCertificatesTest.class
+				.getResourceAsStream("/com/oci/security/keyvault/jca/implementation/leaf.pem")) {
+			Files.copy(in, temporary);
+		}
+		// Moved in whole, so the watcher never reads a partial file.
+		Files.move(temporary, directory.resolve(name));
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.oci.security.keyvault.jca.implementation.certificates;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.Key;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oracle.bmc.certificatesmanagement.model.CertificateAuthority;
+import com.oracle.bmc.certificatesmanagement.model.CertificateAuthorityVersionSummary;
+import com.oracle.bmc.model.BmcException;
+
+/**
+ * Client serving the certificate authorities and chains put in it, failing the others.
+ */
+class OCITestKeyVaultClient extends OCIKeyVaultClient {
+
+	final Map<String, CertificateAuthority> authorities = new ConcurrentHashMap<>();
+	final Map<String, X509Certificate[]> chains = new ConcurrentHashMap<>();
+	final AtomicInteger bundleReads = new AtomicInteger();
+
+	OCITestKeyVaultClient(String vault) {
+		super(null, "us-ashburn-1", "https://crypto." + vault, "https://management." + vault, null, null, null);
+	}
+
+	void put(String certificateAuthorityId, String alias, long versionNumber, X509Certificate[] chain) {
+		authorities.put(certificateAuthorityId, CertificateAuthority.builder().id(certificateAuthorityId).name(alias)
+				.kmsKeyId("ocid1.key." + alias)
+				.currentVersion(CertificateAuthorityVersionSummary.builder().versionNumber(versionNumber).build())
+				.build());
+		chains.put(certificateAuthorityId, chain);
+	}
+
+	@Override
+	public CertificateAuthority getCertificateAuthority(String certificateAuthorityId) {
+		CertificateAuthority authority = authorities.get(certificateAuthorityId);
+		if (authority == null) {
+			throw new BmcException(503, "ServiceUnavailable", certificateAuthorityId + " is unavailable", null);
+		}
+		return authority;
+	}
+
+	@Override
+	public X509Certificate[] getCertificateAuthorityCertificateChain(String certificateAuthorityId,
+			Long versionNumber) {
+		bundleReads.incrementAndGet();
+		return chains.get(certificateAuthorityId);
+	}
+
+	@Override
+	public Key revalidatePrivateKey(String keyId, Key previous) {
+		return previous != null ? previous : new OCIPrivateKey("EC", keyId, null, 256, this);
+	}
+
+	static X509Certificate[] chain() {
+		try {
+			CertificateFactory cf = CertificateFactory.getInstance("X.509");
+			return new X509Certificate[] { certificate(cf, "leaf.pem"), certificate(cf, "ca.pem") };
+		} catch (CertificateException ce) {
+			throw new IllegalStateException(ce);
+		}
+	}
+
+	private static X509Certificate certificate(CertificateFactory cf, String name) throws CertificateException {
+		try (InputStream in = OCITestKeyVaultClient.class
+				.getResourceAsStream("/com/oci/security/keyvault/jca/implementation/" + name)) {
+			return (X509Certificate) cf.generateCertificate(in);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.oci.security.keyvault.jca.implementation.signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Base64;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oci.security.keyvault.jca.implementation.OCIKeyVaultClient;
+import com.oci.security.keyvault.jca.implementation.OCIPrivateKey;
+import com.oci.security.keyvault.jca.implementation.OCITestTransport;
+import com.oracle.bmc.keymanagement.model.Key;
+import com.oracle.bmc.keymanagement.model.KeyVersion;
+import com.oracle.bmc.keymanagement.model.SignedData;
+import com.oracle.bmc.keymanagement.responses.GetKeyResponse;
+import com.oracle.bmc.keymanagement.responses.GetKeyVersionResponse;
+import com.oracle.bmc.keymanagement.responses.SignResponse;
+
+public class KeyVaultKeylessSignatureTest {
+
+	private static final byte[] DATA = "data to sign".getBytes(StandardCharsets.UTF_8);
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty("oci.transport", OCITestTransport.NAME);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty("oci.transport");
+	}
+
+	@Test
+	public void ecSignatureIsVerifiedLocally() throws Exception {
+		KeyPair keyPair = KeyPairGenerator.getInstance("EC").generateKeyPair();
+		Signature jdk = Signature.getInstance("SHA256withECDSA");
+		jdk.initSign(keyPair.getPrivate());
+		jdk.update(DATA);
+		byte[] signature = jdk.sign();
+
+		KeyVaultKeylessEcSha256Signature verifier = new KeyVaultKeylessEcSha256Signature();
+		verifier.engineInitVerify(keyPair.getPublic());
+		verifier.engineUpdate(DATA, 0, DATA.length);
+		assertTrue(verifier.engineVerify(signature));
+
+		verifier.engineInitVerify(keyPair.getPublic());
+		verifier.engineUpdate((byte) 0);
+		assertFalse(verifier.engineVerify(signature));
+	}
+
+	@Test
+	public void rsaSignatureIsVerifiedLocally() throws Exception {
+		KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+		Signature jdk = Signature.getInstance("SHA256withRSA");
+		jdk.initSign(keyPair.getPrivate());
+		jdk.update(DATA);
+
+		KeyVaultKeylessRsa256Signature verifier = new KeyVaultKeylessRsa256Signature();
+		verifier.engineInitVerify(keyPair.getPublic());
+		verifier.engineUpdate(DATA, 0, DATA.length);
+		assertTrue(verifier.engineVerify(jdk.sign()));
+	}
+
+	@Test
+	public void publicKeyOfOtherTypeIsRejected() throws Exception {
+		PublicKey rsa = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+		assertThrows(InvalidKeyException.class, () -> new KeyVaultKeylessEcSha256Signature().engineInitVerify(rsa));
+		PublicKey ec = KeyPairGenerator.getInstance("EC").generateKeyPair().getPublic();
+		assertThrows(InvalidKeyException.class, () -> new KeyVaultKeylessRsa256Signature().engineInitVerify(ec));
+		assertThrows(SignatureException.class, () -> new KeyVaultKeylessEcSha256Signature().engineVerify(new byte[0]));
+	}
+
+	@Test
+	public void vaultSignatureIsVerifiedWithCachedPublicKey() throws Exception {
+		KeyPair keyPair = KeyPairGenerator.getInstance("EC").generateKeyPair();
+		OCITestTransport.Vault vault = OCITestTransport.vault("https://crypto.verify");
+		vault.getKey = r -> GetKeyResponse.builder()
+				.key(Key.builder().id(r.getKeyId()).currentKeyVersion("ocid1.keyversion.verify").build()).build();
+		vault.getKeyVersion = r -> GetKeyVersionResponse.builder().keyVersion(KeyVersion.builder()
+				.publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded())).build()).build();
+		// KMS signs the digest it is given.
+		vault.sign = r -> {
+			try {
+				Signature digestSigner = Signature.getInstance("NONEwithECDSA");
+				digestSigner.initSign(keyPair.getPrivate());
+				digestSigner.update(Base64.getDecoder().decode(r.getSignDataDetails().getMessage()));
+				return SignResponse.builder().signedData(SignedData.builder()
+						.signature(Base64.getEncoder().encodeToString(digestSigner.sign())).build()).build();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		try (OCIKeyVaultClient client = new OCIKeyVaultClient(null, "us-ashburn-1", "https://crypto.verify",
+				"https://management.verify", null)) {
+			KeyVaultKeylessEcSha256Signature signer = new KeyVaultKeylessEcSha256Signature();
+			signer.engineInitSign(new OCIPrivateKey("EC", "ocid1.key.verify", null, 256, client));
+			signer.engineUpdate(DATA, 0, DATA.length);
+			byte[] signature = signer.engineSign();
+
+			for (int i = 0; i < 2; i++) {
+				KeyVaultKeylessEcSha256Signature verifier = new KeyVaultKeylessEcSha256Signature();
+				verifier.engineInitVerify(client.getPublicKey("ocid1.key.verify"));
+				verifier.engineUpdate(DATA, 0, DATA.length);
+				assertTrue(verifier.engineVerify(signature));
+			}
+		}
+		assertEquals(1, vault.signs.get());
+		assertEquals(1, vault.getKeyVersions.get());
+	}
+}